@@ -6,7 +6,6 @@ import org.modelmapper.ModelMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class FilterConfig {
@@ -21,11 +20,6 @@ public class FilterConfig {
         return new ModelMapper();
     }
 
-    @Bean // RestTemplate for making HTTP requests (used by payment gateways)
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
-    }
-
     @Bean // ObjectMapper for JSON serialization/deserialization
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
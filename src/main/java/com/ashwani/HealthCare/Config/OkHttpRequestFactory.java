@@ -0,0 +1,137 @@
+package com.ashwani.HealthCare.Config;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * RestTemplate request factory that sends through an existing OkHttpClient.
+ *
+ * Replaces Spring's OkHttp3ClientHttpRequestFactory (deprecated for removal since 6.1)
+ * so REST-based gateways keep the shared client's pool, timeouts, per-host limit and
+ * metrics. Request bodies are buffered; gateway payloads are small JSON documents.
+ */
+class OkHttpRequestFactory implements ClientHttpRequestFactory {
+    private static final Set<HttpMethod> METHODS_WITH_BODY = Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH);
+
+    private final OkHttpClient client;
+
+    OkHttpRequestFactory(OkHttpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+        return new OkHttpRequest(client, uri, httpMethod);
+    }
+
+    private static final class OkHttpRequest extends AbstractClientHttpRequest {
+        private final OkHttpClient client;
+        private final URI uri;
+        private final HttpMethod method;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+
+        private OkHttpRequest(OkHttpClient client, URI uri, HttpMethod method) {
+            this.client = client;
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        protected OutputStream getBodyInternal(HttpHeaders headers) {
+            return body;
+        }
+
+        @Override
+        protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+            byte[] content = body.toByteArray();
+            MediaType contentType = headers.getContentType();
+            RequestBody requestBody = content.length > 0 || METHODS_WITH_BODY.contains(method)
+                    ? RequestBody.create(content, contentType != null ? okhttp3.MediaType.parse(contentType.toString()) : null)
+                    : null;
+
+            Request.Builder request = new Request.Builder()
+                    .url(uri.toURL())
+                    .method(method.name(), requestBody);
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                // OkHttp derives these from the request body
+                if (header.getKey().equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH)) continue;
+                for (String value : header.getValue()) {
+                    request.addHeader(header.getKey(), value);
+                }
+            }
+            return new OkHttpResponse(client.newCall(request.build()).execute());
+        }
+    }
+
+    private static final class OkHttpResponse implements ClientHttpResponse {
+        private final Response response;
+        private HttpHeaders headers;
+
+        private OkHttpResponse(Response response) {
+            this.response = response;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return HttpStatusCode.valueOf(response.code());
+        }
+
+        @Override
+        public String getStatusText() {
+            return response.message();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            if (headers == null) {
+                HttpHeaders copy = new HttpHeaders();
+                for (String name : response.headers().names()) {
+                    copy.addAll(name, response.headers(name));
+                }
+                headers = HttpHeaders.readOnlyHttpHeaders(copy);
+            }
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            ResponseBody body = response.body();
+            return body != null ? body.byteStream() : InputStream.nullInputStream();
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+    }
+}
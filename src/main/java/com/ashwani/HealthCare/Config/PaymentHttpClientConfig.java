@@ -0,0 +1,79 @@
+package com.ashwani.HealthCare.Config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.okhttp3.OkHttpMetricsEventListener;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared HTTP client for payment gateway integrations
+ *
+ * One pooled OkHttp client serves every gateway: the Cashfree SDK receives it per call,
+ * and the RestTemplate used by REST-based gateways (Paytm) sends through it. Connections
+ * are kept alive and reused, so an initiate call normally skips the TCP and TLS handshake.
+ * HTTP/2 is negotiated where the gateway supports it, with many requests sharing one connection.
+ *
+ * Connect, read and whole-call timeouts are set below payment.gateway.timeout-ms, so a
+ * call that GatewayCallExecutor gives up on also frees its connection.
+ *
+ * Metrics:
+ * - payment.http.requests: latency per host, method and status
+ * - payment.http.pool.connections: pooled connections, tagged state (active, idle)
+ * - payment.http.host.in-flight: requests in flight per host
+ */
+@Configuration
+@Slf4j
+public class PaymentHttpClientConfig {
+
+    @Bean
+    public OkHttpClient paymentHttpClient(MeterRegistry meterRegistry,
+                                          @Value("${payment.http.connect-timeout-ms:3000}") long connectTimeoutMillis,
+                                          @Value("${payment.http.read-timeout-ms:8000}") long readTimeoutMillis,
+                                          @Value("${payment.http.call-timeout-ms:9500}") long callTimeoutMillis,
+                                          @Value("${payment.http.pool.max-idle-connections:20}") int maxIdleConnections,
+                                          @Value("${payment.http.pool.keep-alive-ms:300000}") long keepAliveMillis,
+                                          @Value("${payment.http.pool.max-requests-per-host:20}") int maxRequestsPerHost,
+                                          @Value("${payment.http.pool.acquire-timeout-ms:1000}") long acquireTimeoutMillis) {
+        ConnectionPool pool = new ConnectionPool(maxIdleConnections, keepAliveMillis, TimeUnit.MILLISECONDS);
+        meterRegistry.gauge("payment.http.pool.connections", Tags.of("state", "active"),
+                pool, p -> p.connectionCount() - p.idleConnectionCount());
+        meterRegistry.gauge("payment.http.pool.connections", Tags.of("state", "idle"),
+                pool, ConnectionPool::idleConnectionCount);
+
+        log.info("Payment HTTP client: pool {} idle / {} per host, keep-alive {} ms, timeouts connect {} ms, read {} ms, call {} ms",
+                maxIdleConnections, maxRequestsPerHost, keepAliveMillis, connectTimeoutMillis, readTimeoutMillis, callTimeoutMillis);
+
+        return new OkHttpClient.Builder()
+                .connectionPool(pool)
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .readTimeout(Duration.ofMillis(readTimeoutMillis))
+                .writeTimeout(Duration.ofMillis(readTimeoutMillis))
+                .callTimeout(Duration.ofMillis(callTimeoutMillis))
+                .addInterceptor(new PerHostLimitInterceptor(maxRequestsPerHost, acquireTimeoutMillis, meterRegistry))
+                .eventListener(OkHttpMetricsEventListener.builder(meterRegistry, "payment.http.requests")
+                        // Paths carry order ids; keep the tag count bounded
+                        .uriMapper(request -> request.url().host())
+                        .build())
+                .build();
+    }
+
+    /**
+     * RestTemplate for REST-based payment gateways, sending through the pooled client
+     */
+    @Bean
+    public RestTemplate restTemplate(OkHttpClient paymentHttpClient) {
+        return new RestTemplate(new OkHttpRequestFactory(paymentHttpClient));
+    }
+}
@@ -0,0 +1,60 @@
+package com.ashwani.HealthCare.Config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps in-flight requests per host on the shared payment HTTP client.
+ *
+ * OkHttp's Dispatcher limits only asynchronous calls, and the gateway SDKs call
+ * synchronously, so the cap is applied here. A request waits up to acquireTimeoutMillis
+ * for a slot and then fails with an IOException, like a connect failure.
+ *
+ * Metric: payment.http.host.in-flight, tagged by host.
+ */
+class PerHostLimitInterceptor implements Interceptor {
+    private final int maxRequestsPerHost;
+    private final long acquireTimeoutMillis;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, Semaphore> slotsByHost = new ConcurrentHashMap<>();
+
+    PerHostLimitInterceptor(int maxRequestsPerHost, long acquireTimeoutMillis, MeterRegistry meterRegistry) {
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        String host = chain.request().url().host();
+        Semaphore slots = slotsByHost.computeIfAbsent(host, this::newSlots);
+        try {
+            if (!slots.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Too many concurrent requests to " + host);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a connection slot to " + host);
+        }
+        try {
+            return chain.proceed(chain.request());
+        } finally {
+            slots.release();
+        }
+    }
+
+    private Semaphore newSlots(String host) {
+        Semaphore slots = new Semaphore(maxRequestsPerHost);
+        meterRegistry.gauge("payment.http.host.in-flight", Tags.of("host", host), slots,
+                semaphore -> maxRequestsPerHost - semaphore.availablePermits());
+        return slots;
+    }
+}
@@ -1,16 +1,34 @@
 package com.ashwani.HealthCare.Config;
 
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 public class RabbitMQConfig {
-    
+    public static final String PAYMENT_COMPLETED_QUEUE = "payment.completed";
+    public static final String PAYMENT_COMPLETED_DLQ = "payment.completed.dlq";
+
+    /**
+     * Retry queue for one backoff step. The delay is part of the name, so changing the
+     * configured delays declares new queues instead of clashing with existing ones.
+     */
+    public static String paymentCompletedRetryQueue(long delayMillis) {
+        return PAYMENT_COMPLETED_QUEUE + ".retry." + delayMillis + "ms";
+    }
+
     @Bean
     public MessageConverter jsonMessageConverter() {
         return new Jackson2JsonMessageConverter();
@@ -47,4 +65,53 @@ public class RabbitMQConfig {
         factory.setAutoStartup(true);
         return factory;
     }
+
+    /**
+     * Retry and dead-letter queues for payment.completed.
+     * A failed message is parked in the retry queue of its attempt; when the queue TTL
+     * expires it is dead-lettered back to payment.completed. Messages that cannot
+     * be retried, or ran out of attempts, go to payment.completed.dlq until replayed.
+     */
+    @Bean
+    public Declarables paymentCompletedRetryTopology(
+            @Value("${payment.completed-consumer.retry-delays-ms:5000,30000,120000}") long[] retryDelays) {
+        List<Declarable> queues = new ArrayList<>();
+        for (long delay : retryDelays) {
+            queues.add(QueueBuilder.durable(paymentCompletedRetryQueue(delay))
+                    .ttl((int) delay)
+                    .deadLetterExchange("")
+                    .deadLetterRoutingKey(PAYMENT_COMPLETED_QUEUE)
+                    .build());
+        }
+        queues.add(QueueBuilder.durable(PAYMENT_COMPLETED_DLQ).build());
+        return new Declarables(queues);
+    }
+
+    /**
+     * Listener container for payment.completed: concurrent consumers that receive
+     * messages in batches and acknowledge them manually once each one is booked,
+     * parked for retry or dead-lettered.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory paymentCompletedListenerContainerFactory(
+            ConnectionFactory connectionFactory,
+            @Value("${payment.completed-consumer.concurrency:4}") int concurrency,
+            @Value("${payment.completed-consumer.max-concurrency:16}") int maxConcurrency,
+            @Value("${payment.completed-consumer.prefetch:50}") int prefetch,
+            @Value("${payment.completed-consumer.batch-size:10}") int batchSize,
+            @Value("${payment.completed-consumer.batch-receive-timeout-ms:200}") long batchReceiveTimeout) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(maxConcurrency);
+        factory.setPrefetchCount(prefetch);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        // Deliver a partial batch once no further message arrives within this time
+        factory.setReceiveTimeout(batchReceiveTimeout);
+        factory.setAutoStartup(true);
+        return factory;
+    }
 }
@@ -1,6 +1,7 @@
 package com.ashwani.HealthCare.Config;
 
 import com.ashwani.HealthCare.Filter.JwtFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -40,6 +41,11 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(AbstractHttpConfigurer::disable) // Disable CSRF (APIs are stateless)
                 .authorizeHttpRequests(auth -> auth
+                        // Async results (CompletableFuture, DeferredResult) and error pages are written on a
+                        // second dispatch. The original request was authorized already, and JwtFilter does not
+                        // run again for it, so without this the finished response would be replaced by a 401
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+
                         // Public endpoints (no auth required)
                         .requestMatchers(
                                 "/actuator/health",
@@ -64,9 +70,17 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.PUT, "/api/doctor/profile").hasRole("DOCTOR")
                         .requestMatchers(HttpMethod.PATCH, "/api/doctor/profile").hasRole("DOCTOR")
                         .requestMatchers(HttpMethod.GET,"/api/doctor/**").hasAnyRole("DOCTOR", "PATIENT")
+                        // ADMIN: accounts listed in security.admin.accounts (admin token claim, see JwtFilter)
+                        .requestMatchers(HttpMethod.POST, "/api/availability/import").hasRole("ADMIN")
+                        .requestMatchers("/api/payments/events/**").hasRole("ADMIN")
+                        .requestMatchers("/api/payments/revenue/**").hasRole("ADMIN")
+                        // Owning doctor or ADMIN; the doctor id is checked in AppointmentController
+                        .requestMatchers(HttpMethod.GET, "/api/appointments/doctor/{doctorId}/export").hasAnyRole("DOCTOR", "ADMIN")
                         .requestMatchers(HttpMethod.POST, "/api/availability/{doctorId}").hasRole("DOCTOR")
                         .requestMatchers(HttpMethod.PUT, "/api/availability/{doctorId}/{slotId}").hasRole("DOCTOR")
                         .requestMatchers(HttpMethod.DELETE, "/api/availability/{doctorId}/{slotId}").hasRole("DOCTOR")
+                        .requestMatchers(HttpMethod.POST, "/api/availability/{doctorId}/overrides").hasRole("DOCTOR")
+                        .requestMatchers(HttpMethod.DELETE, "/api/availability/{doctorId}/overrides/{overrideId}").hasRole("DOCTOR")
                         .requestMatchers("/api/availability/**").hasAnyRole("DOCTOR", "PATIENT")
 
                         // All other requests require authentication
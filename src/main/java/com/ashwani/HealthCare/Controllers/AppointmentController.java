@@ -1,9 +1,15 @@
 package com.ashwani.HealthCare.Controllers;
 
+import com.ashwani.HealthCare.DTO.Appointments.AppointmentCursorPage;
 import com.ashwani.HealthCare.DTO.Appointments.BookAppointmentRequest;
+import com.ashwani.HealthCare.DTO.Appointments.DayAvailability;
 import com.ashwani.HealthCare.DTO.Appointments.PatientAppointmentResponse;
 import com.ashwani.HealthCare.DTO.Appointments.UpdateAppointmentRequest;
+import com.ashwani.HealthCare.DTO.Doctor.FirstAvailableDoctor;
+import com.ashwani.HealthCare.Enums.Gender;
+import com.ashwani.HealthCare.Service.Appointment.AppointmentExportService;
 import com.ashwani.HealthCare.Service.Appointment.AppointmentService;
+import com.ashwani.HealthCare.Service.Appointment.FirstAvailableSlotService;
 import com.ashwani.HealthCare.Utility.TimeSlot;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -14,10 +20,15 @@ import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.security.Principal;
 import java.time.LocalDate;
@@ -31,6 +42,12 @@ public class AppointmentController {
     @Autowired
     private AppointmentService appointmentService;
 
+    @Autowired
+    private FirstAvailableSlotService firstAvailableSlotService;
+
+    @Autowired
+    private AppointmentExportService appointmentExportService;
+
     /**
      * DEPRECATED: Direct booking endpoint - no longer used
      * All appointments now go through the payment flow:
@@ -65,6 +82,7 @@ public class AppointmentController {
                     request.getDoctorId(),
                     request.getDate(),
                     request.getStartTime(),
+                    request.getDurationMinutes(),
                     request.getReason()
             );
 
@@ -194,6 +212,80 @@ public class AppointmentController {
         return ResponseEntity.ok(assembler.toModel(appointments));
     }
 
+    /**
+     * Get appointments for a doctor using cursor pagination (no total count, constant cost per page)
+     * @param doctorId Doctor ID (path)
+     * @param cursor Optional continuation token from the previous page's nextCursor
+     * @param size Page size (1-100, default 20)
+     * @return Page of appointments ordered by date, start time and id, with the next cursor
+     */
+    @GetMapping("/doctor/{doctorId}/scroll")
+    public ResponseEntity<AppointmentCursorPage> scrollDoctorAppointments(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate appointmentStartDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate appointmentEndDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime endTime,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        return ResponseEntity.ok(appointmentService.getDoctorAppointmentsByCursor(
+                doctorId, appointmentStartDate, appointmentEndDate, startTime, endTime, status, cursor, size));
+    }
+
+    /**
+     * Get appointments for a patient using cursor pagination (no total count, constant cost per page)
+     * @param patientId Patient ID (path)
+     * @param cursor Optional continuation token from the previous page's nextCursor
+     * @param size Page size (1-100, default 20)
+     * @return Page of appointments ordered by date, start time and id, with the next cursor
+     */
+    @GetMapping("/patient/{patientId}/scroll")
+    public ResponseEntity<AppointmentCursorPage> scrollPatientAppointments(
+            @PathVariable Long patientId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate appointmentStartDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate appointmentEndDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime endTime,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        return ResponseEntity.ok(appointmentService.getPatientAppointmentsByCursor(
+                patientId, appointmentStartDate, appointmentEndDate, startTime, endTime, status, cursor, size));
+    }
+
+    /**
+     * Export a doctor's full appointment history, streamed row by row.
+     * Only the doctor themselves or an admin may export it: it includes patient data.
+     * @param doctorId Doctor ID (path)
+     * @param format ndjson (default) or csv
+     * @param authentication Current authenticated user (doctor or admin)
+     * @return Streaming download ordered by date, start time and id
+     */
+    @GetMapping("/doctor/{doctorId}/export")
+    public ResponseEntity<StreamingResponseBody> exportDoctorAppointments(
+            @PathVariable Long doctorId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            Authentication authentication) {
+
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        if (!admin && !authentication.getName().equals(doctorId.toString())) {
+            throw new AccessDeniedException("You can only export your own appointments");
+        }
+
+        AppointmentExportService.ExportFormat exportFormat = AppointmentExportService.ExportFormat.from(format);
+        StreamingResponseBody body = appointmentExportService.exportDoctorAppointments(doctorId, exportFormat);
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"appointments-doctor-" + doctorId + "." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
     @GetMapping("availability/{doctorId}")
     /**
      * Get available time slots for a specific doctor on a date
@@ -208,4 +300,56 @@ public class AppointmentController {
         List<TimeSlot> slots = appointmentService.getAvailableSlots(doctorId, date);
         return ResponseEntity.ok(slots);
     }
+
+    @GetMapping(value = "availability/{doctorId}", params = {"from", "to"})
+    /**
+     * Get available time slots for every day in a date range (week/month calendar views)
+     * @param doctorId Doctor ID
+     * @param from First date of the range (YYYY-MM-DD)
+     * @param to Last date of the range, inclusive (YYYY-MM-DD)
+     * @return Available time slots grouped by date
+     */
+    public ResponseEntity<List<DayAvailability>> getAvailabilityCalendar(
+            @PathVariable Long doctorId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        List<DayAvailability> calendar = appointmentService.getAvailabilityCalendar(doctorId, from, to);
+        return ResponseEntity.ok(calendar);
+    }
+
+    /**
+     * Stream slot changes for a doctor as Server-Sent Events, replacing polling of the availability endpoint.
+     * Each "slot-change" event carries TAKEN/RELEASED with the interval, or SCHEDULE_CHANGED (reload availability).
+     * @param doctorId Doctor ID
+     * @param date Optional date (YYYY-MM-DD) to limit the stream to
+     * @return Long-lived event stream
+     */
+    @GetMapping(value = "availability/{doctorId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSlotChanges(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+
+        return appointmentService.streamSlotChanges(doctorId, date);
+    }
+
+    /**
+     * Find doctors ranked by their earliest free slot
+     * @param specialization Optional specialization filter (partial, case-insensitive)
+     * @param gender Optional gender filter
+     * @param days Search window in days starting today (default 7, max 30)
+     * @param limit Maximum number of doctors to return (default 20, max 100)
+     * @return Doctors with their next free slot, earliest first
+     */
+    @GetMapping("/first-available")
+    public ResponseEntity<List<FirstAvailableDoctor>> getFirstAvailableDoctors(
+            @RequestParam(required = false) String specialization,
+            @RequestParam(required = false) Gender gender,
+            @RequestParam(defaultValue = "7") int days,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        List<FirstAvailableDoctor> doctors = firstAvailableSlotService.findFirstAvailable(
+                specialization, gender, days, limit);
+        return ResponseEntity.ok(doctors);
+    }
 }
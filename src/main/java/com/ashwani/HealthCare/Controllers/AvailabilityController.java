@@ -1,14 +1,24 @@
 package com.ashwani.HealthCare.Controllers;
 
+import com.ashwani.HealthCare.DTO.DoctorAvailability.AvailabilityImportResult;
+import com.ashwani.HealthCare.DTO.DoctorAvailability.AvailabilityImportRowDto;
+import com.ashwani.HealthCare.DTO.DoctorAvailability.AvailabilityOverrideRequestDto;
+import com.ashwani.HealthCare.DTO.DoctorAvailability.AvailabilityOverrideResponseDto;
 import com.ashwani.HealthCare.DTO.DoctorAvailability.AvailabilityRequestDto;
 import com.ashwani.HealthCare.DTO.DoctorAvailability.AvailabilityResponseDto;
+import com.ashwani.HealthCare.Service.Availability.AvailabilityImportService;
 import com.ashwani.HealthCare.Service.Availability.AvailabilityService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.security.Principal;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -16,6 +26,29 @@ import java.util.List;
 @RequiredArgsConstructor
 public class AvailabilityController {
     private final AvailabilityService availabilityService;
+    private final AvailabilityImportService availabilityImportService;
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    /**
+     * Bulk import weekly availability windows for many doctors (JSON)
+     * @param rows Windows to import, each naming its doctor
+     * @return Counts plus one error per rejected row; valid rows are imported even if others fail
+     */
+    public ResponseEntity<AvailabilityImportResult> importAvailability(
+            @RequestBody List<AvailabilityImportRowDto> rows) {
+        return ResponseEntity.ok(availabilityImportService.importRows(rows));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    /**
+     * Bulk import weekly availability windows for many doctors (CSV upload)
+     * @param file CSV with header doctorId,dayOfWeek,startTime,endTime[,isAvailable]
+     * @return Counts plus one error per rejected row; valid rows are imported even if others fail
+     */
+    public ResponseEntity<AvailabilityImportResult> importAvailabilityCsv(
+            @RequestParam("file") MultipartFile file) throws IOException {
+        return ResponseEntity.ok(availabilityImportService.importCsv(file.getInputStream()));
+    }
 
     @PostMapping("/{doctorId}")
     /**
@@ -94,4 +127,60 @@ public class AvailabilityController {
         AvailabilityResponseDto updatedSlot = availabilityService.updateAvailabilitySlot(doctorId, slotId, request);
         return ResponseEntity.ok(updatedSlot);
     }
+
+    @GetMapping("/{doctorId}/overrides")
+    /**
+     * Get date-specific availability overrides for a doctor
+     * @param doctorId Doctor's ID
+     * @param from First date (YYYY-MM-DD)
+     * @param to Last date, inclusive (YYYY-MM-DD)
+     * @return Overrides in date order
+     */
+    public ResponseEntity<List<AvailabilityOverrideResponseDto>> getOverrides(
+            @PathVariable Long doctorId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(availabilityService.getOverrides(doctorId, from, to));
+    }
+
+    @PostMapping("/{doctorId}/overrides")
+    /**
+     * Add a date-specific override (day off, blocked window or extra window)
+     * @param doctorId Doctor's ID
+     * @param request Override details
+     * @param principal Current authenticated user (doctor)
+     * @return Created override
+     */
+    public ResponseEntity<AvailabilityOverrideResponseDto> addOverride(
+            @PathVariable Long doctorId,
+            @RequestBody AvailabilityOverrideRequestDto request,
+            Principal principal) {
+
+        if (!principal.getName().equals(doctorId.toString())) {
+            throw new AccessDeniedException("You can only update your own availability");
+        }
+
+        return ResponseEntity.ok(availabilityService.addOverride(doctorId, request));
+    }
+
+    @DeleteMapping("/{doctorId}/overrides/{overrideId}")
+    /**
+     * Delete a date-specific override
+     * @param doctorId Doctor's ID
+     * @param overrideId Override ID to delete
+     * @param principal Current authenticated user (doctor)
+     * @return Success message on success
+     */
+    public ResponseEntity<String> deleteOverride(
+            @PathVariable Long doctorId,
+            @PathVariable Long overrideId,
+            Principal principal) {
+
+        if (!principal.getName().equals(doctorId.toString())) {
+            throw new AccessDeniedException("You can only delete your own availability overrides");
+        }
+
+        availabilityService.deleteOverride(doctorId, overrideId);
+        return ResponseEntity.ok("Success: Availability override " + overrideId + " deleted successfully");
+    }
 }
@@ -1,12 +1,16 @@
 package com.ashwani.HealthCare.Controllers;
 
+import com.ashwani.HealthCare.Config.RabbitMQConfig;
 import com.ashwani.HealthCare.DTO.Payment.PaymentRequest;
 import com.ashwani.HealthCare.DTO.Payment.PaymentResponse;
-import com.ashwani.HealthCare.DTO.Payment.PaymentWebhookPayload;
+import com.ashwani.HealthCare.DTO.Payment.PaymentRevenueSummary;
+import com.ashwani.HealthCare.DTO.Payment.PaymentStatusResponse;
 import com.ashwani.HealthCare.Entity.Payment;
+import com.ashwani.HealthCare.Service.Payment.Event.PaymentEventRecoverer;
+import com.ashwani.HealthCare.Service.Payment.Inbox.PaymentWebhookInboxService;
+import com.ashwani.HealthCare.Service.Payment.PaymentRevenueService;
 import com.ashwani.HealthCare.Service.Payment.PaymentService;
 import com.cashfree.pg.ApiException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -14,12 +18,18 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/payments")
@@ -28,58 +38,59 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private PaymentWebhookInboxService paymentWebhookInboxService;
+
+    @Autowired
+    private PaymentEventRecoverer paymentEventRecoverer;
+
+    @Autowired
+    private PaymentRevenueService paymentRevenueService;
+
     @PostMapping("/initiate")
     /**
      * Initiate a new payment order with Cashfree
      * @param request Payment initiation payload (customer + amount)
-     * @return PaymentResponse with orderId and paymentSessionId
+     * The gateway call runs asynchronously; the request thread is released meanwhile.
+     * @return PaymentResponse with orderId and paymentSessionId, or 503 if the gateway is unavailable
      */
-    public ResponseEntity<PaymentResponse> initiatePayment(@RequestBody PaymentRequest request) {
-        return ResponseEntity.ok(paymentService.initiatePayment(request));
+    public CompletableFuture<ResponseEntity<PaymentResponse>> initiatePayment(@RequestBody PaymentRequest request) {
+        return paymentService.initiatePayment(request).thenApply(ResponseEntity::ok);
     }
 
     @PostMapping("/webhook/cashfree")
     /**
-     * Handle incoming Cashfree webhook callbacks
+     * Accept Cashfree webhook callbacks into the webhook inbox.
+     * The delivery is processed asynchronously (signature validation, status update).
      * @param rawBody Raw JSON payload from Cashfree
-     * @param signature Optional header x-webhook-signature for validation
-     * @return 200 OK on success
+     * @param headers Request headers, including x-webhook-signature
+     * @return 200 OK once the delivery is stored
      */
-    public ResponseEntity<?> cashfreeWebhook(@RequestBody String rawBody,
-                                            @RequestHeader(value = "x-webhook-signature", required = false) String signature) {
-        try {
-            log.info("Received Cashfree webhook");
-            // Parse the JSON payload
-            ObjectMapper objectMapper = new ObjectMapper();
-            PaymentWebhookPayload payload = objectMapper.readValue(rawBody, PaymentWebhookPayload.class);
-            
-            paymentService.handleWebhook(payload, signature, rawBody);
-            return ResponseEntity.ok().build();
-        } catch (Exception e) {
-            log.error("Error processing Cashfree webhook", e);
-            return ResponseEntity.status(500).body("Error processing webhook: " + e.getMessage());
-        }
+    public ResponseEntity<?> cashfreeWebhook(@RequestBody String rawBody, @RequestHeader HttpHeaders headers) {
+        return acceptWebhook("cashfree", rawBody, headers);
     }
 
     @PostMapping("/webhook/paytm")
     /**
-     * Handle incoming Paytm webhook callbacks
+     * Accept Paytm webhook callbacks into the webhook inbox.
+     * The delivery is processed asynchronously (checksum validation, status update).
      * @param rawBody Raw JSON payload from Paytm
-     * @param checksumHeader Optional CHECKSUMHASH header for validation
-     * @return 200 OK on success
+     * @param headers Request headers, including CHECKSUMHASH
+     * @return 200 OK once the delivery is stored
      */
-    public ResponseEntity<?> paytmWebhook(@RequestBody String rawBody,
-                                          @RequestHeader(value = "CHECKSUMHASH", required = false) String checksumHeader) {
-        try {
-            log.info("Received Paytm webhook");
-            // Parse the JSON payload
-            ObjectMapper objectMapper = new ObjectMapper();
-            PaymentWebhookPayload payload = objectMapper.readValue(rawBody, PaymentWebhookPayload.class);
+    public ResponseEntity<?> paytmWebhook(@RequestBody String rawBody, @RequestHeader HttpHeaders headers) {
+        return acceptWebhook("paytm", rawBody, headers);
+    }
 
-            paymentService.handleWebhook(payload, checksumHeader, rawBody);
+    private ResponseEntity<?> acceptWebhook(String gateway, String rawBody, HttpHeaders headers) {
+        try {
+            paymentWebhookInboxService.append(gateway, headers, rawBody)
+                    .ifPresent(inboxId -> log.info("Received {} webhook, queued as inbox row {}", gateway, inboxId));
+            // Duplicates are acknowledged too, so the gateway stops retrying
             return ResponseEntity.ok().build();
         } catch (Exception e) {
-            log.error("Error processing Paytm webhook", e);
+            // Not stored: a non-2xx response makes the gateway retry the delivery
+            log.error("Error storing {} webhook", gateway, e);
             return ResponseEntity.status(500).body("Error processing webhook: " + e.getMessage());
         }
     }
@@ -95,6 +106,73 @@ public class PaymentController {
         return ResponseEntity.status(200).body("Your payment status is " + status);
     }
 
+    @GetMapping("/status/{orderId}/wait")
+    /**
+     * Long-poll for the status of an order: responds as soon as the payment leaves
+     * PENDING, or with the current status once the timeout passes
+     * @param orderId Order ID
+     * @param timeoutMs How long to wait (1000-60000 ms, defaults to 25000)
+     * @return PaymentStatusResponse; pending=true means the client may wait again
+     */
+    public DeferredResult<PaymentStatusResponse> awaitPaymentStatus(@PathVariable String orderId,
+                                                                    @RequestParam(defaultValue = "25000") long timeoutMs) {
+        return paymentService.awaitPaymentStatus(orderId, timeoutMs);
+    }
+
+    @GetMapping("/events/dead-letters")
+    /**
+     * Admin: number of payment.completed messages waiting in the dead-letter queue
+     * @return Queue name and depth
+     */
+    public ResponseEntity<Map<String, Object>> deadLetterCount() {
+        return ResponseEntity.ok(Map.of(
+                "queue", RabbitMQConfig.PAYMENT_COMPLETED_DLQ,
+                "messages", paymentEventRecoverer.deadLetterCount()));
+    }
+
+    @PostMapping("/events/dead-letters/replay")
+    /**
+     * Admin: move dead-lettered payment.completed messages back to the consumer
+     * @param limit Maximum number of messages to replay (1-1000, defaults to 100)
+     * @return Number of messages replayed
+     */
+    public ResponseEntity<Map<String, Object>> replayDeadLetters(@RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > 1000) {
+            throw new IllegalArgumentException("limit must be between 1 and 1000");
+        }
+        return ResponseEntity.ok(Map.of("replayed", paymentEventRecoverer.replayDeadLetters(limit)));
+    }
+
+    @GetMapping("/revenue")
+    /**
+     * Admin: revenue per day, payment mode and status, read from the revenue rollups
+     * @param from First order day (yyyy-MM-dd)
+     * @param to Last order day (yyyy-MM-dd); the range is limited to payment.revenue.max-range-days
+     * @param status Payment status filter (optional)
+     * @param paymentMode Payment mode filter (optional)
+     * @return Totals for the range and the buckets they add up from
+     */
+    public ResponseEntity<PaymentRevenueSummary> getRevenue(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String paymentMode) {
+        return ResponseEntity.ok(paymentRevenueService.getRevenue(from, to, status, paymentMode));
+    }
+
+    @PostMapping("/revenue/rebuild")
+    /**
+     * Admin: recompute the revenue rollups from the payments table (backfill or repair)
+     * @param from First order day (optional, defaults to the oldest payment)
+     * @param to Last order day (optional, defaults to today)
+     * @return Number of rollup buckets written
+     */
+    public ResponseEntity<Map<String, Object>> rebuildRevenue(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(Map.of("buckets", paymentRevenueService.rebuild(from, to)));
+    }
+
     @GetMapping("/debug/orders")
     /**
      * Debug endpoint to fetch all payment rows
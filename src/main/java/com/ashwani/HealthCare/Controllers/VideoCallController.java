@@ -3,6 +3,7 @@ package com.ashwani.HealthCare.Controllers;
 import com.ashwani.HealthCare.DTO.VideoSession.VideoSession;
 import com.ashwani.HealthCare.Entity.TwilioWebhookEvent;
 import com.ashwani.HealthCare.Service.Communication.VideoCallService;
+import com.ashwani.HealthCare.Service.Webhook.WebhookDeduplicator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -13,6 +14,7 @@ import org.springframework.web.bind.annotation.*;
 public class VideoCallController {
 
     private final VideoCallService videoCallService;
+    private final WebhookDeduplicator webhookDeduplicator;
 
     @PostMapping("/session/{appointmentId}")
     /**
@@ -65,12 +67,18 @@ public class VideoCallController {
 
     @PostMapping("/webhook")
     /**
-     * Handle incoming Twilio webhook events
+     * Handle incoming Twilio webhook events.
+     * Retried callbacks are acknowledged without being processed again. An event that
+     * fails to process is not recorded, so the error response makes Twilio retry it.
      * @param event Webhook event payload
      * @return 200 OK on success
      */
     public ResponseEntity<Void> handleTwilioWebhook(@RequestBody TwilioWebhookEvent event) {
-        videoCallService.processTwilioWebhook(event);
+        event.setEventKey(VideoCallService.twilioEventKey(event));
+        webhookDeduplicator.acceptOnce("twilio", event.getEventKey(), TwilioWebhookEvent.EVENT_KEY_CONSTRAINT, () -> {
+            videoCallService.processTwilioWebhook(event);
+            return event.getEventKey();
+        });
         return ResponseEntity.ok().build();
     }
 }
\ No newline at end of file
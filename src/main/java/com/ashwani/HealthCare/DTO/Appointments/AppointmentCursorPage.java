@@ -0,0 +1,9 @@
+package com.ashwani.HealthCare.DTO.Appointments;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paginated appointment listing.
+ * nextCursor is null on the last page.
+ */
+public record AppointmentCursorPage(List<PatientAppointmentResponse> content, String nextCursor, boolean hasNext) {}
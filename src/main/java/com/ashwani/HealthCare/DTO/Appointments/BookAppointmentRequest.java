@@ -13,5 +13,7 @@ public class BookAppointmentRequest {
     private Long doctorId;
     private LocalDate date;
     private LocalTime startTime;
+    // 15, 30, 45 or 60; defaults to 30 when omitted
+    private Integer durationMinutes;
     private String reason;
 }
@@ -0,0 +1,9 @@
+package com.ashwani.HealthCare.DTO.Appointments;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Date and time interval of a booked appointment, projected without loading the entity
+ */
+public record BookedSlot(Long doctorId, LocalDate date, LocalTime startTime, LocalTime endTime) {}
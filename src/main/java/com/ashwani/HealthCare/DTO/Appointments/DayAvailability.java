@@ -0,0 +1,11 @@
+package com.ashwani.HealthCare.DTO.Appointments;
+
+import com.ashwani.HealthCare.Utility.TimeSlot;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Free slots of a doctor on one day of an availability calendar
+ */
+public record DayAvailability(LocalDate date, List<TimeSlot> slots) {}
@@ -0,0 +1,31 @@
+package com.ashwani.HealthCare.DTO.Appointments;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Change to a doctor's free slots, pushed to availability stream subscribers.
+ * TAKEN and RELEASED carry the affected interval. SCHEDULE_CHANGED carries the
+ * affected date, or no date when the weekly rules changed, and tells clients to
+ * reload availability.
+ */
+public record SlotChangeEvent(Long doctorId, Change change, LocalDate date, LocalTime startTime, LocalTime endTime) {
+
+    public enum Change {
+        TAKEN,
+        RELEASED,
+        SCHEDULE_CHANGED
+    }
+
+    public static SlotChangeEvent taken(Long doctorId, LocalDate date, LocalTime startTime, int durationMinutes) {
+        return new SlotChangeEvent(doctorId, Change.TAKEN, date, startTime, startTime.plusMinutes(durationMinutes));
+    }
+
+    public static SlotChangeEvent released(Long doctorId, LocalDate date, LocalTime startTime, int durationMinutes) {
+        return new SlotChangeEvent(doctorId, Change.RELEASED, date, startTime, startTime.plusMinutes(durationMinutes));
+    }
+
+    public static SlotChangeEvent scheduleChanged(Long doctorId, LocalDate date) {
+        return new SlotChangeEvent(doctorId, Change.SCHEDULE_CHANGED, date, null, null);
+    }
+}
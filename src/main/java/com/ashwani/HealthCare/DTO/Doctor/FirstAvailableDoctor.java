@@ -0,0 +1,15 @@
+package com.ashwani.HealthCare.DTO.Doctor;
+
+import com.ashwani.HealthCare.Utility.TimeSlot;
+
+import java.time.LocalDate;
+
+/**
+ * A doctor together with their earliest free slot in the search window
+ */
+public record FirstAvailableDoctor(
+        DoctorDto doctor,
+        LocalDate date,
+        TimeSlot slot
+) {
+}
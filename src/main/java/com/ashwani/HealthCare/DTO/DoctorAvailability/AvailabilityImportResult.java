@@ -0,0 +1,17 @@
+package com.ashwani.HealthCare.DTO.DoctorAvailability;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk schedule import: valid rows are imported, rejected rows are reported
+ * @param received Rows in the upload
+ * @param imported Rows written
+ * @param errors One entry per rejected row
+ */
+public record AvailabilityImportResult(int received, int imported, List<RowError> errors) {
+
+    /**
+     * @param row 1-based row number (CSV rows are counted after the header)
+     */
+    public record RowError(int row, Long doctorId, String message) {}
+}
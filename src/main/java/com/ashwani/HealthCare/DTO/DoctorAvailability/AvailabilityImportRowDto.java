@@ -0,0 +1,24 @@
+package com.ashwani.HealthCare.DTO.DoctorAvailability;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+/**
+ * One weekly availability window of a bulk schedule import
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityImportRowDto {
+    private Long doctorId;
+    private DayOfWeek dayOfWeek;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private Boolean isAvailable = true;
+}
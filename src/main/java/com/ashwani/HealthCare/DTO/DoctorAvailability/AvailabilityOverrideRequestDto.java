@@ -0,0 +1,19 @@
+package com.ashwani.HealthCare.DTO.DoctorAvailability;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityOverrideRequestDto {
+    private LocalDate date;
+    // Both null with isAvailable = false marks the whole day off
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private Boolean isAvailable = false;
+    private String reason;
+}
@@ -0,0 +1,26 @@
+package com.ashwani.HealthCare.DTO.DoctorAvailability;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityOverrideResponseDto {
+    private Long id;
+    private Long doctorId;
+    private LocalDate date;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private Boolean isAvailable;
+    private String reason;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,9 @@
+package com.ashwani.HealthCare.DTO.DoctorAvailability;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+/**
+ * Weekly window of a doctor, projected without loading the entity
+ */
+public record AvailabilityWindow(Long doctorId, DayOfWeek dayOfWeek, LocalTime startTime, LocalTime endTime) {}
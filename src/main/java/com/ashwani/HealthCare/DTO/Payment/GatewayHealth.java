@@ -0,0 +1,17 @@
+package com.ashwani.HealthCare.DTO.Payment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Recent health of one payment gateway, as seen by GatewayCallExecutor
+ */
+@Data
+@AllArgsConstructor
+public class GatewayHealth {
+    private String gateway;
+    private String circuitState;    // CLOSED, HALF_OPEN or OPEN
+    private double successRate;     // Over the last calls in the health window
+    private double p95Millis;
+    private int samples;            // Calls in the health window
+}
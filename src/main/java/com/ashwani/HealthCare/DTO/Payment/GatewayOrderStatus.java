@@ -0,0 +1,28 @@
+package com.ashwani.HealthCare.DTO.Payment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Status of one order as reported by the gateway's order-status API.
+ * The status uses the webhook vocabulary (SUCCESS, FAILED, PENDING); fields the
+ * gateway did not report are null and leave the stored values untouched.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GatewayOrderStatus {
+    private String orderId;
+    private String status;
+    private String referenceId;
+    private String paymentMode;
+    private String transactionTime;
+    private BigDecimal orderAmount;
+
+    public static GatewayOrderStatus of(String orderId, String status) {
+        return new GatewayOrderStatus(orderId, status, null, null, null, null);
+    }
+}
@@ -12,4 +12,5 @@ public class PaymentRequest {
     private String customerEmail;
     private BigDecimal amount;
     private String appointmentHoldReference;
+    private String paymentMode;     // Requested payment mode (UPI, CARD, NET_BANKING, ...); null for any
 }
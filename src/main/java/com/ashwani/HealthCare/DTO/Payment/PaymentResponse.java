@@ -8,4 +8,9 @@ import lombok.Data;
 public class PaymentResponse {
     private String orderId;
     private String paymentSessionId;
+    private String gateway;         // Gateway that created the order; set by PaymentService
+
+    public PaymentResponse(String orderId, String paymentSessionId) {
+        this(orderId, paymentSessionId, null);
+    }
 }
@@ -0,0 +1,17 @@
+package com.ashwani.HealthCare.DTO.Payment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class PaymentRevenueBucket {
+    private LocalDate date;         // Day the order was created
+    private String paymentMode;     // UNKNOWN when the gateway did not report one
+    private String status;
+    private long paymentCount;
+    private BigDecimal totalAmount;
+}
@@ -0,0 +1,18 @@
+package com.ashwani.HealthCare.DTO.Payment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class PaymentRevenueSummary {
+    private LocalDate from;
+    private LocalDate to;
+    private long paymentCount;
+    private BigDecimal totalAmount;
+    private List<PaymentRevenueBucket> buckets;
+}
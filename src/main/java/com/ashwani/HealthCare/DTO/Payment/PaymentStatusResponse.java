@@ -0,0 +1,13 @@
+package com.ashwani.HealthCare.DTO.Payment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PaymentStatusResponse {
+    private String orderId;
+    private String status;
+    // True while the gateway has not reported a final status yet; the client may wait again
+    private boolean pending;
+}
@@ -21,13 +21,16 @@ import java.util.UUID;
 @EntityListeners(AuditingEntityListener.class)
 public class AppointmentHold {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointment_hold_seq")
+    @SequenceGenerator(name = "appointment_hold_seq", sequenceName = "appointment_hold_seq", allocationSize = 50)
     private Long id;
     private String holdReference;
     private Long patientId;
     private Long doctorId;
     private LocalDate date;
     private LocalTime startTime;
+    // Null for holds created before appointment lengths were configurable (30 minutes)
+    private Integer durationMinutes;
     private String reason;
     private LocalDateTime expiresAt;
 
@@ -39,10 +42,12 @@ public class AppointmentHold {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    // Pre-persist method to generate the readable reference
+    // Pre-persist method to generate the readable reference (unless already assigned in memory)
     @PrePersist
     public void generateHoldReference() {
-        this.holdReference = "hold_" + UUID.randomUUID().toString().substring(0, 8);
+        if (this.holdReference == null) {
+            this.holdReference = "hold_" + UUID.randomUUID().toString().substring(0, 8);
+        }
     }
 
 }
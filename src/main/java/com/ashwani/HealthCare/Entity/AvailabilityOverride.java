@@ -0,0 +1,56 @@
+package com.ashwani.HealthCare.Entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Date-specific exception to a doctor's weekly availability.
+ * - isAvailable = false without times: the whole day is off (holiday, leave)
+ * - isAvailable = false with times: that window is blocked
+ * - isAvailable = true with times: an extra window is opened on that date
+ */
+@Entity
+@Table(name = "doctor_availability_overrides",
+        indexes = @Index(name = "idx_availability_overrides_doctor_date", columnList = "doctor_id, override_date"))
+@Getter
+@Setter
+@EntityListeners(AuditingEntityListener.class)
+public class AvailabilityOverride {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id", nullable = false)
+    private Doctor doctor;
+
+    @Column(name = "override_date", nullable = false)
+    private LocalDate date;
+
+    @Column(name = "start_time")
+    private LocalTime startTime;
+
+    @Column(name = "end_time")
+    private LocalTime endTime;
+
+    @Column(name = "is_available", nullable = false)
+    private Boolean isAvailable = false;
+
+    private String reason;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -18,8 +18,13 @@ import java.time.LocalTime;
 @Setter
 @EntityListeners(AuditingEntityListener.class)
 public class DoctorAvailability {
+    // Shared with the bulk import, which reserves id blocks from the sequence directly
+    public static final String ID_SEQUENCE = "doctoravailability_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne
@@ -0,0 +1,57 @@
+package com.ashwani.HealthCare.Entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Message waiting to be published to RabbitMQ.
+ * Written in the same transaction as the change it announces, and deleted once the
+ * broker confirms it. A row is due once available_at has passed; the relay pushes
+ * available_at forward while a publish is in flight and after a failed attempt.
+ */
+@Entity
+@Table(name = "outbox_messages",
+        indexes = @Index(name = "idx_outbox_messages_due", columnList = "available_at, id"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_messages_seq")
+    @SequenceGenerator(name = "outbox_messages_seq", sequenceName = "outbox_messages_seq", allocationSize = 50)
+    private Long id;
+
+    // AMQP message id; lets consumers recognise redeliveries
+    @Column(name = "message_id", nullable = false, unique = true, length = 64)
+    private String messageId;
+
+    @Column(name = "routing_key", nullable = false, length = 100)
+    private String routingKey;
+
+    // Java type of the payload, sent as the __TypeId__ header for the JSON message converter
+    @Column(name = "message_type", nullable = false)
+    private String messageType;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "text")
+    private String payload;
+
+    // Per-message TTL applied by the broker, null for none
+    @Column(name = "expiration_ms")
+    private Long expirationMillis;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+}
@@ -19,11 +19,15 @@ import java.time.LocalDateTime;
 @EntityListeners(AuditingEntityListener.class)
 public class Payment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "order_id", unique = true)
-    private String orderId;         // Cashfree order ID
+    private String orderId;         // Gateway order ID
+
+    @Column(name = "gateway")
+    private String gateway;         // Gateway that created the order (Cashfree, Paytm); null for older orders
     
     private String status;          // Payment status (PAID, FAILED, etc.)
     @Column(name = "reference_id", unique = true)
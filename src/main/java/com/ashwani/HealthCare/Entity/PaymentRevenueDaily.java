@@ -0,0 +1,31 @@
+package com.ashwani.HealthCare.Entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Pre-aggregated payment revenue: count and amount of settled payments per order day,
+ * payment mode and status. Rows are only written by PaymentRevenueDailyRepository's
+ * native upserts (kept in step with every status change) and rebuilt from payments
+ * by PaymentRevenueService.rebuild; this entity is read-only.
+ * PENDING payments are not counted. A payment without a payment mode is counted under UNKNOWN.
+ */
+@Entity
+@Table(name = "payment_revenue_daily")
+@Getter
+@NoArgsConstructor
+public class PaymentRevenueDaily {
+    public static final String UNKNOWN_MODE = "UNKNOWN";
+
+    @EmbeddedId
+    private PaymentRevenueDailyId id;
+
+    @Column(name = "payment_count", nullable = false)
+    private long paymentCount;
+
+    @Column(name = "total_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalAmount;
+}
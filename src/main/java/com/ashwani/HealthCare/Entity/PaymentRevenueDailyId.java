@@ -0,0 +1,28 @@
+package com.ashwani.HealthCare.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Key of a revenue rollup bucket: order day, payment mode and status
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentRevenueDailyId implements Serializable {
+    @Column(name = "revenue_date", nullable = false)
+    private LocalDate revenueDate;
+
+    @Column(name = "payment_mode", nullable = false, length = 50)
+    private String paymentMode;
+
+    @Column(name = "status", nullable = false, length = 50)
+    private String status;
+}
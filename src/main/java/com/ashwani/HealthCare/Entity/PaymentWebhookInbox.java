@@ -0,0 +1,68 @@
+package com.ashwani.HealthCare.Entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Raw payment gateway webhook delivery, appended as received and processed asynchronously.
+ * PENDING rows are picked up once available_at has passed; a row ends PROCESSED, or
+ * FAILED when it cannot be applied (invalid signature, unparseable body, retries exhausted).
+ */
+@Entity
+@Table(name = "payment_webhook_inbox",
+        indexes = @Index(name = "idx_payment_webhook_inbox_due", columnList = "status, available_at, id"),
+        uniqueConstraints = @UniqueConstraint(name = PaymentWebhookInbox.DEDUP_CONSTRAINT, columnNames = {"gateway", "dedup_key"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class PaymentWebhookInbox {
+    public static final String PENDING = "PENDING";
+    public static final String PROCESSED = "PROCESSED";
+    public static final String FAILED = "FAILED";
+    public static final String DEDUP_CONSTRAINT = "uk_payment_webhook_inbox_dedup";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_webhook_inbox_seq")
+    @SequenceGenerator(name = "payment_webhook_inbox_seq", sequenceName = "payment_webhook_inbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "gateway", nullable = false, length = 20)
+    private String gateway;
+
+    // Gateway event id, or SHA-256 of the body; a retried delivery has the same key
+    @Column(name = "dedup_key", length = 128)
+    private String dedupKey;
+
+    // Request headers with lower-case names (signature headers included)
+    @Column(name = "headers", columnDefinition = "jsonb")
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, String> headers;
+
+    @Column(name = "body", nullable = false, columnDefinition = "text")
+    private String body;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status = PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,63 @@
+package com.ashwani.HealthCare.Entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Exclusive claim on a doctor's slot.
+ * The unique key on (doctor_id, slot_date, start_time) makes the database the
+ * arbiter when concurrent holds or bookings race for the same slot.
+ * Hold claims carry an expiry; claims backing an appointment have none.
+ */
+@Entity
+@Table(name = "slot_claims",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_slot_claims_doctor_slot",
+                columnNames = {"doctor_id", "slot_date", "start_time"}),
+        indexes = @Index(name = "idx_slot_claims_hold_reference", columnList = "hold_reference"))
+@Getter
+@Setter
+@NoArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class SlotClaim {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "slot_claims_seq")
+    @SequenceGenerator(name = "slot_claims_seq", sequenceName = "slot_claims_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "slot_date", nullable = false)
+    private LocalDate date;
+
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
+
+    @Column(name = "hold_reference")
+    private String holdReference;
+
+    // Null once the claim backs a booked appointment
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public SlotClaim(Long doctorId, LocalDate date, LocalTime startTime, String holdReference, LocalDateTime expiresAt) {
+        this.doctorId = doctorId;
+        this.date = date;
+        this.startTime = startTime;
+        this.holdReference = holdReference;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -1,5 +1,6 @@
 package com.ashwani.HealthCare.Entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -14,18 +15,26 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "twilio_webhook_events")
+@Table(name = "twilio_webhook_events",
+        uniqueConstraints = @UniqueConstraint(name = TwilioWebhookEvent.EVENT_KEY_CONSTRAINT, columnNames = "event_key"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @EntityListeners(AuditingEntityListener.class)
 public class TwilioWebhookEvent {
+    public static final String EVENT_KEY_CONSTRAINT = "uk_twilio_webhook_events_event_key";
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "twilio_webhook_events_seq")
+    @SequenceGenerator(name = "twilio_webhook_events_seq", sequenceName = "twilio_webhook_events_seq", allocationSize = 50)
     private Long id;
 
+    // Hash of the event fields; a retried callback has the same key
+    @JsonIgnore
+    @Column(name = "event_key", length = 64)
+    private String eventKey;
+
     @Column(name = "room_sid", nullable = false)
     private String roomSid;
 
@@ -9,6 +9,7 @@ import com.ashwani.HealthCare.ExceptionHandlers.common.ResourceNotFoundException
 import com.ashwani.HealthCare.ExceptionHandlers.communication.EmailSendingException;
 import com.ashwani.HealthCare.ExceptionHandlers.communication.QrCodeGenerationException;
 import com.ashwani.HealthCare.ExceptionHandlers.communication.VideoCallException;
+import com.ashwani.HealthCare.ExceptionHandlers.payment.GatewayUnavailableException;
 import com.ashwani.HealthCare.ExceptionHandlers.payment.PaymentException;
 import com.ashwani.HealthCare.ExceptionHandlers.payment.WebhookValidationException;
 import com.ashwani.HealthCare.ExceptionHandlers.token.InvalidTokenException;
@@ -198,6 +199,12 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(HttpStatus.BAD_REQUEST, "PAYMENT_ERROR", ex.getMessage());
     }
 
+    @ExceptionHandler(GatewayUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleGatewayUnavailable(GatewayUnavailableException ex) {
+        log.warn("Payment gateway unavailable: {}", ex.getMessage());
+        return buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getErrorCode(), ex.getMessage());
+    }
+
     @ExceptionHandler(WebhookValidationException.class)
     public ResponseEntity<Map<String, Object>> handleWebhookValidation(WebhookValidationException ex) {
         log.error("Webhook validation failed: {}", ex.getMessage());
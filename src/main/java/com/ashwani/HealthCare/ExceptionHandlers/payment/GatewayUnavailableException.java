@@ -0,0 +1,12 @@
+package com.ashwani.HealthCare.ExceptionHandlers.payment;
+
+/**
+ * Thrown when a payment gateway call is not made or not completed in time
+ * Examples: circuit breaker open, gateway bulkhead full, call timed out
+ */
+public class GatewayUnavailableException extends PaymentException {
+
+    public GatewayUnavailableException(String message, String errorCode) {
+        super(message, null, errorCode);
+    }
+}
@@ -48,7 +48,7 @@ public class JwtFilter extends OncePerRequestFilter {
                 String userId = claims.getSubject();
                 String role = claims.get("role", String.class);
 
-                UserDetails userDetails = createUserDetails(userId, role);
+                UserDetails userDetails = createUserDetails(userId, role, jwtUtility.isAdmin(claims));
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails, null, userDetails.getAuthorities());
@@ -91,9 +91,12 @@ public class JwtFilter extends OncePerRequestFilter {
         return null;
     }
 
-    private UserDetails createUserDetails(String userId, String role) {
+    private UserDetails createUserDetails(String userId, String role, boolean admin) {
         List<GrantedAuthority> authorities = new ArrayList<>();
         authorities.add(new SimpleGrantedAuthority("ROLE_" + role));
+        if (admin) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+        }
 
         return new org.springframework.security.core.userdetails.User(
                 userId, "", authorities);
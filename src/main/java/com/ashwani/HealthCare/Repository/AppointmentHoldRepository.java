@@ -1,11 +1,58 @@
 package com.ashwani.HealthCare.Repository;
 
 import com.ashwani.HealthCare.Entity.AppointmentHold;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface AppointmentHoldRepository extends JpaRepository<AppointmentHold, Long> {
     // Add this custom query method
     Optional<AppointmentHold> findByHoldReference(String holdReference);
+
+    @Query("SELECT h FROM AppointmentHold h WHERE h.expiresAt > :now")
+    List<AppointmentHold> findAllActive(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM AppointmentHold h WHERE h.holdReference = :holdReference")
+    int deleteByHoldReference(@Param("holdReference") String holdReference);
+
+    // Housekeeping: ids of expired holds in ascending order, one batch at a time
+    @Query("SELECT h.id FROM AppointmentHold h WHERE h.expiresAt < :now ORDER BY h.id")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AppointmentHold h WHERE h.id BETWEEN :fromId AND :toId AND h.expiresAt < :now")
+    int deleteExpiredInRange(@Param("fromId") Long fromId,
+                             @Param("toId") Long toId,
+                             @Param("now") LocalDateTime now);
+
+    @Query("SELECT h FROM AppointmentHold h " +
+           "WHERE h.doctorId = :doctorId AND h.date = :date AND h.expiresAt > :now")
+    List<AppointmentHold> findActiveHolds(@Param("doctorId") Long doctorId,
+                                          @Param("date") LocalDate date,
+                                          @Param("now") LocalDateTime now);
+
+    @Query("SELECT h FROM AppointmentHold h " +
+           "WHERE h.doctorId = :doctorId AND h.date BETWEEN :from AND :to AND h.expiresAt > :now")
+    List<AppointmentHold> findActiveHoldsBetween(@Param("doctorId") Long doctorId,
+                                                 @Param("from") LocalDate from,
+                                                 @Param("to") LocalDate to,
+                                                 @Param("now") LocalDateTime now);
+
+    @Query("SELECT h FROM AppointmentHold h " +
+           "WHERE h.doctorId IN :doctorIds AND h.date BETWEEN :from AND :to AND h.expiresAt > :now")
+    List<AppointmentHold> findActiveHoldsForDoctorsBetween(@Param("doctorIds") Collection<Long> doctorIds,
+                                                           @Param("from") LocalDate from,
+                                                           @Param("to") LocalDate to,
+                                                           @Param("now") LocalDateTime now);
 }
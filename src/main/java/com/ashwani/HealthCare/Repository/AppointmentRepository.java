@@ -1,25 +1,38 @@
 package com.ashwani.HealthCare.Repository;
 
+import com.ashwani.HealthCare.DTO.Appointments.BookedSlot;
+import com.ashwani.HealthCare.DTO.Appointments.PatientAppointmentResponse;
 import com.ashwani.HealthCare.Entity.Appointment;
 import com.ashwani.HealthCare.Entity.Doctor;
 import com.ashwani.HealthCare.Entity.Patient;
+import com.ashwani.HealthCare.Utility.TimeSlot;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import org.springframework.lang.NonNull;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 public interface AppointmentRepository extends
         JpaRepository<Appointment, Long>,
-        JpaSpecificationExecutor<Appointment> {
+        JpaSpecificationExecutor<Appointment>,
+        AppointmentResponseQueries {
 
     @Query("SELECT a FROM Appointment a " +
            "JOIN FETCH a.doctor " +
@@ -39,18 +52,78 @@ public interface AppointmentRepository extends
            "WHERE a.doctor = :doctor")
     List<Appointment> findByDoctor(@Param("doctor") Doctor doctor);
 
+    // Export: forward-only stream of response rows (no entities, so the persistence context stays empty).
+    // Must be consumed inside a transaction; the fetch size lets the driver use a server-side cursor.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.ashwani.HealthCare.DTO.Appointments.PatientAppointmentResponse(" +
+           "a.id, p.id, p.full_name, d.id, d.full_name, a.appointmentDate, a.startTime, a.endTime, " +
+           "a.status, a.description, a.createdAt) " +
+           "FROM Appointment a JOIN a.patient p JOIN a.doctor d " +
+           "WHERE d.id = :doctorId " +
+           "ORDER BY a.appointmentDate, a.startTime, a.id")
+    Stream<PatientAppointmentResponse> streamResponsesByDoctor(@Param("doctorId") Long doctorId);
+
+    // Completion job: ids of SCHEDULED appointments whose end time has passed, one batch at a time
+    @Query("SELECT a.id FROM Appointment a WHERE a.status = 'SCHEDULED' " +
+           "AND (a.appointmentDate < :today OR (a.appointmentDate = :today AND a.endTime < :time)) " +
+           "ORDER BY a.id")
+    List<Long> findOverdueScheduledIds(@Param("today") LocalDate today,
+                                       @Param("time") LocalTime time,
+                                       Pageable pageable);
+
+    // Bulk update bypasses auditing, so updatedAt is set explicitly
+    @Transactional
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = 'COMPLETED', a.updatedAt = :now " +
+           "WHERE a.id BETWEEN :fromId AND :toId AND a.status = 'SCHEDULED' " +
+           "AND (a.appointmentDate < :today OR (a.appointmentDate = :today AND a.endTime < :time))")
+    int completeOverdueInRange(@Param("fromId") Long fromId,
+                               @Param("toId") Long toId,
+                               @Param("today") LocalDate today,
+                               @Param("time") LocalTime time,
+                               @Param("now") LocalDateTime now);
+
+    @Query("SELECT new com.ashwani.HealthCare.Utility.TimeSlot(a.startTime, a.endTime) FROM Appointment a " +
+           "WHERE a.doctor.id = :doctorId AND a.appointmentDate = :date AND a.status <> 'CANCELLED'")
+    List<TimeSlot> findBookedTimes(@Param("doctorId") Long doctorId,
+                                   @Param("date") LocalDate date);
+
+    @Query("SELECT new com.ashwani.HealthCare.DTO.Appointments.BookedSlot(a.doctor.id, a.appointmentDate, a.startTime, a.endTime) " +
+           "FROM Appointment a " +
+           "WHERE a.doctor.id = :doctorId AND a.appointmentDate BETWEEN :from AND :to AND a.status <> 'CANCELLED'")
+    List<BookedSlot> findBookedSlotsBetween(@Param("doctorId") Long doctorId,
+                                            @Param("from") LocalDate from,
+                                            @Param("to") LocalDate to);
+
+    @Query("SELECT new com.ashwani.HealthCare.DTO.Appointments.BookedSlot(a.doctor.id, a.appointmentDate, a.startTime, a.endTime) " +
+           "FROM Appointment a " +
+           "WHERE a.doctor.id IN :doctorIds AND a.appointmentDate BETWEEN :from AND :to AND a.status <> 'CANCELLED'")
+    List<BookedSlot> findBookedSlotsForDoctorsBetween(@Param("doctorIds") Collection<Long> doctorIds,
+                                                      @Param("from") LocalDate from,
+                                                      @Param("to") LocalDate to);
+
+    // Half-open overlap; an end time at or before the start time means the appointment ends at midnight
     @Query("SELECT CASE WHEN COUNT(a) > 0 THEN true ELSE false END FROM Appointment a " +
-           "WHERE a.doctor = :doctor AND a.appointmentDate = :date AND a.startTime = :startTime")
-    boolean existsByDoctorAndAppointmentDateAndStartTime(@Param("doctor") Doctor doctor,
-                                                         @Param("date") LocalDate date,
-                                                         @Param("startTime") LocalTime startTime);
+           "WHERE a.doctor = :doctor AND a.appointmentDate = :date " +
+           "AND a.startTime < :endTime AND (a.endTime > :startTime OR a.endTime <= a.startTime) " +
+           "AND a.status <> 'CANCELLED'")
+    boolean existsOverlapping(@Param("doctor") Doctor doctor,
+                              @Param("date") LocalDate date,
+                              @Param("startTime") LocalTime startTime,
+                              @Param("endTime") LocalTime endTime);
 
     @Query("SELECT CASE WHEN COUNT(a) > 0 THEN true ELSE false END FROM Appointment a " +
-           "WHERE a.doctor = :doctor AND a.appointmentDate = :date AND a.startTime = :startTime AND a.id != :appointmentId")
-    boolean existsByDoctorAndAppointmentDateAndStartTimeAndIdNot(@Param("doctor") Doctor doctor,
-                                                                  @Param("date") LocalDate date,
-                                                                  @Param("startTime") LocalTime startTime,
-                                                                  @Param("appointmentId") Long appointmentId);
+           "WHERE a.doctor = :doctor AND a.appointmentDate = :date AND a.id != :appointmentId " +
+           "AND a.startTime < :endTime AND (a.endTime > :startTime OR a.endTime <= a.startTime) " +
+           "AND a.status <> 'CANCELLED'")
+    boolean existsOverlappingExcluding(@Param("doctor") Doctor doctor,
+                                       @Param("date") LocalDate date,
+                                       @Param("startTime") LocalTime startTime,
+                                       @Param("endTime") LocalTime endTime,
+                                       @Param("appointmentId") Long appointmentId);
 
     @EntityGraph(attributePaths = {"patient", "doctor", "paymentDetails"})
     @NonNull
@@ -0,0 +1,22 @@
+package com.ashwani.HealthCare.Repository;
+
+import com.ashwani.HealthCare.DTO.Appointments.PatientAppointmentResponse;
+import com.ashwani.HealthCare.Entity.Appointment;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Listing queries that project appointments straight into PatientAppointmentResponse,
+ * selecting only the response columns instead of hydrating Appointment, Patient,
+ * Doctor and Payment entities.
+ */
+public interface AppointmentResponseQueries {
+
+    Page<PatientAppointmentResponse> findResponses(Specification<Appointment> spec, Pageable pageable);
+
+    List<PatientAppointmentResponse> findResponses(Specification<Appointment> spec, Sort sort, int limit);
+}
@@ -0,0 +1,99 @@
+package com.ashwani.HealthCare.Repository;
+
+import com.ashwani.HealthCare.DTO.Appointments.PatientAppointmentResponse;
+import com.ashwani.HealthCare.Entity.Appointment;
+import com.ashwani.HealthCare.Entity.Doctor;
+import com.ashwani.HealthCare.Entity.Patient;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+/**
+ * Criteria-based implementation of {@link AppointmentResponseQueries}.
+ * The appointment specifications only add fetch joins when the result type is
+ * Appointment, so they can be reused unchanged for the constructor projection.
+ */
+class AppointmentResponseQueriesImpl implements AppointmentResponseQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<PatientAppointmentResponse> findResponses(Specification<Appointment> spec, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return PageableExecutionUtils.getPage(select(spec, pageable.getSort(), 0, -1), pageable, () -> count(spec));
+        }
+        List<PatientAppointmentResponse> content =
+                select(spec, pageable.getSort(), (int) pageable.getOffset(), pageable.getPageSize());
+        // The COUNT query is skipped when the first page is not full
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<PatientAppointmentResponse> findResponses(Specification<Appointment> spec, Sort sort, int limit) {
+        return select(spec, sort, 0, limit);
+    }
+
+    private List<PatientAppointmentResponse> select(Specification<Appointment> spec, Sort sort,
+                                                    int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PatientAppointmentResponse> query = cb.createQuery(PatientAppointmentResponse.class);
+        Root<Appointment> root = query.from(Appointment.class);
+        Join<Appointment, Patient> patient = root.join("patient");
+        Join<Appointment, Doctor> doctor = root.join("doctor");
+
+        query.select(cb.construct(PatientAppointmentResponse.class,
+                root.get("id"),
+                patient.get("id"),
+                patient.get("full_name"),
+                doctor.get("id"),
+                doctor.get("full_name"),
+                root.get("appointmentDate"),
+                root.get("startTime"),
+                root.get("endTime"),
+                root.get("status"),
+                root.get("description"),
+                root.get("createdAt")));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+
+        TypedQuery<PatientAppointmentResponse> typedQuery = entityManager.createQuery(query);
+        typedQuery.setFirstResult(offset);
+        if (limit >= 0) {
+            typedQuery.setMaxResults(limit);
+        }
+        return typedQuery.getResultList();
+    }
+
+    private long count(Specification<Appointment> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Appointment> root = query.from(Appointment.class);
+        query.select(cb.count(root));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
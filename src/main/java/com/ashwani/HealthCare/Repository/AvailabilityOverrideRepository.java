@@ -0,0 +1,31 @@
+package com.ashwani.HealthCare.Repository;
+
+import com.ashwani.HealthCare.Entity.AvailabilityOverride;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface AvailabilityOverrideRepository extends JpaRepository<AvailabilityOverride, Long> {
+
+    @Query("SELECT o FROM AvailabilityOverride o " +
+           "WHERE o.doctor.id = :doctorId AND o.date BETWEEN :from AND :to " +
+           "ORDER BY o.date, o.startTime")
+    List<AvailabilityOverride> findByDoctorIdBetween(@Param("doctorId") Long doctorId,
+                                                     @Param("from") LocalDate from,
+                                                     @Param("to") LocalDate to);
+
+    @Query("SELECT o FROM AvailabilityOverride o " +
+           "WHERE o.doctor.id = :doctorId AND o.date IN :dates")
+    List<AvailabilityOverride> findByDoctorIdAndDates(@Param("doctorId") Long doctorId,
+                                                      @Param("dates") Collection<LocalDate> dates);
+
+    @Query("SELECT o FROM AvailabilityOverride o " +
+           "WHERE o.doctor.id IN :doctorIds AND o.date BETWEEN :from AND :to")
+    List<AvailabilityOverride> findByDoctorIdsBetween(@Param("doctorIds") Collection<Long> doctorIds,
+                                                      @Param("from") LocalDate from,
+                                                      @Param("to") LocalDate to);
+}
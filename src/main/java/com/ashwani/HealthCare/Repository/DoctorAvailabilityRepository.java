@@ -1,5 +1,6 @@
 package com.ashwani.HealthCare.Repository;
 
+import com.ashwani.HealthCare.DTO.DoctorAvailability.AvailabilityWindow;
 import com.ashwani.HealthCare.Entity.DoctorAvailability;
 import com.ashwani.HealthCare.Entity.Doctor;
 import jakarta.transaction.Transactional;
@@ -8,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.DayOfWeek;
+import java.util.Collection;
 import java.util.List;
 
 
@@ -24,6 +26,15 @@ public interface DoctorAvailabilityRepository extends JpaRepository<DoctorAvaila
            "WHERE da.doctor.id = :id")
     List<DoctorAvailability> findByDoctorId(@Param("id") Long id);
 
+    @Query("SELECT da FROM DoctorAvailability da " +
+           "WHERE da.doctor.id IN :doctorIds AND da.isAvailable = true")
+    List<DoctorAvailability> findAvailableByDoctorIds(@Param("doctorIds") Collection<Long> doctorIds);
+
+    @Query("SELECT new com.ashwani.HealthCare.DTO.DoctorAvailability.AvailabilityWindow(" +
+           "da.doctor.id, da.dayOfWeek, da.startTime, da.endTime) " +
+           "FROM DoctorAvailability da WHERE da.doctor.id IN :doctorIds")
+    List<AvailabilityWindow> findWindowsByDoctorIds(@Param("doctorIds") Collection<Long> doctorIds);
+
     void deleteByDoctorAndId(Doctor doctor, Long id);
 
     @Transactional
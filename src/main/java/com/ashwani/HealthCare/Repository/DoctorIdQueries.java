@@ -0,0 +1,19 @@
+package com.ashwani.HealthCare.Repository;
+
+import com.ashwani.HealthCare.Entity.Doctor;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Id-only doctor queries, for callers that page through many doctors without
+ * loading the entities
+ */
+public interface DoctorIdQueries {
+
+    /**
+     * Next page of ids of doctors matching the specification, keyset-paged by id
+     * @param afterId Last id of the previous page (0 for the first page)
+     */
+    List<Long> findIds(Specification<Doctor> spec, long afterId, int limit);
+}
@@ -0,0 +1,36 @@
+package com.ashwani.HealthCare.Repository;
+
+import com.ashwani.HealthCare.Entity.Doctor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Criteria-based implementation of {@link DoctorIdQueries}
+ */
+class DoctorIdQueriesImpl implements DoctorIdQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> findIds(Specification<Doctor> spec, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Doctor> root = query.from(Doctor.class);
+
+        Predicate keyset = cb.greaterThan(root.get("id"), afterId);
+        Predicate filter = spec == null ? null : spec.toPredicate(root, query, cb);
+        query.select(root.get("id"))
+                .where(filter == null ? keyset : cb.and(filter, keyset))
+                .orderBy(cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
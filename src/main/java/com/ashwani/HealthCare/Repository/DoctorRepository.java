@@ -6,12 +6,14 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface DoctorRepository extends
         JpaRepository<Doctor, Long>,
-        JpaSpecificationExecutor<Doctor> {
+        JpaSpecificationExecutor<Doctor>,
+        DoctorIdQueries {
     Optional<Doctor> findByUsername(String username);
     Optional<Doctor> findByEmail(String email);
     
@@ -19,4 +21,7 @@ public interface DoctorRepository extends
     Optional<Doctor> findByLicenseNumber(@Param("licenseNumber") String licenseNumber);
     
     List<Doctor> findAll();
+
+    @Query("SELECT d.id FROM Doctor d WHERE d.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
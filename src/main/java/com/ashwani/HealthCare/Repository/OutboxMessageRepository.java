@@ -0,0 +1,26 @@
+package com.ashwani.HealthCare.Repository;
+
+import com.ashwani.HealthCare.Entity.OutboxMessage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    // Next due messages in creation order, skipping rows another relay is claiming (lock timeout -2 = SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT m FROM OutboxMessage m WHERE m.availableAt <= :now ORDER BY m.id")
+    List<OutboxMessage> claimDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Query("SELECT COUNT(m) FROM OutboxMessage m")
+    long countPending();
+}
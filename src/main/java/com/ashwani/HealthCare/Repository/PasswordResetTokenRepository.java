@@ -1,13 +1,16 @@
 package com.ashwani.HealthCare.Repository;
 
 import com.ashwani.HealthCare.Entity.PasswordResetToken;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,9 +19,17 @@ public interface PasswordResetTokenRepository extends JpaRepository<PasswordRese
 
     Optional<PasswordResetToken> findByEmailAndUserType(String email, String userType);
 
+    // Housekeeping: ids of expired or used tokens in ascending order, one batch at a time
+    @Query("SELECT p.id FROM PasswordResetToken p WHERE p.expiryDate < :now OR p.used = true ORDER BY p.id")
+    List<Long> findExpiredOrUsedIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Transactional
     @Modifying
-    @Query("DELETE FROM PasswordResetToken p WHERE p.expiryDate < :now")
-    void deleteExpiredTokens(@Param("now") LocalDateTime now);
+    @Query("DELETE FROM PasswordResetToken p " +
+           "WHERE p.id BETWEEN :fromId AND :toId AND (p.expiryDate < :now OR p.used = true)")
+    int deleteExpiredOrUsedInRange(@Param("fromId") Long fromId,
+                                   @Param("toId") Long toId,
+                                   @Param("now") LocalDateTime now);
 
     @Modifying
     @Query("DELETE FROM PasswordResetToken p WHERE p.email = :email AND p.userType = :userType")
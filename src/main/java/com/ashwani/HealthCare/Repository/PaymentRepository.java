@@ -1,10 +1,38 @@
 package com.ashwani.HealthCare.Repository;
 
 import com.ashwani.HealthCare.Entity.Payment;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long>, JpaSpecificationExecutor<Payment> {
     Payment findByOrderId(String orderId);
+
+    // Payments of the given orders, locked FOR UPDATE in id order so concurrent batches never deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.orderId IN :orderIds ORDER BY p.id")
+    List<Payment> lockByOrderIdIn(@Param("orderIds") Collection<String> orderIds);
+
+    /**
+     * Next page of PENDING payments created within [createdFrom, createdTo], keyset-paged by id
+     */
+    @Query("SELECT p FROM Payment p WHERE p.status = 'PENDING' " +
+           "AND p.createdAt BETWEEN :createdFrom AND :createdTo AND p.id > :afterId " +
+           "ORDER BY p.id")
+    List<Payment> findStalePending(@Param("createdFrom") LocalDateTime createdFrom,
+                                   @Param("createdTo") LocalDateTime createdTo,
+                                   @Param("afterId") Long afterId,
+                                   Pageable pageable);
+
+    @Query("SELECT MIN(p.createdAt) FROM Payment p")
+    LocalDateTime findOldestCreatedAt();
 }
 
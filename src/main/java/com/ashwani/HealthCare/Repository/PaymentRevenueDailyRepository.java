@@ -0,0 +1,69 @@
+package com.ashwani.HealthCare.Repository;
+
+import com.ashwani.HealthCare.Entity.PaymentRevenueDaily;
+import com.ashwani.HealthCare.Entity.PaymentRevenueDailyId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PaymentRevenueDailyRepository extends JpaRepository<PaymentRevenueDaily, PaymentRevenueDailyId> {
+
+    /**
+     * Add count and amount (negative to subtract) to a bucket, creating it if missing.
+     * Atomic under concurrent writers to the same bucket.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO payment_revenue_daily (revenue_date, payment_mode, status, payment_count, total_amount) " +
+                   "VALUES (:revenueDate, :paymentMode, :status, :count, :amount) " +
+                   "ON CONFLICT (revenue_date, payment_mode, status) DO UPDATE SET " +
+                   "payment_count = payment_revenue_daily.payment_count + EXCLUDED.payment_count, " +
+                   "total_amount = payment_revenue_daily.total_amount + EXCLUDED.total_amount",
+           nativeQuery = true)
+    int addToBucket(@Param("revenueDate") LocalDate revenueDate,
+                    @Param("paymentMode") String paymentMode,
+                    @Param("status") String status,
+                    @Param("count") long count,
+                    @Param("amount") BigDecimal amount);
+
+    @Query("SELECT r FROM PaymentRevenueDaily r " +
+           "WHERE r.id.revenueDate BETWEEN :from AND :to " +
+           "AND (:status IS NULL OR r.id.status = :status) " +
+           "AND (:paymentMode IS NULL OR r.id.paymentMode = :paymentMode) " +
+           "AND r.paymentCount <> 0 " +
+           "ORDER BY r.id.revenueDate, r.id.paymentMode, r.id.status")
+    List<PaymentRevenueDaily> findBuckets(@Param("from") LocalDate from,
+                                          @Param("to") LocalDate to,
+                                          @Param("status") String status,
+                                          @Param("paymentMode") String paymentMode);
+
+    // Rebuild: blocks incremental upserts until the rebuilding transaction commits,
+    // and waits for uncommitted ones so the rebuild's read includes them
+    @Modifying
+    @Query(value = "LOCK TABLE payment_revenue_daily IN SHARE ROW EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query("DELETE FROM PaymentRevenueDaily r WHERE r.id.revenueDate BETWEEN :from AND :to")
+    int deleteRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Recompute the buckets for payments created in [createdFrom, createdTo) from the payments table
+     */
+    @Modifying
+    @Query(value = "INSERT INTO payment_revenue_daily (revenue_date, payment_mode, status, payment_count, total_amount) " +
+                   "SELECT CAST(p.created_at AS DATE), COALESCE(p.payment_mode, '" + PaymentRevenueDaily.UNKNOWN_MODE + "'), " +
+                   "p.status, COUNT(*), COALESCE(SUM(p.order_amount), 0) " +
+                   "FROM payments p " +
+                   "WHERE p.created_at >= :createdFrom AND p.created_at < :createdTo " +
+                   "AND p.status IS NOT NULL AND p.status <> 'PENDING' " +
+                   "GROUP BY CAST(p.created_at AS DATE), COALESCE(p.payment_mode, '" + PaymentRevenueDaily.UNKNOWN_MODE + "'), p.status",
+           nativeQuery = true)
+    int insertFromPayments(@Param("createdFrom") LocalDateTime createdFrom,
+                           @Param("createdTo") LocalDateTime createdTo);
+}
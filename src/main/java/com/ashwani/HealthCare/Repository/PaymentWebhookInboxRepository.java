@@ -0,0 +1,53 @@
+package com.ashwani.HealthCare.Repository;
+
+import com.ashwani.HealthCare.Entity.PaymentWebhookInbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface PaymentWebhookInboxRepository extends JpaRepository<PaymentWebhookInbox, Long> {
+
+    // Next due deliveries in arrival order, locked for the caller's transaction.
+    // Rows locked by other workers are skipped (lock timeout -2 = SKIP LOCKED), so workers never wait on each other.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT w FROM PaymentWebhookInbox w " +
+           "WHERE w.status = 'PENDING' AND w.availableAt <= :now ORDER BY w.id")
+    List<PaymentWebhookInbox> claimDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // One pending delivery by id, locked for the caller's transaction; empty if another worker holds it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT w FROM PaymentWebhookInbox w WHERE w.id = :id AND w.status = 'PENDING'")
+    Optional<PaymentWebhookInbox> claimById(@Param("id") Long id);
+
+    @Query("SELECT COUNT(w) FROM PaymentWebhookInbox w WHERE w.status = 'PENDING'")
+    long countPending();
+
+    @Query("SELECT MIN(w.receivedAt) FROM PaymentWebhookInbox w WHERE w.status = 'PENDING'")
+    LocalDateTime findOldestPendingReceivedAt();
+
+    // Housekeeping: ids of processed deliveries older than the cutoff in ascending order, one batch at a time
+    @Query("SELECT w.id FROM PaymentWebhookInbox w " +
+           "WHERE w.status = 'PROCESSED' AND w.processedAt < :cutoff ORDER BY w.id")
+    List<Long> findProcessedIdsBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PaymentWebhookInbox w " +
+           "WHERE w.id BETWEEN :fromId AND :toId AND w.status = 'PROCESSED' AND w.processedAt < :cutoff")
+    int deleteProcessedInRange(@Param("fromId") Long fromId,
+                               @Param("toId") Long toId,
+                               @Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,60 @@
+package com.ashwani.HealthCare.Repository;
+
+import com.ashwani.HealthCare.Entity.SlotClaim;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface SlotClaimRepository extends JpaRepository<SlotClaim, Long> {
+
+    @Modifying
+    @Query("DELETE FROM SlotClaim c " +
+           "WHERE c.doctorId = :doctorId AND c.date = :date AND c.startTime IN :startTimes " +
+           "AND c.expiresAt IS NOT NULL AND c.expiresAt < :now")
+    int deleteExpiredClaims(@Param("doctorId") Long doctorId,
+                            @Param("date") LocalDate date,
+                            @Param("startTimes") Collection<LocalTime> startTimes,
+                            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE SlotClaim c SET c.expiresAt = NULL " +
+           "WHERE c.holdReference = :holdReference " +
+           "AND c.doctorId = :doctorId AND c.date = :date AND c.startTime IN :startTimes")
+    int confirmHoldClaims(@Param("holdReference") String holdReference,
+                          @Param("doctorId") Long doctorId,
+                          @Param("date") LocalDate date,
+                          @Param("startTimes") Collection<LocalTime> startTimes);
+
+    @Modifying
+    @Query("DELETE FROM SlotClaim c WHERE c.holdReference = :holdReference")
+    int deleteByHoldReference(@Param("holdReference") String holdReference);
+
+    @Modifying
+    @Query("DELETE FROM SlotClaim c " +
+           "WHERE c.doctorId = :doctorId AND c.date = :date AND c.startTime IN :startTimes")
+    int deleteClaims(@Param("doctorId") Long doctorId,
+                     @Param("date") LocalDate date,
+                     @Param("startTimes") Collection<LocalTime> startTimes);
+
+    // Housekeeping: ids of lapsed hold claims in ascending order, one batch at a time
+    @Query("SELECT c.id FROM SlotClaim c " +
+           "WHERE c.expiresAt IS NOT NULL AND c.expiresAt < :now ORDER BY c.id")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SlotClaim c " +
+           "WHERE c.id BETWEEN :fromId AND :toId AND c.expiresAt IS NOT NULL AND c.expiresAt < :now")
+    int deleteExpiredInRange(@Param("fromId") Long fromId,
+                             @Param("toId") Long toId,
+                             @Param("now") LocalDateTime now);
+}
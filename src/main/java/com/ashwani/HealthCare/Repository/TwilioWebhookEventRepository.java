@@ -1,7 +1,28 @@
 package com.ashwani.HealthCare.Repository;
 
 import com.ashwani.HealthCare.Entity.TwilioWebhookEvent;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface TwilioWebhookEventRepository extends JpaRepository <TwilioWebhookEvent, Long> {
+
+    // Housekeeping: ids of processed events older than the cutoff in ascending order, one batch at a time
+    @Query("SELECT w.id FROM TwilioWebhookEvent w " +
+           "WHERE w.processed = true AND w.processedAt < :cutoff ORDER BY w.id")
+    List<Long> findProcessedIdsBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TwilioWebhookEvent w " +
+           "WHERE w.id BETWEEN :fromId AND :toId AND w.processed = true AND w.processedAt < :cutoff")
+    int deleteProcessedInRange(@Param("fromId") Long fromId,
+                               @Param("toId") Long toId,
+                               @Param("cutoff") LocalDateTime cutoff);
 }
@@ -0,0 +1,61 @@
+package com.ashwani.HealthCare.Service.Appointment;
+
+import com.ashwani.HealthCare.Repository.AppointmentRepository;
+import com.ashwani.HealthCare.Utility.KeysetBatches;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves SCHEDULED appointments whose end time has passed to COMPLETED.
+ *
+ * Overdue ids are read in ascending order one batch at a time (KeysetBatches), and
+ * each batch is completed with a single set-based UPDATE over its id range in its
+ * own short transaction. This keeps the appointment listing endpoints read-only.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AppointmentCompletionJob {
+    private final AppointmentRepository appointmentRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${appointment.completion.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Complete overdue appointments - runs every minute by default
+     */
+    @Scheduled(fixedDelayString = "${appointment.completion.interval-ms:60000}")
+    public void completeOverdueAppointments() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        LocalTime time = now.toLocalTime();
+        LongAdder completed = new LongAdder();
+        try {
+            KeysetBatches.run(batchSize,
+                    page -> appointmentRepository.findOverdueScheduledIds(today, time, page),
+                    (fromId, toId) -> appointmentRepository.completeOverdueInRange(fromId, toId, today, time, now),
+                    completed::add);
+        } catch (RuntimeException e) {
+            log.error("Appointment completion job failed after completing {} appointments", completed.sum(), e);
+        } finally {
+            sample.stop(meterRegistry.timer("appointment.completion.run"));
+            meterRegistry.counter("appointment.completion.completed").increment(completed.sum());
+        }
+
+        if (completed.sum() > 0) {
+            log.info("Marked {} overdue appointments as COMPLETED", completed.sum());
+        }
+    }
+}
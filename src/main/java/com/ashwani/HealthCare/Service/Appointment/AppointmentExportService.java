@@ -0,0 +1,163 @@
+package com.ashwani.HealthCare.Service.Appointment;
+
+import com.ashwani.HealthCare.DTO.Appointments.PatientAppointmentResponse;
+import com.ashwani.HealthCare.ExceptionHandlers.common.ResourceNotFoundException;
+import com.ashwani.HealthCare.Repository.AppointmentRepository;
+import com.ashwani.HealthCare.Repository.DoctorRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+/**
+ * Streams a doctor's full appointment history as NDJSON or CSV.
+ *
+ * Rows are read through a forward-only JPA stream of response DTOs and written
+ * to the response as they arrive, so memory use does not depend on history size.
+ * The stream is consumed on the async request thread inside its own read-only
+ * transaction, because the controller's transaction would already be closed.
+ */
+@Service
+@Slf4j
+public class AppointmentExportService {
+    private static final String CSV_HEADER = "appointmentId,patientId,patientName,doctorId,doctorName," +
+            "appointmentDate,startTime,endTime,status,description,createdAt";
+    // Rows between explicit flushes, so clients see progress on long exports
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final AppointmentRepository appointmentRepository;
+    private final DoctorRepository doctorRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public AppointmentExportService(AppointmentRepository appointmentRepository,
+                                    DoctorRepository doctorRepository,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager) {
+        this.appointmentRepository = appointmentRepository;
+        this.doctorRepository = doctorRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public enum ExportFormat {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv"), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        ExportFormat(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the format is not supported
+         */
+        public static ExportFormat from(String value) {
+            for (ExportFormat format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + value + " (use ndjson or csv)");
+        }
+    }
+
+    /**
+     * Build the response body for a doctor's appointment export
+     * @throws ResourceNotFoundException if the doctor does not exist (checked before streaming starts)
+     */
+    public StreamingResponseBody exportDoctorAppointments(Long doctorId, ExportFormat format) {
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new ResourceNotFoundException("Doctor", doctorId);
+        }
+
+        return outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            long rows = readOnlyTransaction.execute(status -> {
+                try (Stream<PatientAppointmentResponse> appointments =
+                             appointmentRepository.streamResponsesByDoctor(doctorId)) {
+                    return writeRows(appointments, format, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+            log.info("Exported {} appointments for doctor {} as {}", rows, doctorId, format);
+        };
+    }
+
+    private long writeRows(Stream<PatientAppointmentResponse> appointments, ExportFormat format,
+                           Writer writer) throws IOException {
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long rows = 0;
+        for (PatientAppointmentResponse appointment : (Iterable<PatientAppointmentResponse>) appointments::iterator) {
+            if (format == ExportFormat.CSV) {
+                writeCsvRow(appointment, writer);
+            } else {
+                writer.write(objectMapper.writeValueAsString(appointment));
+                writer.write('\n');
+            }
+            if (++rows % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+        return rows;
+    }
+
+    private void writeCsvRow(PatientAppointmentResponse appointment, Writer writer) throws IOException {
+        writer.write(String.join(",",
+                csv(appointment.getAppointmentId()),
+                csv(appointment.getPatientId()),
+                csv(appointment.getPatientName()),
+                csv(appointment.getDoctorId()),
+                csv(appointment.getDoctorName()),
+                csv(appointment.getAppointmentDate()),
+                csv(appointment.getStartTime()),
+                csv(appointment.getEndTime()),
+                csv(appointment.getStatus()),
+                csv(appointment.getDescription()),
+                csv(appointment.getCreatedAt())));
+        writer.write('\n');
+    }
+
+    /**
+     * RFC 4180 field: quoted only when it contains a delimiter, quote or line break
+     */
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,260 @@
+package com.ashwani.HealthCare.Service.Appointment;
+
+import com.ashwani.HealthCare.DTO.Appointments.SlotChangeEvent;
+import com.ashwani.HealthCare.Entity.AppointmentHold;
+import com.ashwani.HealthCare.ExceptionHandlers.appointment.SlotNotAvailableException;
+import com.ashwani.HealthCare.Repository.AppointmentHoldRepository;
+import com.ashwani.HealthCare.Service.Availability.ScheduleRules;
+import com.ashwani.HealthCare.Utility.HashedTimingWheel;
+import com.ashwani.HealthCare.Utility.IntervalTree;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process owner of live appointment holds.
+ *
+ * Holds of each doctor-day live in an interval tree over minutes of the day, and
+ * are also indexed by reference. Creating a hold takes the striped lock for its
+ * doctor-day and checks the tree for an overlapping live hold in O(log n), so
+ * concurrent requests for overlapping intervals are decided in memory without a
+ * database round trip. Expiry is driven by a hashed timing wheel: an expired hold
+ * drops out of the tree on its own, with no polling query. The appointment_hold
+ * row and its slot claims are written synchronously by AppointmentHoldWriter before
+ * the hold reference is returned: the client pays against that reference, so the
+ * hold must survive a restart and be visible to other instances before the client
+ * is told it has the slot.
+ */
+@Component
+@Slf4j
+public class AppointmentHoldManager {
+    private static final int LOCK_STRIPES = 64;
+
+    private final AppointmentHoldRepository appointmentHoldRepository;
+    private final SlotChangeHub slotChangeHub;
+    private final ConcurrentHashMap<DayKey, IntervalTree<ActiveHold>> holdsByDay = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ActiveHold> holdsByReference = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+    private final HashedTimingWheel<ActiveHold> expiryWheel;
+
+    public AppointmentHoldManager(AppointmentHoldRepository appointmentHoldRepository,
+                                  SlotChangeHub slotChangeHub,
+                                  @Value("${appointment.hold.wheel-tick-ms:1000}") long tickMillis,
+                                  @Value("${appointment.hold.wheel-size:1024}") int wheelSize) {
+        this.appointmentHoldRepository = appointmentHoldRepository;
+        this.slotChangeHub = slotChangeHub;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.expiryWheel = new HashedTimingWheel<>("appointment-hold-expiry", tickMillis, wheelSize, this::expire);
+    }
+
+    /**
+     * Place a hold on the interval [startTime, startTime + durationMinutes)
+     * @throws SlotNotAvailableException if a live hold already overlaps the interval
+     */
+    public ActiveHold hold(Long patientId, Long doctorId, LocalDate date, LocalTime startTime, int durationMinutes,
+                           String reason, LocalDateTime expiresAt) {
+        DayKey key = new DayKey(doctorId, date);
+        ActiveHold hold = new ActiveHold(newHoldReference(), patientId, doctorId, date, startTime, durationMinutes,
+                reason, expiresAt);
+        ReentrantLock lock = stripeFor(key);
+        lock.lock();
+        try {
+            IntervalTree<ActiveHold> day = holdsByDay.computeIfAbsent(key, k -> new IntervalTree<>());
+            if (hasLiveOverlap(day, hold.startMinute(), hold.endMinute(), LocalDateTime.now())) {
+                throw new SlotNotAvailableException("Time slot is currently on hold", date, startTime);
+            }
+            register(day, hold);
+            return hold;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Look up a hold by reference: memory first, then the durable copy
+     * (holds created by another instance or before a restart)
+     */
+    public Optional<ActiveHold> findHold(String holdReference) {
+        ActiveHold hold = holdsByReference.get(holdReference);
+        if (hold != null) {
+            return Optional.of(hold);
+        }
+        return appointmentHoldRepository.findByHoldReference(holdReference).map(ActiveHold::from);
+    }
+
+    /**
+     * Live holds for a doctor on a date, as seen by this instance
+     */
+    public List<ActiveHold> activeHolds(Long doctorId, LocalDate date) {
+        DayKey key = new DayKey(doctorId, date);
+        LocalDateTime now = LocalDateTime.now();
+        List<ActiveHold> holds = new ArrayList<>();
+        ReentrantLock lock = stripeFor(key);
+        lock.lock();
+        try {
+            IntervalTree<ActiveHold> day = holdsByDay.get(key);
+            if (day != null) {
+                day.forEach((start, end, hold) -> {
+                    if (!hold.isExpired(now)) holds.add(hold);
+                });
+            }
+        } finally {
+            lock.unlock();
+        }
+        return holds;
+    }
+
+    /**
+     * Remove a hold from memory, e.g. after it was converted into an appointment
+     * or lost the slot to another instance
+     */
+    public void remove(String holdReference) {
+        ActiveHold hold = holdsByReference.remove(holdReference);
+        if (hold != null) {
+            unregister(hold);
+        }
+    }
+
+    /**
+     * Re-register holds from the durable copy after a restart
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreActiveHolds() {
+        LocalDateTime now = LocalDateTime.now();
+        int restored = 0;
+        for (AppointmentHold row : appointmentHoldRepository.findAllActive(now)) {
+            ActiveHold hold = ActiveHold.from(row);
+            DayKey key = new DayKey(hold.doctorId(), hold.date());
+            ReentrantLock lock = stripeFor(key);
+            lock.lock();
+            try {
+                IntervalTree<ActiveHold> day = holdsByDay.computeIfAbsent(key, k -> new IntervalTree<>());
+                if (!holdsByReference.containsKey(hold.holdReference())
+                        && !hasLiveOverlap(day, hold.startMinute(), hold.endMinute(), now)) {
+                    register(day, hold);
+                    restored++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        log.info("Restored {} active appointment holds", restored);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        expiryWheel.close();
+    }
+
+    /**
+     * Overlap check that also drops expired holds the wheel has not fired for yet.
+     * Called with the day's stripe lock held.
+     */
+    private boolean hasLiveOverlap(IntervalTree<ActiveHold> day, int startMinute, int endMinute, LocalDateTime now) {
+        if (!day.overlaps(startMinute, endMinute)) {
+            return false;
+        }
+        boolean live = false;
+        for (ActiveHold existing : day.overlapping(startMinute, endMinute)) {
+            if (existing.isExpired(now)) {
+                day.remove(existing.startMinute(), existing.endMinute(), existing::equals);
+                holdsByReference.remove(existing.holdReference(), existing);
+            } else {
+                live = true;
+            }
+        }
+        return live;
+    }
+
+    private void register(IntervalTree<ActiveHold> day, ActiveHold hold) {
+        day.add(hold.startMinute(), hold.endMinute(), hold);
+        holdsByReference.put(hold.holdReference(), hold);
+        expiryWheel.schedule(hold, hold.expiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private boolean unregister(ActiveHold hold) {
+        DayKey key = new DayKey(hold.doctorId(), hold.date());
+        ReentrantLock lock = stripeFor(key);
+        lock.lock();
+        try {
+            IntervalTree<ActiveHold> day = holdsByDay.get(key);
+            if (day == null) {
+                return false;
+            }
+            // Only drop the exact hold; the interval may have been re-held since
+            boolean removed = day.remove(hold.startMinute(), hold.endMinute(), hold::equals);
+            if (day.isEmpty()) {
+                holdsByDay.remove(key);
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void expire(ActiveHold hold) {
+        if (unregister(hold)) {
+            log.debug("Appointment hold {} expired, slot released", hold.holdReference());
+            slotChangeHub.publish(SlotChangeEvent.released(hold.doctorId(), hold.date(), hold.startTime(),
+                    hold.durationMinutes()));
+        }
+        holdsByReference.remove(hold.holdReference(), hold);
+    }
+
+    private ReentrantLock stripeFor(DayKey key) {
+        return stripes[(key.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+
+    private static String newHoldReference() {
+        return "hold_" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private record DayKey(Long doctorId, LocalDate date) {
+    }
+
+    /**
+     * Immutable view of a live hold
+     */
+    public record ActiveHold(String holdReference, Long patientId, Long doctorId, LocalDate date,
+                             LocalTime startTime, int durationMinutes, String reason, LocalDateTime expiresAt) {
+
+        static ActiveHold from(AppointmentHold hold) {
+            int duration = hold.getDurationMinutes() != null
+                    ? hold.getDurationMinutes() : ScheduleRules.DEFAULT_DURATION_MINUTES;
+            return new ActiveHold(hold.getHoldReference(), hold.getPatientId(), hold.getDoctorId(),
+                    hold.getDate(), hold.getStartTime(), duration, hold.getReason(), hold.getExpiresAt());
+        }
+
+        public boolean isExpired(LocalDateTime now) {
+            return !expiresAt.isAfter(now);
+        }
+
+        public LocalTime endTime() {
+            return startTime.plusMinutes(durationMinutes);
+        }
+
+        int startMinute() {
+            return ScheduleRules.minuteOfDay(startTime);
+        }
+
+        int endMinute() {
+            return startMinute() + durationMinutes;
+        }
+    }
+}
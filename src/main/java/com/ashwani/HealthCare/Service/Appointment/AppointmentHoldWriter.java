@@ -0,0 +1,51 @@
+package com.ashwani.HealthCare.Service.Appointment;
+
+import com.ashwani.HealthCare.Entity.AppointmentHold;
+import com.ashwani.HealthCare.ExceptionHandlers.appointment.SlotNotAvailableException;
+import com.ashwani.HealthCare.Repository.AppointmentHoldRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes the durable copy of in-memory appointment holds
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AppointmentHoldWriter {
+    private final AppointmentHoldRepository appointmentHoldRepository;
+    private final SlotClaimService slotClaimService;
+
+    /**
+     * Persist the hold row together with its slot claim, in one transaction
+     * @throws SlotNotAvailableException if another instance already claimed one of its slots
+     */
+    @Transactional
+    public void persist(AppointmentHoldManager.ActiveHold hold) {
+        AppointmentHold row = new AppointmentHold();
+        row.setHoldReference(hold.holdReference());
+        row.setPatientId(hold.patientId());
+        row.setDoctorId(hold.doctorId());
+        row.setDate(hold.date());
+        row.setStartTime(hold.startTime());
+        row.setDurationMinutes(hold.durationMinutes());
+        row.setReason(hold.reason());
+        row.setExpiresAt(hold.expiresAt());
+        appointmentHoldRepository.save(row);
+
+        slotClaimService.claimForHold(hold.doctorId(), hold.date(), hold.startTime(), hold.durationMinutes(),
+                hold.holdReference(), hold.expiresAt());
+
+        log.debug("Persisted appointment hold {}", hold.holdReference());
+    }
+
+    /**
+     * Delete the durable copy once the hold has been converted into an appointment
+     */
+    @Transactional
+    public void delete(String holdReference) {
+        appointmentHoldRepository.deleteByHoldReference(holdReference);
+    }
+}
@@ -1,5 +1,9 @@
 package com.ashwani.HealthCare.Service.Appointment;
 
+import com.ashwani.HealthCare.DTO.Appointments.AppointmentCursor;
+import com.ashwani.HealthCare.DTO.Appointments.AppointmentCursorPage;
+import com.ashwani.HealthCare.DTO.Appointments.BookedSlot;
+import com.ashwani.HealthCare.DTO.Appointments.DayAvailability;
 import com.ashwani.HealthCare.DTO.Appointments.PatientAppointmentResponse;
 import com.ashwani.HealthCare.Entity.*;
 import com.ashwani.HealthCare.ExceptionHandlers.appointment.AppointmentCancellationException;
@@ -9,39 +13,59 @@ import com.ashwani.HealthCare.ExceptionHandlers.auth.UnauthorizedAccessException
 import com.ashwani.HealthCare.ExceptionHandlers.common.ResourceNotFoundException;
 import com.ashwani.HealthCare.ExceptionHandlers.payment.PaymentException;
 import com.ashwani.HealthCare.Repository.*;
+import com.ashwani.HealthCare.Service.Availability.DoctorScheduleEngine;
+import com.ashwani.HealthCare.Service.Availability.ScheduleRules;
 import com.ashwani.HealthCare.Service.Communication.EmailService;
+import com.ashwani.HealthCare.Utility.IntervalTree;
 import com.ashwani.HealthCare.Utility.TimeSlot;
 import com.ashwani.HealthCare.specifications.AppointmentSpecifications;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class AppointmentService {
     private final AppointmentRepository appointmentRepository;
-    private final DoctorAvailabilityRepository doctorAvailabilityRepository;
     private final DoctorRepository doctorRepository;
     private final PatientRepository patientRepository;
     private final EmailService emailService;
     private final AppointmentHoldRepository appointmentHoldRepository;
     private final PaymentRepository paymentRepository;
+    private final DoctorSlotIndex doctorSlotIndex;
+    private final DoctorScheduleEngine doctorScheduleEngine;
+    private final SlotClaimService slotClaimService;
+    private final AppointmentHoldManager appointmentHoldManager;
+    private final AppointmentHoldWriter appointmentHoldWriter;
+    private final SlotChangeHub slotChangeHub;
 
+    // Upper bound for calendar requests (a month view plus leading/trailing weeks)
+    private static final int MAX_CALENDAR_DAYS = 62;
+
+    // Keyset order for cursor pagination; id breaks ties between identical slots
+    private static final Sort CURSOR_ORDER = Sort.by("appointmentDate", "startTime", "id");
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    @Value("${appointment.hold.ttl-minutes:15}")
+    private long holdTtlMinutes;
 
     private PatientAppointmentResponse convertToResponse(Appointment appointment) {
         return new PatientAppointmentResponse(
@@ -59,40 +83,66 @@ public class AppointmentService {
         );
     }
 
+    /**
+     * Hold an interval for a patient while payment is completed
+     * @param durationMinutes Appointment length (15, 30, 45 or 60), or null for 30 minutes
+     * @return Hold reference
+     */
     public String createAppointmentHold(Long patientId, Long doctorId, LocalDate date,
-                                        LocalTime startTime, String description) {
-
-        // Validate doctor exists and slot is available
-        Doctor doctor = doctorRepository.findById(doctorId)
-                .orElseThrow(() -> new ResourceNotFoundException("Doctor", doctorId));
-
-        validateSlotNotBooked(doctor, date, startTime);
-        validateDoctorAvailability(doctor, date, startTime);
-
-        // Create and save the hold entity
-        AppointmentHold hold = new AppointmentHold();
-        hold.setPatientId(patientId);
-        hold.setDoctorId(doctorId);
-        hold.setDate(date);
-        hold.setStartTime(startTime);
-        hold.setReason(description);
-        hold.setExpiresAt(LocalDateTime.now().plusMinutes(15));
+                                        LocalTime startTime, Integer durationMinutes, String description) {
+        int duration = ScheduleRules.durationMinutes(durationMinutes, startTime);
+
+        // Validate doctor exists and interval is available (slot index first, database for off-grid schedules)
+        Boolean slotOpen = doctorSlotIndex.isSlotOpen(doctorId, date, startTime, duration);
+        if (slotOpen == null) {
+            Doctor doctor = doctorRepository.findById(doctorId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Doctor", doctorId));
+
+            validateSlotNotBooked(doctor, date, startTime, duration);
+            validateDoctorAvailability(doctor, date, startTime, duration);
+        } else if (!slotOpen) {
+            throw new SlotNotAvailableException("Time slot is not available", date, startTime);
+        }
 
-        // The @PrePersist will generate the holdReference automatically
-        AppointmentHold savedHold = appointmentHoldRepository.save(hold);
+        // Place the hold in memory; concurrent requests for overlapping intervals are decided here
+        AppointmentHoldManager.ActiveHold hold = appointmentHoldManager.hold(
+                patientId, doctorId, date, startTime, duration, description, LocalDateTime.now().plusMinutes(holdTtlMinutes));
+        doctorSlotIndex.markHeld(hold);
+
+        // The durable row and slot claim are written before the reference is handed out,
+        // so a hold the client can pay for always owns its slots in the database
+        try {
+            appointmentHoldWriter.persist(hold);
+        } catch (RuntimeException e) {
+            revokeHold(hold, e);
+            throw e;
+        }
 
-        log.info("Creating appointment hold for patient: {}, doctor: {}, at: {} {}",
-                patientId, doctorId, date, startTime);
+        log.info("Creating appointment hold for patient: {}, doctor: {}, at: {} {} ({} min)",
+                patientId, doctorId, date, startTime, duration);
 
         // Return the readable reference (e.g., "hold_a1b2c3d4")
-        return savedHold.getHoldReference();
+        return hold.holdReference();
+    }
+
+    // The hold could not be made durable: drop the in-memory copy so nobody can pay for it
+    private void revokeHold(AppointmentHoldManager.ActiveHold hold, RuntimeException cause) {
+        if (cause instanceof SlotNotAvailableException) {
+            log.warn("Appointment hold {} lost its slot to another booking, revoking", hold.holdReference());
+        } else {
+            log.error("Failed to persist appointment hold {}, revoking", hold.holdReference(), cause);
+        }
+        appointmentHoldManager.remove(hold.holdReference());
+        doctorSlotIndex.releaseHold(hold);
     }
 
 
     @Transactional
     public Appointment bookAppointment(Long patientId, Long doctorId, LocalDate date,
-                                       LocalTime startTime, String description, Long paymentId,
-                                       String holdReference) {
+                                       LocalTime startTime, int durationMinutes, String description,
+                                       Long paymentId, String holdReference) {
+        ScheduleRules.requireOnGrid(startTime);
+
         Patient patient = patientRepository.findById(patientId)
                 .orElseThrow(() -> new ResourceNotFoundException("Patient", patientId));
 
@@ -109,16 +159,18 @@ public class AppointmentService {
         // Only check for existing bookings if NOT booking from a valid hold
         // When holdReference is provided, the slot was already validated during hold creation
         if (holdReference == null) {
-            validateSlotNotBooked(doctor, date, startTime);
+            validateSlotNotBooked(doctor, date, startTime, durationMinutes);
         } else {
             log.info("Booking from hold reference: {}, skipping duplicate slot check", holdReference);
         }
 
         // Validate doctor availability
-        validateDoctorAvailability(doctor, date, startTime);
+        validateDoctorAvailability(doctor, date, startTime, durationMinutes);
+
+        // Claim the slots atomically (confirms the hold's claims when booking from a hold)
+        slotClaimService.claimForBooking(doctorId, date, startTime, durationMinutes, holdReference);
 
-        // Default duration - could be parameterized
-        LocalTime endTime = startTime.plusMinutes(30);
+        LocalTime endTime = startTime.plusMinutes(durationMinutes);
 
         Appointment appointment = new Appointment();
         appointment.setPatient(patient);
@@ -126,10 +178,12 @@ public class AppointmentService {
         appointment.setAppointmentDate(date);
         appointment.setStartTime(startTime);
         appointment.setEndTime(endTime);
+        appointment.setCallDurationMinutes(durationMinutes);
         appointment.setStatus("SCHEDULED");
         appointment.setDescription(description);
         appointment.setPaymentDetails(payment);
         appointmentRepository.save(appointment);
+        doctorSlotIndex.markBooked(doctorId, date, startTime, durationMinutes);
 
         log.info("✅ SUCCESS: Appointment saved successfully with appointmentId: {}", appointment.getId());
 
@@ -145,7 +199,7 @@ public class AppointmentService {
         return appointment;
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Page<PatientAppointmentResponse> getPatientAppointments(
             Long patientId,
             LocalDate appointmentStartDate,
@@ -165,14 +219,12 @@ public class AppointmentService {
                 .and(AppointmentSpecifications.hasTimeRange(startTime, endTime))
                 .and(AppointmentSpecifications.hasStatus(status));
 
-        // Get paginated results
-        Page<Appointment> appointmentPage = appointmentRepository.findAll(spec, pageable);
-
-        // Process and convert to response DTOs
-        return processAppointmentPage(appointmentPage);
+        // Get paginated results projected straight into response DTOs;
+        // overdue statuses are moved to COMPLETED by AppointmentCompletionJob
+        return appointmentRepository.findResponses(spec, pageable);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Page<PatientAppointmentResponse> getDoctorAppointments(
             Long doctorId,
             LocalDate appointmentStartDate,
@@ -193,49 +245,183 @@ public class AppointmentService {
                 .and(AppointmentSpecifications.hasTimeRange(startTime, endTime))
                 .and(AppointmentSpecifications.hasStatus(status));
 
-        // Get paginated results
-        Page<Appointment> appointmentPage = appointmentRepository.findAll(spec, pageable);
+        // Get paginated results projected straight into response DTOs;
+        // overdue statuses are moved to COMPLETED by AppointmentCompletionJob
+        return appointmentRepository.findResponses(spec, pageable);
+    }
 
-        // Process and convert to response DTOs
-        return processAppointmentPage(appointmentPage);
+    /**
+     * Cursor-paginated variant of getPatientAppointments.
+     * Ordered by (appointmentDate, startTime, id); pages are fetched with a keyset
+     * predicate and no COUNT query, so every page costs the same however deep it is.
+     * @param cursor Continuation token from the previous page, or null for the first page
+     */
+    @Transactional(readOnly = true)
+    public AppointmentCursorPage getPatientAppointmentsByCursor(
+            Long patientId,
+            LocalDate appointmentStartDate,
+            LocalDate appointmentEndDate,
+            LocalTime startTime,
+            LocalTime endTime,
+            String status,
+            String cursor,
+            int size) {
+
+        if (!patientRepository.existsById(patientId)) {
+            throw new ResourceNotFoundException("Patient", patientId);
+        }
+
+        Specification<Appointment> spec = Specification.where(AppointmentSpecifications.hasPatient(patientId))
+                .and(AppointmentSpecifications.hasAppointmentDateRange(appointmentStartDate, appointmentEndDate))
+                .and(AppointmentSpecifications.hasTimeRange(startTime, endTime))
+                .and(AppointmentSpecifications.hasStatus(status));
+
+        return scrollAppointments(spec, cursor, size);
     }
 
+    /**
+     * Cursor-paginated variant of getDoctorAppointments (see getPatientAppointmentsByCursor)
+     */
     @Transactional(readOnly = true)
+    public AppointmentCursorPage getDoctorAppointmentsByCursor(
+            Long doctorId,
+            LocalDate appointmentStartDate,
+            LocalDate appointmentEndDate,
+            LocalTime startTime,
+            LocalTime endTime,
+            String status,
+            String cursor,
+            int size) {
+
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new ResourceNotFoundException("Doctor", doctorId);
+        }
+
+        Specification<Appointment> spec = Specification.where(AppointmentSpecifications.hasDoctor(doctorId))
+                .and(AppointmentSpecifications.hasAppointmentDateRange(appointmentStartDate, appointmentEndDate))
+                .and(AppointmentSpecifications.hasTimeRange(startTime, endTime))
+                .and(AppointmentSpecifications.hasStatus(status));
+
+        return scrollAppointments(spec, cursor, size);
+    }
+
+    /**
+     * Get free slots for a doctor on a date.
+     * Served from the in-memory slot index; only doctors whose availability windows
+     * are off the half-hour grid fall back to computing slots from the database.
+     */
     public List<TimeSlot> getAvailableSlots(Long doctorId, LocalDate date) {
-        // 1. Early validation
-        Doctor doctor = doctorRepository.findById(doctorId)
-                .orElseThrow(() -> new ResourceNotFoundException("Doctor", doctorId));
+        List<TimeSlot> indexedSlots = doctorSlotIndex.getAvailableSlots(doctorId, date);
+        if (indexedSlots != null) {
+            return indexedSlots;
+        }
+        return computeAvailableSlots(doctorId, date);
+    }
 
-        // 2. Batch fetch data
-        List<DoctorAvailability> availabilities = doctorAvailabilityRepository
-                .findByDoctorAndDayOfWeek(doctor, date.getDayOfWeek());
+    /**
+     * Open a live stream of slot taken/released changes for a doctor
+     * @param date Only stream changes for this date, or null for every date
+     * @throws ResourceNotFoundException if the doctor does not exist
+     */
+    public SseEmitter streamSlotChanges(Long doctorId, LocalDate date) {
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new ResourceNotFoundException("Doctor", doctorId);
+        }
+        return slotChangeHub.subscribe(doctorId, date);
+    }
 
-        Set<LocalTime> bookedSlots = appointmentRepository
-                .findByDoctorAndAppointmentDate(doctor, date)
-                .stream()
-                .map(Appointment::getStartTime)
-                .collect(Collectors.toSet());
+    private List<TimeSlot> computeAvailableSlots(Long doctorId, LocalDate date) {
+        // 1. Open windows for the date (weekly rules plus overrides); fails fast for unknown doctors
+        List<ScheduleRules.Window> windows = doctorScheduleEngine.openWindows(doctorId, date);
+
+        // 2. Batch fetch taken intervals
+        IntervalTree<TimeSlot> taken = new IntervalTree<>();
+        appointmentRepository.findBookedTimes(doctorId, date)
+                .forEach(booked -> addTaken(taken, booked.getStartTime(), booked.getEndTime()));
+        appointmentHoldRepository.findActiveHolds(doctorId, date, LocalDateTime.now())
+                .forEach(row -> addTaken(taken, AppointmentHoldManager.ActiveHold.from(row)));
 
         // 3. Process slots efficiently
+        return expandSlots(windows, taken);
+    }
+
+    /**
+     * Get free slots for every day in a date range (inclusive).
+     * Open windows come from the materialized schedule; booked intervals and active
+     * holds are each fetched once for the whole range, then slots are expanded for
+     * every day in a single pass.
+     * @param doctorId Doctor ID
+     * @param from First day of the range
+     * @param to Last day of the range
+     * @return One entry per day, in date order
+     */
+    @Transactional(readOnly = true)
+    public List<DayAvailability> getAvailabilityCalendar(Long doctorId, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_CALENDAR_DAYS) {
+            throw new IllegalArgumentException("Date range cannot exceed " + MAX_CALENDAR_DAYS + " days");
+        }
+
+        // 1. Open windows per date (weekly rules plus overrides); fails fast for unknown doctors
+        Map<LocalDate, List<ScheduleRules.Window>> windowsByDate =
+                doctorScheduleEngine.openWindowsBetween(doctorId, from, to);
+
+        // 2. Booked and held intervals for the whole range, grouped by date
+        Map<LocalDate, IntervalTree<TimeSlot>> takenByDate = new HashMap<>();
+        for (BookedSlot booked : appointmentRepository.findBookedSlotsBetween(doctorId, from, to)) {
+            addTaken(takenByDate.computeIfAbsent(booked.date(), date -> new IntervalTree<>()),
+                    booked.startTime(), booked.endTime());
+        }
+        for (AppointmentHold row : appointmentHoldRepository.findActiveHoldsBetween(doctorId, from, to, LocalDateTime.now())) {
+            addTaken(takenByDate.computeIfAbsent(row.getDate(), date -> new IntervalTree<>()),
+                    AppointmentHoldManager.ActiveHold.from(row));
+        }
+
+        // 3. Expand every day in one pass
+        IntervalTree<TimeSlot> nothingTaken = new IntervalTree<>();
+        List<DayAvailability> calendar = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            IntervalTree<TimeSlot> taken = takenByDate.getOrDefault(date, nothingTaken);
+            calendar.add(new DayAvailability(date, expandSlots(windowsByDate.get(date), taken)));
+        }
+        return calendar;
+    }
+
+    /**
+     * Expands availability windows into 30-minute slots, skipping slots that overlap a taken interval
+     */
+    private List<TimeSlot> expandSlots(List<ScheduleRules.Window> windows, IntervalTree<TimeSlot> taken) {
         List<TimeSlot> availableSlots = new ArrayList<>();
         final int MAX_SLOTS = 100; // Safety limit
 
-        for (DoctorAvailability availability : availabilities) {
-            if (!availability.getIsAvailable()) continue;
-
-            LocalTime current = availability.getStartTime();
-            LocalTime endTime = availability.getEndTime();
+        for (ScheduleRules.Window window : windows) {
+            LocalTime current = window.start();
+            LocalTime endTime = window.end();
 
             while (current.isBefore(endTime) && availableSlots.size() < MAX_SLOTS) {
-                if (!bookedSlots.contains(current)) {
+                int start = ScheduleRules.minuteOfDay(current);
+                if (!taken.overlaps(start, start + ScheduleRules.SLOT_MINUTES)) {
                     availableSlots.add(new TimeSlot(current, current.plusMinutes(30)));
                 }
-                current = current.plusMinutes(30);
+                LocalTime next = current.plusMinutes(30);
+                if (next.isBefore(current)) break; // wrapped past midnight
+                current = next;
             }
         }
         return availableSlots;
     }
 
+    private static void addTaken(IntervalTree<TimeSlot> taken, LocalTime startTime, LocalTime endTime) {
+        taken.add(ScheduleRules.minuteOfDay(startTime), ScheduleRules.endMinute(startTime, endTime),
+                new TimeSlot(startTime, endTime));
+    }
+
+    private static void addTaken(IntervalTree<TimeSlot> taken, AppointmentHoldManager.ActiveHold hold) {
+        taken.add(hold.startMinute(), hold.endMinute(), new TimeSlot(hold.startTime(), hold.endTime()));
+    }
+
     @Transactional
     public void cancelAppointment(Long appointmentId, Long userId) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
@@ -244,6 +430,11 @@ public class AppointmentService {
         validateCancellation(appointment, userId);
         appointment.cancel(userId);
         appointmentRepository.save(appointment);
+        int duration = durationOf(appointment);
+        slotClaimService.release(appointment.getDoctor().getId(),
+                appointment.getAppointmentDate(), appointment.getStartTime(), duration);
+        doctorSlotIndex.releaseBooked(appointment.getDoctor().getId(),
+                appointment.getAppointmentDate(), appointment.getStartTime(), duration);
 
         log.info("Appointment {} cancelled by user {}", appointmentId, userId);
     }
@@ -264,32 +455,49 @@ public class AppointmentService {
         }
 
         Doctor doctor = appointment.getDoctor();
-
-        // Validate the new slot
-        if (appointmentDate != null && startTime != null) {
-            validateDoctorAvailability(doctor, appointmentDate, startTime);
-
-            // Check if the new slot is not booked (excluding current appointment)
-            boolean isSlotBooked = appointmentRepository.existsByDoctorAndAppointmentDateAndStartTimeAndIdNot(
-                    doctor, appointmentDate, startTime, appointmentId);
+        LocalDate previousDate = appointment.getAppointmentDate();
+        LocalTime previousStartTime = appointment.getStartTime();
+        int previousDuration = durationOf(appointment);
+
+        // A new end time sets the length; otherwise the appointment keeps its length
+        LocalDate newDate = appointmentDate != null ? appointmentDate : previousDate;
+        LocalTime newStartTime = startTime != null ? startTime : previousStartTime;
+        int newDuration = endTime != null
+                ? ScheduleRules.durationMinutes(ScheduleRules.endMinute(newStartTime, endTime)
+                        - ScheduleRules.minuteOfDay(newStartTime), newStartTime)
+                : previousDuration;
+        boolean slotChanged = !previousDate.equals(newDate) || !previousStartTime.equals(newStartTime)
+                || previousDuration != newDuration;
+
+        // Validate the new interval
+        if (slotChanged) {
+            ScheduleRules.requireOnGrid(newStartTime);
+            validateDoctorAvailability(doctor, newDate, newStartTime, newDuration);
+
+            // Check the new interval overlaps no other booking (excluding current appointment)
+            boolean isSlotBooked = appointmentRepository.existsOverlappingExcluding(doctor, newDate, newStartTime,
+                    overlapQueryEnd(newStartTime, newDuration), appointmentId);
 
             if (isSlotBooked) {
-                throw new SlotNotAvailableException("Time slot already booked", appointmentDate, startTime);
+                throw new SlotNotAvailableException("Time slot already booked", newDate, newStartTime);
             }
+
+            // Move the slot claims with the appointment
+            slotClaimService.release(doctor.getId(), previousDate, previousStartTime, previousDuration);
+            slotClaimService.claimForBooking(doctor.getId(), newDate, newStartTime, newDuration, null);
         }
 
         // Update appointment details
-        if (appointmentDate != null) {
-            appointment.setAppointmentDate(appointmentDate);
-        }
-        if (startTime != null) {
-            appointment.setStartTime(startTime);
-        }
-        if (endTime != null) {
-            appointment.setEndTime(endTime);
-        }
+        appointment.setAppointmentDate(newDate);
+        appointment.setStartTime(newStartTime);
+        appointment.setEndTime(newStartTime.plusMinutes(newDuration));
+        appointment.setCallDurationMinutes(newDuration);
 
         Appointment updatedAppointment = appointmentRepository.save(appointment);
+        if (slotChanged) {
+            doctorSlotIndex.releaseBooked(doctor.getId(), previousDate, previousStartTime, previousDuration);
+            doctorSlotIndex.markBooked(doctor.getId(), newDate, newStartTime, newDuration);
+        }
         log.info("Updated appointment ID: {} to date: {}, startTime: {}, endTime: {}",
                 appointmentId, appointmentDate, startTime, endTime);
 
@@ -313,16 +521,11 @@ public class AppointmentService {
     }
 
     /**
-     * Validates if a time slot is within doctor's availability schedule
+     * Validates that every slot of an appointment is within doctor's availability schedule (including date overrides)
      */
-    private void validateDoctorAvailability(Doctor doctor, LocalDate date, LocalTime startTime) {
-        DayOfWeek dayOfWeek = date.getDayOfWeek();
-        List<DoctorAvailability> availabilities = doctorAvailabilityRepository.findByDoctorAndDayOfWeek(doctor, dayOfWeek);
-
-        boolean isAvailable = availabilities.stream()
-                .anyMatch(av -> av.getIsAvailable() &&
-                        !startTime.isBefore(av.getStartTime()) &&
-                        !startTime.isAfter(av.getEndTime()));
+    private void validateDoctorAvailability(Doctor doctor, LocalDate date, LocalTime startTime, int durationMinutes) {
+        boolean isAvailable = ScheduleRules.isOffered(
+                doctorScheduleEngine.openWindows(doctor.getId(), date), startTime, durationMinutes);
 
         if (!isAvailable) {
             throw new SlotNotAvailableException("Doctor is not available at this time", date, startTime);
@@ -330,45 +533,51 @@ public class AppointmentService {
     }
 
     /**
-     * Checks if a time slot is already booked for a doctor
+     * Fetch one keyset page: one row more than requested tells whether another page exists
      */
-    private void validateSlotNotBooked(Doctor doctor, LocalDate date, LocalTime startTime) {
-        if (appointmentRepository.existsByDoctorAndAppointmentDateAndStartTime(doctor, date, startTime)) {
-            throw new SlotNotAvailableException("Time slot already booked", date, startTime);
+    private AppointmentCursorPage scrollAppointments(Specification<Appointment> spec, String cursor, int size) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_CURSOR_PAGE_SIZE);
+        }
+
+        AppointmentCursor after = cursor == null || cursor.isBlank() ? null : AppointmentCursor.decode(cursor);
+        List<PatientAppointmentResponse> rows = appointmentRepository.findResponses(
+                spec.and(AppointmentSpecifications.isAfter(after)), CURSOR_ORDER, size + 1);
+
+        boolean hasNext = rows.size() > size;
+        List<PatientAppointmentResponse> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            PatientAppointmentResponse last = page.get(page.size() - 1);
+            nextCursor = new AppointmentCursor(last.getAppointmentDate(), last.getStartTime(),
+                    last.getAppointmentId()).encode();
         }
+        return new AppointmentCursorPage(page, nextCursor, hasNext);
     }
 
     /**
-     * Updates appointment status to COMPLETED if past end time
-     * Returns updated appointment or original if no update needed
+     * Checks if an appointment interval overlaps an existing booking for a doctor
      */
-    private Appointment updateAppointmentStatusIfNeeded(Appointment appointment) {
-        if (appointment.getStatus().equals("SCHEDULED") &&
-                (appointment.getAppointmentDate().isBefore(LocalDate.now()) ||
-                        (appointment.getAppointmentDate().isEqual(LocalDate.now()) &&
-                                appointment.getEndTime().isBefore(LocalTime.now())))) {
-            appointment.setStatus("COMPLETED");
-            return appointmentRepository.save(appointment);
+    private void validateSlotNotBooked(Doctor doctor, LocalDate date, LocalTime startTime, int durationMinutes) {
+        if (appointmentRepository.existsOverlapping(doctor, date, startTime,
+                overlapQueryEnd(startTime, durationMinutes))) {
+            throw new SlotNotAvailableException("Time slot already booked", date, startTime);
         }
-        return appointment;
     }
 
     /**
-     * Processes a page of appointments, updating statuses and converting to responses
+     * Length of a stored appointment, derived from its times (older rows may not carry a call duration)
+     */
+    private static int durationOf(Appointment appointment) {
+        return ScheduleRules.endMinute(appointment.getStartTime(), appointment.getEndTime())
+                - ScheduleRules.minuteOfDay(appointment.getStartTime());
+    }
+
+    /**
+     * Exclusive end for overlap queries; an appointment ending at midnight compares as the end of the day
      */
-    private Page<PatientAppointmentResponse> processAppointmentPage(Page<Appointment> appointmentPage) {
-        // Update statuses for all appointments in the page
-        List<Appointment> updatedContent = appointmentPage.getContent().stream()
-                .map(this::updateAppointmentStatusIfNeeded)
-                .toList();
-
-        // Convert to response DTOs
-        return appointmentPage.map(apt -> {
-            Appointment updated = updatedContent.stream()
-                    .filter(u -> u.getId().equals(apt.getId()))
-                    .findFirst()
-                    .orElse(apt);
-            return convertToResponse(updated);
-        });
+    private static LocalTime overlapQueryEnd(LocalTime startTime, int durationMinutes) {
+        LocalTime endTime = startTime.plusMinutes(durationMinutes);
+        return endTime.equals(LocalTime.MIDNIGHT) ? LocalTime.MAX : endTime;
     }
 }
@@ -0,0 +1,336 @@
+package com.ashwani.HealthCare.Service.Appointment;
+
+import com.ashwani.HealthCare.DTO.Appointments.SlotChangeEvent;
+import com.ashwani.HealthCare.Entity.AppointmentHold;
+import com.ashwani.HealthCare.ExceptionHandlers.common.ResourceNotFoundException;
+import com.ashwani.HealthCare.Repository.AppointmentHoldRepository;
+import com.ashwani.HealthCare.Repository.AppointmentRepository;
+import com.ashwani.HealthCare.Service.Availability.DoctorScheduleEngine;
+import com.ashwani.HealthCare.Service.Availability.ScheduleRules;
+import com.ashwani.HealthCare.Utility.IntervalTree;
+import com.ashwani.HealthCare.Utility.TimeSlot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory per-doctor, per-date slot index.
+ *
+ * A day is split into 48 half-hour slots, so every bitmap fits in a single long:
+ * bit i represents the slot starting at i * 30 minutes after midnight.
+ * - Open slots: materialized per date by DoctorScheduleEngine (weekly rules plus overrides)
+ * - Day state: an interval tree of booked appointments and live holds, in minutes of the day
+ *
+ * Appointments may be 15 to 60 minutes long, so a booking can cover part of a slot
+ * or several slots. Booking checks query the day's tree for an overlapping interval
+ * in O(log n); slot listings use the mask of every slot touched by a live interval,
+ * which excludes partially overlapped slots. That mask is cached until the day
+ * changes or its next hold expires.
+ *
+ * Day entries are loaded lazily on first read and then kept up to date by the
+ * appointment services. Updates are applied after the surrounding transaction
+ * commits, and every entry is reloaded once it is older than the configured TTL
+ * so that changes made by other instances are eventually picked up.
+ *
+ * Reads and hold pre-checks are served from the index; booking paths still validate
+ * against the database. Every change is also pushed to live availability streams.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DoctorSlotIndex {
+    static final int SLOT_MINUTES = ScheduleRules.SLOT_MINUTES;
+    static final int SLOTS_PER_DAY = ScheduleRules.SLOTS_PER_DAY;
+
+    // Slots are immutable once built, so the same instances are shared by every response
+    private static final List<TimeSlot> SLOT_TABLE = buildSlotTable();
+
+    private final DoctorScheduleEngine doctorScheduleEngine;
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentHoldRepository appointmentHoldRepository;
+    private final AppointmentHoldManager appointmentHoldManager;
+    private final SlotChangeHub slotChangeHub;
+
+    private final ConcurrentHashMap<DayKey, DaySlots> days = new ConcurrentHashMap<>();
+
+    @Value("${appointment.slot-index.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    /**
+     * Get free slots for a doctor on a date
+     * @return Available slots in start-time order, or null if the day's schedule
+     *         cannot be represented on the half-hour grid and must be computed from its windows
+     * @throws ResourceNotFoundException if the doctor does not exist
+     */
+    public List<TimeSlot> getAvailableSlots(Long doctorId, LocalDate date) {
+        Long openMask = doctorScheduleEngine.openMask(doctorId, date);
+        if (openMask == null) {
+            return null;
+        }
+
+        long open = openMask;
+        if (open == 0L) {
+            return Collections.emptyList();
+        }
+
+        long free = open & ~dayFor(doctorId, date).takenMask(System.currentTimeMillis());
+        List<TimeSlot> slots = new ArrayList<>(Long.bitCount(free));
+        while (free != 0L) {
+            int slot = Long.numberOfTrailingZeros(free);
+            slots.add(SLOT_TABLE.get(slot));
+            free &= free - 1;
+        }
+        return slots;
+    }
+
+    /**
+     * Check whether the schedule's windows cover an appointment's whole interval and
+     * the interval overlaps no booking or live hold
+     * @return Whether the interval is open, or null if it cannot be answered from the index
+     *         (off-grid schedule or start time) and must be validated against the database
+     * @throws ResourceNotFoundException if the doctor does not exist
+     */
+    public Boolean isSlotOpen(Long doctorId, LocalDate date, LocalTime startTime, int durationMinutes) {
+        Long openMask = doctorScheduleEngine.openMask(doctorId, date);
+        if (openMask == null || slotIndex(startTime) < 0) {
+            return null;
+        }
+        int start = ScheduleRules.minuteOfDay(startTime);
+        int end = start + durationMinutes;
+        long needed = ScheduleRules.touchedMask(start, end);
+        // The mask offers a slot whose start is inside a window; the interval must also end inside it
+        if ((openMask & needed) != needed
+                || !ScheduleRules.isOffered(doctorScheduleEngine.openWindows(doctorId, date), startTime, durationMinutes)) {
+            return false;
+        }
+        return dayFor(doctorId, date).isFree(start, end, System.currentTimeMillis());
+    }
+
+    /**
+     * Mark an interval as booked by an appointment (also clears a hold on the same interval)
+     */
+    public void markBooked(Long doctorId, LocalDate date, LocalTime startTime, int durationMinutes) {
+        int start = ScheduleRules.minuteOfDay(startTime);
+        afterCommit(() -> withLoadedDay(doctorId, date, day -> day.book(start, start + durationMinutes)));
+        slotChangeHub.publish(SlotChangeEvent.taken(doctorId, date, startTime, durationMinutes));
+    }
+
+    /**
+     * Release a booked interval, e.g. after cancellation or rescheduling
+     */
+    public void releaseBooked(Long doctorId, LocalDate date, LocalTime startTime, int durationMinutes) {
+        int start = ScheduleRules.minuteOfDay(startTime);
+        afterCommit(() -> withLoadedDay(doctorId, date, day -> day.unbook(start, start + durationMinutes)));
+        slotChangeHub.publish(SlotChangeEvent.released(doctorId, date, startTime, durationMinutes));
+    }
+
+    /**
+     * Mark a hold's interval as taken until the hold expires
+     */
+    public void markHeld(AppointmentHoldManager.ActiveHold hold) {
+        afterCommit(() -> withLoadedDay(hold.doctorId(), hold.date(), day -> day.hold(hold)));
+        slotChangeHub.publish(SlotChangeEvent.taken(hold.doctorId(), hold.date(), hold.startTime(), hold.durationMinutes()));
+    }
+
+    /**
+     * Release a hold without booking its interval
+     */
+    public void releaseHold(AppointmentHoldManager.ActiveHold hold) {
+        afterCommit(() -> withLoadedDay(hold.doctorId(), hold.date(), day -> day.unhold(hold)));
+        slotChangeHub.publish(SlotChangeEvent.released(hold.doctorId(), hold.date(), hold.startTime(), hold.durationMinutes()));
+    }
+
+    /**
+     * Evict entries for past dates and entries that outlived the TTL - runs every 5 minutes
+     */
+    @Scheduled(fixedDelayString = "${appointment.slot-index.sweep-interval-ms:300000}")
+    public void evictStaleEntries() {
+        long now = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        int before = days.size();
+        days.entrySet().removeIf(e -> e.getKey().date().isBefore(today) || isExpired(e.getValue().loadedAt, now));
+        log.debug("Slot index sweep evicted {} day entries, {} remaining", before - days.size(), days.size());
+    }
+
+    private DaySlots dayFor(Long doctorId, LocalDate date) {
+        long now = System.currentTimeMillis();
+        DayKey key = new DayKey(doctorId, date);
+        DaySlots day = days.get(key);
+        if (day == null || isExpired(day.loadedAt, now)) {
+            day = loadDay(doctorId, date, now);
+            days.put(key, day);
+        }
+        return day;
+    }
+
+    private DaySlots loadDay(Long doctorId, LocalDate date, long now) {
+        DaySlots day = new DaySlots(now);
+        for (TimeSlot booked : appointmentRepository.findBookedTimes(doctorId, date)) {
+            day.book(ScheduleRules.minuteOfDay(booked.getStartTime()),
+                    ScheduleRules.endMinute(booked.getStartTime(), booked.getEndTime()));
+        }
+        Set<String> loadedHolds = new HashSet<>();
+        for (AppointmentHold row : appointmentHoldRepository.findActiveHolds(doctorId, date, LocalDateTime.now())) {
+            AppointmentHoldManager.ActiveHold hold = AppointmentHoldManager.ActiveHold.from(row);
+            if (loadedHolds.add(hold.holdReference())) day.hold(hold);
+        }
+        // Holds of this instance whose durable copy may not be written yet
+        for (AppointmentHoldManager.ActiveHold hold : appointmentHoldManager.activeHolds(doctorId, date)) {
+            if (loadedHolds.add(hold.holdReference())) day.hold(hold);
+        }
+        return day;
+    }
+
+    private void withLoadedDay(Long doctorId, LocalDate date, Consumer<DaySlots> update) {
+        DaySlots day = days.get(new DayKey(doctorId, date));
+        // Days that are not cached yet will read the change from the database on first access
+        if (day != null) {
+            update.accept(day);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private boolean isExpired(long loadedAt, long now) {
+        return now - loadedAt > ttlSeconds * 1000;
+    }
+
+    /**
+     * Maps a start time onto the half-hour grid
+     * @return Slot index, or -1 if the time is not on a slot boundary
+     */
+    static int slotIndex(LocalTime time) {
+        return ScheduleRules.slotIndex(time);
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static List<TimeSlot> buildSlotTable() {
+        List<TimeSlot> table = new ArrayList<>(SLOTS_PER_DAY);
+        for (int i = 0; i < SLOTS_PER_DAY; i++) {
+            LocalTime start = LocalTime.MIDNIGHT.plusMinutes((long) i * SLOT_MINUTES);
+            table.add(new TimeSlot(start, start.plusMinutes(SLOT_MINUTES)));
+        }
+        return Collections.unmodifiableList(table);
+    }
+
+    private record DayKey(Long doctorId, LocalDate date) {
+    }
+
+    /**
+     * An interval of a day taken by a booking (no hold reference) or by a hold until it expires
+     */
+    private record Occupant(int start, int end, String holdReference, long expiresAtMillis) {
+        boolean isHold() {
+            return holdReference != null;
+        }
+
+        boolean isLive(long now) {
+            return expiresAtMillis > now;
+        }
+    }
+
+    /**
+     * Booked and held intervals for one doctor on one date
+     */
+    private static final class DaySlots {
+        private final long loadedAt;
+        private final IntervalTree<Occupant> occupied = new IntervalTree<>();
+        // Slots touched by live intervals; recomputed after a change or once the earliest hold expires
+        private long takenMask;
+        private long takenMaskValidUntil = Long.MIN_VALUE;
+
+        DaySlots(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+
+        synchronized long takenMask(long now) {
+            if (now < takenMaskValidUntil) {
+                return takenMask;
+            }
+            long mask = 0L;
+            long validUntil = Long.MAX_VALUE;
+            List<Occupant> expired = new ArrayList<>();
+            for (Occupant occupant : occupants()) {
+                if (!occupant.isLive(now)) {
+                    expired.add(occupant);
+                    continue;
+                }
+                mask |= ScheduleRules.touchedMask(occupant.start(), occupant.end());
+                validUntil = Math.min(validUntil, occupant.expiresAtMillis());
+            }
+            for (Occupant occupant : expired) {
+                occupied.remove(occupant.start(), occupant.end(), occupant::equals);
+            }
+            takenMask = mask;
+            takenMaskValidUntil = validUntil;
+            return mask;
+        }
+
+        synchronized boolean isFree(int start, int end, long now) {
+            if (!occupied.overlaps(start, end)) {
+                return true;
+            }
+            return occupied.overlapping(start, end).stream().noneMatch(occupant -> occupant.isLive(now));
+        }
+
+        synchronized void book(int start, int end) {
+            occupied.remove(start, end, Occupant::isHold);
+            occupied.add(start, end, new Occupant(start, end, null, Long.MAX_VALUE));
+            takenMaskValidUntil = Long.MIN_VALUE;
+        }
+
+        synchronized void unbook(int start, int end) {
+            occupied.remove(start, end, occupant -> !occupant.isHold());
+            takenMaskValidUntil = Long.MIN_VALUE;
+        }
+
+        synchronized void hold(AppointmentHoldManager.ActiveHold hold) {
+            int start = hold.startMinute();
+            int end = hold.endMinute();
+            occupied.add(start, end, new Occupant(start, end, hold.holdReference(), toEpochMillis(hold.expiresAt())));
+            takenMaskValidUntil = Long.MIN_VALUE;
+        }
+
+        synchronized void unhold(AppointmentHoldManager.ActiveHold hold) {
+            occupied.remove(hold.startMinute(), hold.endMinute(),
+                    occupant -> hold.holdReference().equals(occupant.holdReference()));
+            takenMaskValidUntil = Long.MIN_VALUE;
+        }
+
+        private List<Occupant> occupants() {
+            List<Occupant> all = new ArrayList<>(occupied.size());
+            occupied.forEach((start, end, occupant) -> all.add(occupant));
+            return all;
+        }
+    }
+}
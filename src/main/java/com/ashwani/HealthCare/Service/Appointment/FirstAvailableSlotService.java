@@ -0,0 +1,221 @@
+package com.ashwani.HealthCare.Service.Appointment;
+
+import com.ashwani.HealthCare.DTO.Appointments.BookedSlot;
+import com.ashwani.HealthCare.DTO.Doctor.DoctorDto;
+import com.ashwani.HealthCare.DTO.Doctor.FirstAvailableDoctor;
+import com.ashwani.HealthCare.Entity.AppointmentHold;
+import com.ashwani.HealthCare.Entity.AvailabilityOverride;
+import com.ashwani.HealthCare.Entity.Doctor;
+import com.ashwani.HealthCare.Entity.DoctorAvailability;
+import com.ashwani.HealthCare.Enums.Gender;
+import com.ashwani.HealthCare.Repository.AppointmentHoldRepository;
+import com.ashwani.HealthCare.Repository.AppointmentRepository;
+import com.ashwani.HealthCare.Repository.AvailabilityOverrideRepository;
+import com.ashwani.HealthCare.Repository.DoctorAvailabilityRepository;
+import com.ashwani.HealthCare.Repository.DoctorRepository;
+import com.ashwani.HealthCare.Service.Availability.ScheduleRules;
+import com.ashwani.HealthCare.Utility.IntervalTree;
+import com.ashwani.HealthCare.Utility.TimeSlot;
+import com.ashwani.HealthCare.specifications.DoctorSpecifications;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.modelmapper.ModelMapper;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Finds the doctors with the earliest free slot for a specialization.
+ *
+ * Matching doctor IDs are read in keyset-paged chunks. Only doctors with an
+ * available weekly row or an extra-window override in the search window are
+ * selected. For each chunk, availability rows, date overrides, booked intervals
+ * and active holds are fetched with one set-based query each.
+ *
+ * Only the best limit candidates are kept, in a bounded heap. Once the heap is
+ * full, a doctor's day scan stops at the date of the worst kept candidate. Doctor
+ * entities are loaded and mapped to DTOs only for the final results.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FirstAvailableSlotService {
+    private static final int MAX_SEARCH_DAYS = 30;
+    private static final int MAX_RESULTS = 100;
+    // Keeps IN-lists well below database parameter limits
+    private static final int QUERY_CHUNK_SIZE = 1000;
+    private static final int SLOT_MINUTES = 30;
+
+    private static final Comparator<Candidate> EARLIEST_FIRST = Comparator
+            .comparing(Candidate::date)
+            .thenComparing(Candidate::start)
+            .thenComparing(Candidate::doctorId);
+
+    private final DoctorRepository doctorRepository;
+    private final DoctorAvailabilityRepository doctorAvailabilityRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentHoldRepository appointmentHoldRepository;
+    private final AvailabilityOverrideRepository availabilityOverrideRepository;
+    private final ModelMapper modelMapper;
+
+    /**
+     * Rank matching doctors by their next free slot
+     * @param specialization Specialization filter (partial, case-insensitive)
+     * @param gender Optional gender filter
+     * @param days Search window in days, starting today
+     * @param limit Maximum number of doctors to return
+     * @return Doctors with a free slot in the window, earliest first
+     */
+    @Transactional(readOnly = true)
+    public List<FirstAvailableDoctor> findFirstAvailable(@Nullable String specialization,
+                                                         @Nullable Gender gender,
+                                                         int days,
+                                                         int limit) {
+        if (days < 1 || days > MAX_SEARCH_DAYS) {
+            throw new IllegalArgumentException("days must be between 1 and " + MAX_SEARCH_DAYS);
+        }
+        if (limit < 1 || limit > MAX_RESULTS) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_RESULTS);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate from = now.toLocalDate();
+        LocalDate to = from.plusDays(days - 1L);
+
+        Specification<Doctor> spec = Specification.where(DoctorSpecifications.hasSpecialization(specialization))
+                .and(DoctorSpecifications.hasGender(gender))
+                .and(DoctorSpecifications.hasScheduleBetween(from, to));
+        // Worst kept candidate at the head, so it is the one evicted
+        PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1, EARLIEST_FIRST.reversed());
+
+        long afterId = 0;
+        int scanned = 0;
+        List<Long> chunk;
+        do {
+            chunk = doctorRepository.findIds(spec, afterId, QUERY_CHUNK_SIZE);
+            if (chunk.isEmpty()) break;
+            afterId = chunk.get(chunk.size() - 1);
+            scanned += chunk.size();
+            rankChunk(chunk, from, to, now, limit, best);
+        } while (chunk.size() == QUERY_CHUNK_SIZE);
+
+        List<Candidate> ranked = new ArrayList<>(best);
+        ranked.sort(EARLIEST_FIRST);
+        Map<Long, Doctor> doctorsById = new HashMap<>();
+        doctorRepository.findAllById(ranked.stream().map(Candidate::doctorId).toList())
+                .forEach(doctor -> doctorsById.put(doctor.getId(), doctor));
+
+        log.debug("First-available search scanned {} doctors, returning {}", scanned, ranked.size());
+        return ranked.stream()
+                .filter(candidate -> doctorsById.containsKey(candidate.doctorId()))
+                .map(candidate -> new FirstAvailableDoctor(convertToDto(doctorsById.get(candidate.doctorId())),
+                        candidate.date(), new TimeSlot(candidate.start(), candidate.start().plusMinutes(SLOT_MINUTES))))
+                .toList();
+    }
+
+    /**
+     * Find each doctor's earliest free slot in one chunk and offer it to the bounded heap
+     */
+    private void rankChunk(List<Long> chunk, LocalDate from, LocalDate to, LocalDateTime now,
+                           int limit, PriorityQueue<Candidate> best) {
+        Map<Long, List<DoctorAvailability>> rowsByDoctor = new HashMap<>();
+        for (DoctorAvailability availability : doctorAvailabilityRepository.findAvailableByDoctorIds(chunk)) {
+            rowsByDoctor.computeIfAbsent(availability.getDoctor().getId(), id -> new ArrayList<>()).add(availability);
+        }
+        Map<Long, Map<LocalDate, List<AvailabilityOverride>>> overrides = new HashMap<>();
+        for (AvailabilityOverride override : availabilityOverrideRepository.findByDoctorIdsBetween(chunk, from, to)) {
+            overrides.computeIfAbsent(override.getDoctor().getId(), id -> new HashMap<>())
+                    .computeIfAbsent(override.getDate(), date -> new ArrayList<>())
+                    .add(override);
+        }
+
+        // Doctors with weekly rules, or with extra windows added by an override
+        Map<Long, Map<DayOfWeek, List<ScheduleRules.Window>>> schedules = new HashMap<>();
+        for (Long doctorId : chunk) {
+            List<DoctorAvailability> rows = rowsByDoctor.get(doctorId);
+            if (rows != null || overrides.containsKey(doctorId)) {
+                schedules.put(doctorId, ScheduleRules.weeklyWindows(rows != null ? rows : List.of()));
+            }
+        }
+        if (schedules.isEmpty()) return;
+
+        Map<Long, Map<LocalDate, IntervalTree<Long>>> taken = new HashMap<>();
+        for (BookedSlot booked : appointmentRepository.findBookedSlotsForDoctorsBetween(schedules.keySet(), from, to)) {
+            markTaken(taken, booked.doctorId(), booked.date(), ScheduleRules.minuteOfDay(booked.startTime()),
+                    ScheduleRules.endMinute(booked.startTime(), booked.endTime()));
+        }
+        for (AppointmentHold row : appointmentHoldRepository
+                .findActiveHoldsForDoctorsBetween(schedules.keySet(), from, to, now)) {
+            AppointmentHoldManager.ActiveHold hold = AppointmentHoldManager.ActiveHold.from(row);
+            markTaken(taken, hold.doctorId(), hold.date(), hold.startMinute(), hold.endMinute());
+        }
+
+        IntervalTree<Long> nothingTaken = new IntervalTree<>();
+        schedules.forEach((doctorId, schedule) -> {
+            Map<LocalDate, IntervalTree<Long>> doctorTaken = taken.getOrDefault(doctorId, Map.of());
+            Map<LocalDate, List<AvailabilityOverride>> doctorOverrides = overrides.getOrDefault(doctorId, Map.of());
+            // With a full heap, a slot after the worst kept date can never make the cut
+            LocalDate last = best.size() == limit && best.peek().date().isBefore(to) ? best.peek().date() : to;
+            for (LocalDate date = from; !date.isAfter(last); date = date.plusDays(1)) {
+                LocalTime notBefore = date.equals(from) ? now.toLocalTime() : null;
+                List<ScheduleRules.Window> windows = ScheduleRules.resolve(
+                        schedule.getOrDefault(date.getDayOfWeek(), List.of()),
+                        doctorOverrides.getOrDefault(date, List.of()));
+                LocalTime slot = earliestFreeSlot(windows, doctorTaken.getOrDefault(date, nothingTaken), notBefore);
+                if (slot != null) {
+                    best.offer(new Candidate(doctorId, date, slot));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                    break;
+                }
+            }
+        });
+    }
+
+    /**
+     * Earliest slot start across all windows of a day that overlaps no taken interval
+     * and (for today) starts after the current time
+     */
+    private LocalTime earliestFreeSlot(List<ScheduleRules.Window> windows, IntervalTree<Long> taken,
+                                       @Nullable LocalTime notBefore) {
+        LocalTime earliest = null;
+        for (ScheduleRules.Window window : windows) {
+            LocalTime current = window.start();
+            LocalTime end = window.end();
+            while (current.isBefore(end) && (earliest == null || current.isBefore(earliest))) {
+                boolean startsInFuture = notBefore == null || current.isAfter(notBefore);
+                int start = ScheduleRules.minuteOfDay(current);
+                if (startsInFuture && !taken.overlaps(start, start + SLOT_MINUTES)) {
+                    earliest = current;
+                    break;
+                }
+                LocalTime next = current.plusMinutes(SLOT_MINUTES);
+                if (next.isBefore(current)) break; // wrapped past midnight
+                current = next;
+            }
+        }
+        return earliest;
+    }
+
+    private void markTaken(Map<Long, Map<LocalDate, IntervalTree<Long>>> taken,
+                           Long doctorId, LocalDate date, int startMinute, int endMinute) {
+        taken.computeIfAbsent(doctorId, id -> new HashMap<>())
+                .computeIfAbsent(date, d -> new IntervalTree<>())
+                .add(startMinute, endMinute, doctorId);
+    }
+
+    private DoctorDto convertToDto(Doctor doctor) {
+        return modelMapper.map(doctor, DoctorDto.class);
+    }
+
+    private record Candidate(Long doctorId, LocalDate date, LocalTime start) {
+    }
+}
@@ -0,0 +1,211 @@
+package com.ashwani.HealthCare.Service.Appointment;
+
+import com.ashwani.HealthCare.DTO.Appointments.SlotChangeEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process fan-out of slot changes to Server-Sent Events subscribers.
+ *
+ * Viewers of a doctor's booking page share one subscriber set per doctor. Changes
+ * are published after the surrounding transaction commits and serialized once.
+ * Each subscriber has a bounded queue drained by its own virtual thread, so
+ * publishing only enqueues: neither request threads nor other subscribers ever wait
+ * on a slow client. A subscriber whose queue overflows is dropped and reconnects,
+ * and one whose connection fails is dropped. A periodic comment line, queued like
+ * any event, keeps idle connections open through proxies.
+ *
+ * Only changes made on this instance are pushed; clients reload availability
+ * when they reconnect.
+ */
+@Component
+@Slf4j
+public class SlotChangeHub {
+    private static final String EVENT_NAME = "slot-change";
+
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final int queueSize;
+    private final ConcurrentHashMap<Long, Set<Subscriber>> subscribersByDoctor = new ConcurrentHashMap<>();
+    private final AtomicLong eventIds = new AtomicLong();
+
+    public SlotChangeHub(ObjectMapper objectMapper,
+                         @Value("${appointment.slot-stream.timeout-ms:1800000}") long timeoutMillis,
+                         @Value("${appointment.slot-stream.queue-size:64}") int queueSize) {
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * Open a stream of slot changes for a doctor
+     * @param date Only push changes for this date (schedule-wide changes are always pushed), or null for every date
+     */
+    public SseEmitter subscribe(Long doctorId, LocalDate date) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(doctorId, emitter, date);
+        // Added inside compute so a concurrent unsubscribe cannot drop the set it is being added to
+        Set<Subscriber> subscribers = subscribersByDoctor.compute(doctorId, (id, existing) -> {
+            Set<Subscriber> set = existing != null ? existing : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(ex -> subscriber.close());
+        subscriber.start();
+
+        log.debug("Slot stream opened for doctor {} ({} subscribers)", doctorId, subscribers.size());
+        return emitter;
+    }
+
+    /**
+     * Push a change to the doctor's subscribers once the current transaction commits
+     */
+    public void publish(SlotChangeEvent event) {
+        if (!subscribersByDoctor.containsKey(event.doctorId())) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(event);
+                }
+            });
+        } else {
+            dispatch(event);
+        }
+    }
+
+    /**
+     * Queue a keep-alive comment for every subscriber - runs every 25 seconds
+     */
+    @Scheduled(fixedDelayString = "${appointment.slot-stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        subscribersByDoctor.values().forEach(subscribers ->
+                subscribers.forEach(subscriber -> subscriber.offer(SseEmitter.event().comment("keepalive"))));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribersByDoctor.values().forEach(subscribers -> subscribers.forEach(subscriber -> {
+            subscriber.close();
+            subscriber.emitter().complete();
+        }));
+        subscribersByDoctor.clear();
+    }
+
+    private void dispatch(SlotChangeEvent event) {
+        Set<Subscriber> subscribers = subscribersByDoctor.get(event.doctorId());
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        // Serialized once and queued as-is for every subscriber
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize slot change for doctor {}", event.doctorId(), e);
+            return;
+        }
+        String id = Long.toString(eventIds.incrementAndGet());
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.wants(event)) {
+                subscriber.offer(SseEmitter.event().id(id).name(EVENT_NAME).data(data));
+            }
+        }
+    }
+
+    private void unsubscribe(Long doctorId, Subscriber subscriber) {
+        subscribersByDoctor.computeIfPresent(doctorId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    /**
+     * One open stream: a bounded queue of pending events and the virtual thread writing them
+     */
+    private final class Subscriber {
+        private final Long doctorId;
+        private final SseEmitter emitter;
+        private final LocalDate date;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending = new ArrayBlockingQueue<>(queueSize);
+        private volatile Thread writer;
+        private volatile boolean closed;
+
+        Subscriber(Long doctorId, SseEmitter emitter, LocalDate date) {
+            this.doctorId = doctorId;
+            this.emitter = emitter;
+            this.date = date;
+        }
+
+        SseEmitter emitter() {
+            return emitter;
+        }
+
+        boolean wants(SlotChangeEvent event) {
+            return date == null || event.date() == null || date.equals(event.date());
+        }
+
+        void start() {
+            writer = Thread.ofVirtual().name("slot-stream-" + doctorId).start(this::drain);
+        }
+
+        // Never blocks; a client too slow to keep up is dropped and reloads on reconnect
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!pending.offer(event)) {
+                log.debug("Slot stream for doctor {} fell {} events behind, dropping it", doctorId, queueSize);
+                close();
+                emitter.complete();
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!closed) {
+                    emitter.send(pending.take());
+                }
+            } catch (InterruptedException e) {
+                // Closed while waiting for the next event
+            } catch (IOException | IllegalStateException e) {
+                // Client went away
+                close();
+                emitter.completeWithError(e);
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            unsubscribe(doctorId, this);
+            Thread current = writer;
+            if (current != null && current != Thread.currentThread()) {
+                current.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.ashwani.HealthCare.Service.Appointment;
+
+import com.ashwani.HealthCare.Entity.SlotClaim;
+import com.ashwani.HealthCare.ExceptionHandlers.appointment.SlotNotAvailableException;
+import com.ashwani.HealthCare.Repository.SlotClaimRepository;
+import com.ashwani.HealthCare.Service.Availability.ScheduleRules;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Atomic slot reservation backed by the unique key on slot_claims.
+ *
+ * Instead of check-then-insert, every hold and booking inserts a claim row and
+ * lets the database reject the loser of a race. An appointment longer than one
+ * slot claims every slot it occupies (its start plus each following 30 minutes),
+ * so two overlapping appointments always collide on at least one row. Claims
+ * always join the caller's transaction, so a rejected claim also rolls back the
+ * hold or appointment it guards, including the slots already claimed for it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SlotClaimService {
+    private final SlotClaimRepository slotClaimRepository;
+
+    /**
+     * Claim the slots of an appointment hold until the hold expires
+     * @throws SlotNotAvailableException if another hold or booking owns one of the slots
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void claimForHold(Long doctorId, LocalDate date, LocalTime startTime, int durationMinutes,
+                             String holdReference, LocalDateTime expiresAt) {
+        insertClaims(doctorId, date, slotStarts(startTime, durationMinutes), holdReference, expiresAt);
+    }
+
+    /**
+     * Claim the slots of a booked appointment permanently.
+     * When booking from a hold, the hold's claims are confirmed in place; if some of
+     * them expired and were taken over by someone else, fresh claims are attempted instead.
+     * @throws SlotNotAvailableException if another hold or booking owns one of the slots
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void claimForBooking(Long doctorId, LocalDate date, LocalTime startTime, int durationMinutes,
+                                String holdReference) {
+        List<LocalTime> slotStarts = slotStarts(startTime, durationMinutes);
+        if (holdReference != null) {
+            int confirmed = slotClaimRepository.confirmHoldClaims(holdReference, doctorId, date, slotStarts);
+            if (confirmed == slotStarts.size()) {
+                return;
+            }
+            if (confirmed > 0) {
+                slotClaimRepository.deleteByHoldReference(holdReference);
+            }
+        }
+        insertClaims(doctorId, date, slotStarts, holdReference, null);
+    }
+
+    /**
+     * Release the slots of an appointment so they can be claimed again (cancellation, rescheduling)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Long doctorId, LocalDate date, LocalTime startTime, int durationMinutes) {
+        slotClaimRepository.deleteClaims(doctorId, date, slotStarts(startTime, durationMinutes));
+    }
+
+    private void insertClaims(Long doctorId, LocalDate date, List<LocalTime> slotStarts,
+                              String holdReference, LocalDateTime expiresAt) {
+        // An expired hold must not block the slots; deleting them is a single statement
+        slotClaimRepository.deleteExpiredClaims(doctorId, date, slotStarts, LocalDateTime.now());
+        List<SlotClaim> claims = new ArrayList<>(slotStarts.size());
+        for (LocalTime slotStart : slotStarts) {
+            claims.add(new SlotClaim(doctorId, date, slotStart, holdReference, expiresAt));
+        }
+        try {
+            slotClaimRepository.saveAllAndFlush(claims);
+        } catch (DataIntegrityViolationException e) {
+            log.info("Slot claim rejected for doctor: {}, at: {} {}", doctorId, date, slotStarts.get(0));
+            throw new SlotNotAvailableException("Time slot already booked", date, slotStarts.get(0));
+        }
+    }
+
+    private static List<LocalTime> slotStarts(LocalTime startTime, int durationMinutes) {
+        int slots = ScheduleRules.slotCount(durationMinutes);
+        List<LocalTime> slotStarts = new ArrayList<>(slots);
+        for (int i = 0; i < slots; i++) {
+            slotStarts.add(startTime.plusMinutes((long) i * ScheduleRules.SLOT_MINUTES));
+        }
+        return slotStarts;
+    }
+}
@@ -17,7 +17,6 @@ import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -148,15 +147,4 @@ public class PasswordResetService {
 
         return "Password has been reset successfully. You can now login with your new password";
     }
-
-    /**
-     * Clean up expired tokens - runs every hour
-     */
-    @Scheduled(cron = "0 0 * * * *")
-    @Transactional
-    public void cleanupExpiredTokens() {
-        log.info("🧹 Running cleanup of expired password reset tokens");
-        tokenRepository.deleteExpiredTokens(LocalDateTime.now());
-        log.info("✅ Expired tokens cleanup completed");
-    }
 }
@@ -0,0 +1,320 @@
+package com.ashwani.HealthCare.Service.Availability;
+
+import com.ashwani.HealthCare.DTO.DoctorAvailability.AvailabilityImportResult;
+import com.ashwani.HealthCare.DTO.DoctorAvailability.AvailabilityImportRowDto;
+import com.ashwani.HealthCare.DTO.DoctorAvailability.AvailabilityWindow;
+import com.ashwani.HealthCare.Entity.DoctorAvailability;
+import com.ashwani.HealthCare.Repository.DoctorAvailabilityRepository;
+import com.ashwani.HealthCare.Repository.DoctorRepository;
+import com.ashwani.HealthCare.Utility.IntervalTree;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk import of weekly availability windows for many doctors at once (clinic onboarding).
+ *
+ * The whole upload is validated in memory before anything is written: required
+ * fields, window bounds, unknown doctors, and overlaps with a doctor's existing
+ * windows or with other rows of the upload (one interval tree per doctor and day).
+ * Rejected rows are reported individually and do not stop the import.
+ *
+ * Valid rows are written with JdbcTemplate in fixed-size JDBC batches inside one
+ * transaction; with the driver's reWriteBatchedInserts each batch reaches PostgreSQL
+ * as one multi-row INSERT. Ids are reserved from the entity's pooled-lo sequence one
+ * block at a time, exactly as Hibernate does, so both writers can share the table.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AvailabilityImportService {
+    private static final String INSERT_SQL = "INSERT INTO doctoravailability " +
+            "(id, doctor_id, day_of_week, start_time, end_time, is_available, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    // Each value is the low end of a block of ID_BLOCK_SIZE ids (pooled-lo)
+    private static final String RESERVE_ID_BLOCKS_SQL =
+            "SELECT nextval('" + DoctorAvailability.ID_SEQUENCE + "') FROM generate_series(1, ?)";
+    private static final int ID_BLOCK_SIZE = DoctorAvailability.ID_ALLOCATION_SIZE;
+    private static final int MAX_ROWS = 20000;
+    // Keeps IN-lists well below database parameter limits
+    private static final int QUERY_CHUNK_SIZE = 1000;
+    // Row number used in the overlap trees for windows that already exist
+    private static final int EXISTING_WINDOW = 0;
+    // Reads each record as an array of fields; handles quoting, embedded commas and line breaks
+    private static final ObjectReader CSV_READER = new CsvMapper()
+            .readerFor(String[].class)
+            .withFeatures(CsvParser.Feature.WRAP_AS_ARRAY,
+                    CsvParser.Feature.SKIP_EMPTY_LINES,
+                    CsvParser.Feature.TRIM_SPACES);
+
+    private final DoctorRepository doctorRepository;
+    private final DoctorAvailabilityRepository availabilityRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DoctorScheduleEngine doctorScheduleEngine;
+
+    @Value("${availability.import.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Import rows sent as JSON; row numbers in the result are 1-based positions in the list
+     * @throws IllegalArgumentException if the upload is empty or too large
+     */
+    @Transactional
+    public AvailabilityImportResult importRows(List<AvailabilityImportRowDto> rows) {
+        if (rows == null) {
+            throw new IllegalArgumentException("Import contains no rows");
+        }
+        List<NumberedRow> numbered = new ArrayList<>(rows.size());
+        List<AvailabilityImportResult.RowError> errors = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i) == null) {
+                errors.add(new AvailabilityImportResult.RowError(i + 1, null, "Row is empty"));
+            } else {
+                numbered.add(new NumberedRow(i + 1, rows.get(i)));
+            }
+        }
+        return importNumbered(numbered, errors, rows.size());
+    }
+
+    /**
+     * Import a CSV upload with a header row naming the columns
+     * doctorId, dayOfWeek, startTime, endTime and optionally isAvailable (default true)
+     * @throws IllegalArgumentException if the header is missing a column, the CSV is malformed,
+     *         or the upload is empty or too large
+     */
+    @Transactional
+    public AvailabilityImportResult importCsv(InputStream csv) throws IOException {
+        List<NumberedRow> rows = new ArrayList<>();
+        List<AvailabilityImportResult.RowError> errors = new ArrayList<>();
+        int received = 0;
+
+        try (Reader reader = new InputStreamReader(csv, StandardCharsets.UTF_8);
+             MappingIterator<String[]> records = CSV_READER.readValues(reader)) {
+            Map<String, Integer> columns = null;
+            while (records.hasNextValue()) {
+                String[] fields = records.nextValue();
+                if (isBlank(fields)) continue;
+                if (columns == null) {
+                    columns = parseHeader(fields);
+                    continue;
+                }
+                received++;
+                if (received > MAX_ROWS) break;
+                try {
+                    rows.add(new NumberedRow(received, parseCsvRow(fields, columns)));
+                } catch (IllegalArgumentException e) {
+                    errors.add(new AvailabilityImportResult.RowError(received, null, e.getMessage()));
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // An unterminated quote or similar leaves no reliable record boundary to resume from
+            throw new IllegalArgumentException("Malformed CSV near line "
+                    + (e.getLocation() == null ? "?" : e.getLocation().getLineNr()) + ": " + e.getOriginalMessage());
+        }
+        return importNumbered(rows, errors, received);
+    }
+
+    private AvailabilityImportResult importNumbered(List<NumberedRow> rows,
+                                                    List<AvailabilityImportResult.RowError> errors,
+                                                    int received) {
+        if (received == 0) {
+            throw new IllegalArgumentException("Import contains no rows");
+        }
+        if (received > MAX_ROWS) {
+            throw new IllegalArgumentException("Import cannot exceed " + MAX_ROWS + " rows");
+        }
+
+        // 1. Field checks
+        List<NumberedRow> candidates = new ArrayList<>(rows.size());
+        for (NumberedRow row : rows) {
+            String problem = validateFields(row.data());
+            if (problem != null) {
+                errors.add(new AvailabilityImportResult.RowError(row.number(), row.data().getDoctorId(), problem));
+            } else {
+                candidates.add(row);
+            }
+        }
+
+        // 2. Unknown doctors and existing windows, one query per chunk of doctor IDs
+        List<Long> doctorIds = new ArrayList<>(new LinkedHashSet<>(candidates.stream()
+                .map(row -> row.data().getDoctorId())
+                .toList()));
+        Set<Long> knownDoctors = new HashSet<>();
+        Map<Long, Map<DayOfWeek, IntervalTree<Integer>>> windows = new HashMap<>();
+        for (int i = 0; i < doctorIds.size(); i += QUERY_CHUNK_SIZE) {
+            List<Long> chunk = doctorIds.subList(i, Math.min(i + QUERY_CHUNK_SIZE, doctorIds.size()));
+            knownDoctors.addAll(doctorRepository.findExistingIds(chunk));
+            for (AvailabilityWindow existing : availabilityRepository.findWindowsByDoctorIds(chunk)) {
+                windowsOf(windows, existing.doctorId(), existing.dayOfWeek()).add(
+                        ScheduleRules.minuteOfDay(existing.startTime()),
+                        ScheduleRules.endMinute(existing.startTime(), existing.endTime()),
+                        EXISTING_WINDOW);
+            }
+        }
+
+        // 3. Overlaps with existing windows and earlier rows of the upload
+        List<AvailabilityImportRowDto> accepted = new ArrayList<>(candidates.size());
+        for (NumberedRow row : candidates) {
+            AvailabilityImportRowDto data = row.data();
+            if (!knownDoctors.contains(data.getDoctorId())) {
+                errors.add(new AvailabilityImportResult.RowError(row.number(), data.getDoctorId(),
+                        "Doctor " + data.getDoctorId() + " not found"));
+                continue;
+            }
+            IntervalTree<Integer> day = windowsOf(windows, data.getDoctorId(), data.getDayOfWeek());
+            int start = ScheduleRules.minuteOfDay(data.getStartTime());
+            int end = ScheduleRules.minuteOfDay(data.getEndTime());
+            if (day.overlaps(start, end)) {
+                int other = day.overlapping(start, end).get(0);
+                errors.add(new AvailabilityImportResult.RowError(row.number(), data.getDoctorId(),
+                        other == EXISTING_WINDOW
+                                ? "Overlaps an existing " + data.getDayOfWeek() + " window"
+                                : "Overlaps row " + other));
+                continue;
+            }
+            day.add(start, end, row.number());
+            accepted.add(data);
+        }
+
+        // 4. Batched write
+        insertBatched(accepted);
+
+        Map<Long, Set<DayOfWeek>> changedDays = new HashMap<>();
+        for (AvailabilityImportRowDto data : accepted) {
+            changedDays.computeIfAbsent(data.getDoctorId(), id -> EnumSet.noneOf(DayOfWeek.class))
+                    .add(data.getDayOfWeek());
+        }
+        changedDays.forEach(doctorScheduleEngine::weeklyRulesChanged);
+
+        errors.sort((a, b) -> Integer.compare(a.row(), b.row()));
+        log.info("Availability import: {} rows received, {} imported for {} doctors, {} rejected",
+                received, accepted.size(), changedDays.size(), errors.size());
+        return new AvailabilityImportResult(received, accepted.size(), errors);
+    }
+
+    private void insertBatched(List<AvailabilityImportRowDto> rows) {
+        if (rows.isEmpty()) return;
+        List<Long> idBlocks = jdbcTemplate.queryForList(RESERVE_ID_BLOCKS_SQL, Long.class,
+                (rows.size() + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE);
+        Map<AvailabilityImportRowDto, Long> ids = new IdentityHashMap<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            ids.put(rows.get(i), idBlocks.get(i / ID_BLOCK_SIZE) + i % ID_BLOCK_SIZE);
+        }
+
+        // Bulk insert bypasses auditing, so timestamps are set explicitly
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, batchSize, (statement, row) -> {
+            statement.setLong(1, ids.get(row));
+            statement.setLong(2, row.getDoctorId());
+            statement.setString(3, row.getDayOfWeek().name());
+            statement.setObject(4, row.getStartTime());
+            statement.setObject(5, row.getEndTime());
+            statement.setBoolean(6, row.getIsAvailable() == null || row.getIsAvailable());
+            statement.setTimestamp(7, now);
+            statement.setTimestamp(8, now);
+        });
+    }
+
+    /**
+     * @return Description of the first problem, or null if the row is well-formed
+     */
+    private static String validateFields(AvailabilityImportRowDto row) {
+        if (row.getDoctorId() == null) return "doctorId is required";
+        if (row.getDayOfWeek() == null) return "dayOfWeek is required";
+        if (row.getStartTime() == null || row.getEndTime() == null) return "startTime and endTime are required";
+        if (!row.getStartTime().isBefore(row.getEndTime())) return "Start time must be before end time";
+        return null;
+    }
+
+    private static Map<String, Integer> parseHeader(String[] fields) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < fields.length; i++) {
+            // Spreadsheet exports may start with a byte order mark
+            columns.put(fields[i].replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("doctorid", "dayofweek", "starttime", "endtime")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException(
+                        "CSV header must contain doctorId, dayOfWeek, startTime and endTime columns");
+            }
+        }
+        return columns;
+    }
+
+    private static AvailabilityImportRowDto parseCsvRow(String[] fields, Map<String, Integer> columns) {
+        AvailabilityImportRowDto row = new AvailabilityImportRowDto();
+        String doctorId = field(fields, columns, "doctorid");
+        String dayOfWeek = field(fields, columns, "dayofweek");
+        String startTime = field(fields, columns, "starttime");
+        String endTime = field(fields, columns, "endtime");
+        String isAvailable = field(fields, columns, "isavailable");
+        try {
+            row.setDoctorId(doctorId.isEmpty() ? null : Long.valueOf(doctorId));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid doctorId: " + doctorId);
+        }
+        try {
+            row.setDayOfWeek(dayOfWeek.isEmpty() ? null : DayOfWeek.valueOf(dayOfWeek.toUpperCase(Locale.ROOT)));
+            row.setStartTime(startTime.isEmpty() ? null : LocalTime.parse(startTime));
+            row.setEndTime(endTime.isEmpty() ? null : LocalTime.parse(endTime));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid day or time in row: " + String.join(",", fields));
+        }
+        if (!isAvailable.isEmpty() && !isAvailable.equalsIgnoreCase("true") && !isAvailable.equalsIgnoreCase("false")) {
+            throw new IllegalArgumentException("isAvailable must be true or false");
+        }
+        row.setIsAvailable(isAvailable.isEmpty() || Boolean.parseBoolean(isAvailable));
+        return row;
+    }
+
+    private static boolean isBlank(String[] fields) {
+        for (String field : fields) {
+            if (field != null && !field.isBlank()) return false;
+        }
+        return true;
+    }
+
+    private static String field(String[] fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        return index == null || index >= fields.length || fields[index] == null ? "" : fields[index].trim();
+    }
+
+    private static IntervalTree<Integer> windowsOf(Map<Long, Map<DayOfWeek, IntervalTree<Integer>>> windows,
+                                                   Long doctorId, DayOfWeek dayOfWeek) {
+        return windows.computeIfAbsent(doctorId, id -> new EnumMap<>(DayOfWeek.class))
+                .computeIfAbsent(dayOfWeek, day -> new IntervalTree<>());
+    }
+
+    private record NumberedRow(int number, AvailabilityImportRowDto data) {
+    }
+}
@@ -1,10 +1,14 @@
 package com.ashwani.HealthCare.Service.Availability;
 
+import com.ashwani.HealthCare.DTO.DoctorAvailability.AvailabilityOverrideRequestDto;
+import com.ashwani.HealthCare.DTO.DoctorAvailability.AvailabilityOverrideResponseDto;
 import com.ashwani.HealthCare.DTO.DoctorAvailability.AvailabilityRequestDto;
 import com.ashwani.HealthCare.DTO.DoctorAvailability.AvailabilityResponseDto;
+import com.ashwani.HealthCare.Entity.AvailabilityOverride;
 import com.ashwani.HealthCare.Entity.DoctorAvailability;
 import com.ashwani.HealthCare.Entity.Doctor;
 import com.ashwani.HealthCare.ExceptionHandlers.common.ResourceNotFoundException;
+import com.ashwani.HealthCare.Repository.AvailabilityOverrideRepository;
 import com.ashwani.HealthCare.Repository.DoctorAvailabilityRepository;
 import com.ashwani.HealthCare.Repository.DoctorRepository;
 import lombok.RequiredArgsConstructor;
@@ -12,7 +16,11 @@ import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,12 +28,18 @@ import java.util.stream.Collectors;
 public class AvailabilityService {
     private final DoctorAvailabilityRepository availabilityRepository;
     private final DoctorRepository doctorRepository;
+    private final AvailabilityOverrideRepository overrideRepository;
     private final ModelMapper modelMapper;
+    private final DoctorScheduleEngine doctorScheduleEngine;
 
     private AvailabilityResponseDto convertToResponse(DoctorAvailability availability) {
         return modelMapper.map(availability, AvailabilityResponseDto.class);
     }
 
+    private AvailabilityOverrideResponseDto convertToResponse(AvailabilityOverride override) {
+        return modelMapper.map(override, AvailabilityOverrideResponseDto.class);
+    }
+
     @Transactional(readOnly = true)
     public List<AvailabilityResponseDto> getDoctorAvailability(Long doctorId) {
         return availabilityRepository.findByDoctorId(doctorId).stream()
@@ -37,7 +51,7 @@ public class AvailabilityService {
         Doctor doctor = doctorRepository.findById(doctorId)
                 .orElseThrow(() -> new ResourceNotFoundException("Doctor", doctorId));
 
-        return requests.stream()
+        List<AvailabilityResponseDto> saved = requests.stream()
                 .map(request -> {
                     DoctorAvailability availability = modelMapper.map(request, DoctorAvailability.class);
                     availability.setDoctor(doctor);
@@ -45,6 +59,11 @@ public class AvailabilityService {
                 })
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
+
+        doctorScheduleEngine.weeklyRulesChanged(doctorId, saved.stream()
+                .map(AvailabilityResponseDto::getDayOfWeek)
+                .collect(Collectors.toSet()));
+        return saved;
     }
 
     @Transactional
@@ -52,13 +71,11 @@ public class AvailabilityService {
         Doctor doctor = doctorRepository.findById(doctorId)
                 .orElseThrow(() -> new ResourceNotFoundException("Doctor", doctorId));
 
-        boolean slotExists = availabilityRepository.existsById(slotId);
-
-        if (!slotExists) {
-            throw new ResourceNotFoundException("Availability slot", slotId);
-        }
+        DoctorAvailability slot = availabilityRepository.findById(slotId)
+                .orElseThrow(() -> new ResourceNotFoundException("Availability slot", slotId));
 
         availabilityRepository.deleteByDoctorAndId(doctor, slotId);
+        doctorScheduleEngine.weeklyRulesChanged(doctorId, Set.of(slot.getDayOfWeek()));
     }
 
     @Transactional
@@ -73,8 +90,10 @@ public class AvailabilityService {
             throw new IllegalArgumentException("Availability slot " + slotId + " does not belong to doctor " + doctorId);
         }
 
+        Set<DayOfWeek> affectedDays = EnumSet.of(availability.getDayOfWeek());
         if (request.getDayOfWeek() != null) {
             availability.setDayOfWeek(request.getDayOfWeek());
+            affectedDays.add(request.getDayOfWeek());
         }
         if (request.getStartTime() != null) {
             availability.setStartTime(request.getStartTime());
@@ -92,6 +111,70 @@ public class AvailabilityService {
         }
 
         DoctorAvailability updated = availabilityRepository.save(availability);
+        doctorScheduleEngine.weeklyRulesChanged(doctorId, affectedDays);
         return convertToResponse(updated);
     }
+
+    @Transactional(readOnly = true)
+    public List<AvailabilityOverrideResponseDto> getOverrides(Long doctorId, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        return overrideRepository.findByDoctorIdBetween(doctorId, from, to).stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Add a date-specific exception: a day off, a blocked window or an extra window
+     */
+    @Transactional
+    public AvailabilityOverrideResponseDto addOverride(Long doctorId, AvailabilityOverrideRequestDto request) {
+        Doctor doctor = doctorRepository.findById(doctorId)
+                .orElseThrow(() -> new ResourceNotFoundException("Doctor", doctorId));
+
+        validateOverride(request);
+
+        AvailabilityOverride override = new AvailabilityOverride();
+        override.setDoctor(doctor);
+        override.setDate(request.getDate());
+        override.setStartTime(request.getStartTime());
+        override.setEndTime(request.getEndTime());
+        override.setIsAvailable(Boolean.TRUE.equals(request.getIsAvailable()));
+        override.setReason(request.getReason());
+
+        AvailabilityOverride saved = overrideRepository.save(override);
+        doctorScheduleEngine.overridesChanged(doctorId, Set.of(saved.getDate()));
+        return convertToResponse(saved);
+    }
+
+    @Transactional
+    public void deleteOverride(Long doctorId, Long overrideId) {
+        AvailabilityOverride override = overrideRepository.findById(overrideId)
+                .orElseThrow(() -> new ResourceNotFoundException("Availability override", overrideId));
+
+        if (!override.getDoctor().getId().equals(doctorId)) {
+            throw new IllegalArgumentException("Availability override " + overrideId + " does not belong to doctor " + doctorId);
+        }
+
+        overrideRepository.delete(override);
+        doctorScheduleEngine.overridesChanged(doctorId, Set.of(override.getDate()));
+    }
+
+    private void validateOverride(AvailabilityOverrideRequestDto request) {
+        if (request.getDate() == null) {
+            throw new IllegalArgumentException("Override date is required");
+        }
+        boolean hasStart = request.getStartTime() != null;
+        boolean hasEnd = request.getEndTime() != null;
+        if (hasStart != hasEnd) {
+            throw new IllegalArgumentException("Start time and end time must be given together");
+        }
+        if (Boolean.TRUE.equals(request.getIsAvailable()) && !hasStart) {
+            throw new IllegalArgumentException("An extra availability window needs a start and end time");
+        }
+        if (hasStart && !request.getStartTime().isBefore(request.getEndTime())) {
+            throw new IllegalArgumentException("Start time must be before end time");
+        }
+    }
 }
@@ -0,0 +1,281 @@
+package com.ashwani.HealthCare.Service.Availability;
+
+import com.ashwani.HealthCare.DTO.Appointments.SlotChangeEvent;
+import com.ashwani.HealthCare.Entity.AvailabilityOverride;
+import com.ashwani.HealthCare.Entity.DoctorAvailability;
+import com.ashwani.HealthCare.ExceptionHandlers.common.ResourceNotFoundException;
+import com.ashwani.HealthCare.Repository.AvailabilityOverrideRepository;
+import com.ashwani.HealthCare.Repository.DoctorAvailabilityRepository;
+import com.ashwani.HealthCare.Repository.DoctorRepository;
+import com.ashwani.HealthCare.Service.Appointment.SlotChangeHub;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Expands each doctor's weekly rules plus dated overrides into concrete days.
+ *
+ * For every doctor that has been read, the days of a rolling horizon (today plus
+ * the configured number of days) are materialized once: their open windows and,
+ * when the windows sit on the half-hour grid, a slot bitmap. Reads inside the
+ * horizon are array lookups. Dates outside it are resolved on demand.
+ *
+ * Rule changes recompute only the affected days: a weekly rule change recomputes
+ * the matching weekdays, an override change recomputes its date. The horizon is
+ * rolled forward daily, and schedules are reloaded after the TTL so that changes
+ * made through other instances are picked up. Changes are also pushed to live
+ * availability streams.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DoctorScheduleEngine {
+    private final DoctorRepository doctorRepository;
+    private final DoctorAvailabilityRepository doctorAvailabilityRepository;
+    private final AvailabilityOverrideRepository availabilityOverrideRepository;
+    private final SlotChangeHub slotChangeHub;
+
+    private final ConcurrentHashMap<Long, MaterializedSchedule> schedules = new ConcurrentHashMap<>();
+
+    @Value("${availability.schedule.horizon-days:60}")
+    private int horizonDays;
+
+    @Value("${availability.schedule.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    /**
+     * Open windows of a doctor on a date, after overrides
+     * @throws ResourceNotFoundException if the doctor does not exist
+     */
+    public List<ScheduleRules.Window> openWindows(Long doctorId, LocalDate date) {
+        return dayFor(doctorId, date).windows();
+    }
+
+    /**
+     * Open windows of a doctor for every date in a range (inclusive), after overrides.
+     * Dates outside the horizon are resolved with a single override query for the range.
+     * @throws ResourceNotFoundException if the doctor does not exist
+     */
+    public Map<LocalDate, List<ScheduleRules.Window>> openWindowsBetween(Long doctorId, LocalDate from, LocalDate to) {
+        MaterializedSchedule schedule = scheduleFor(doctorId);
+        Map<LocalDate, List<ScheduleRules.Window>> windows = new LinkedHashMap<>();
+        Map<LocalDate, List<AvailabilityOverride>> outsideOverrides = null;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            DaySchedule day = schedule.day(date);
+            if (day == null) {
+                if (outsideOverrides == null) {
+                    outsideOverrides = new HashMap<>();
+                    groupByDate(availabilityOverrideRepository.findByDoctorIdBetween(doctorId, from, to), outsideOverrides);
+                }
+                day = MaterializedSchedule.resolveDay(schedule.weekly(), outsideOverrides, date);
+            }
+            windows.put(date, day.windows());
+        }
+        return windows;
+    }
+
+    /**
+     * Slot bitmap of a doctor on a date, after overrides
+     * @return The bitmap, or null if the day's windows are off the half-hour grid
+     * @throws ResourceNotFoundException if the doctor does not exist
+     */
+    public Long openMask(Long doctorId, LocalDate date) {
+        return dayFor(doctorId, date).mask();
+    }
+
+    /**
+     * Recompute the materialized days falling on the given weekdays after a weekly rule change
+     */
+    public void weeklyRulesChanged(Long doctorId, Collection<DayOfWeek> daysOfWeek) {
+        Set<DayOfWeek> affected = daysOfWeek.isEmpty() ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(daysOfWeek);
+        slotChangeHub.publish(SlotChangeEvent.scheduleChanged(doctorId, null));
+        afterCommit(() -> {
+            if (!schedules.containsKey(doctorId)) return;
+            Map<DayOfWeek, List<ScheduleRules.Window>> weekly =
+                    ScheduleRules.weeklyWindows(doctorAvailabilityRepository.findByDoctorId(doctorId));
+            schedules.computeIfPresent(doctorId, (id, schedule) -> schedule.recompute(weekly, schedule.overrides(),
+                    date -> affected.contains(date.getDayOfWeek())));
+        });
+    }
+
+    /**
+     * Recompute the given dates after overrides were added or removed
+     */
+    public void overridesChanged(Long doctorId, Collection<LocalDate> dates) {
+        Set<LocalDate> affected = new HashSet<>(dates);
+        affected.forEach(date -> slotChangeHub.publish(SlotChangeEvent.scheduleChanged(doctorId, date)));
+        afterCommit(() -> {
+            if (!schedules.containsKey(doctorId) || affected.isEmpty()) return;
+            List<AvailabilityOverride> reloaded = availabilityOverrideRepository.findByDoctorIdAndDates(doctorId, affected);
+            schedules.computeIfPresent(doctorId, (id, schedule) -> {
+                Map<LocalDate, List<AvailabilityOverride>> overrides = new HashMap<>(schedule.overrides());
+                affected.forEach(overrides::remove);
+                groupByDate(reloaded, overrides);
+                return schedule.recompute(schedule.weekly(), overrides, affected::contains);
+            });
+        });
+    }
+
+    /**
+     * Roll every materialized horizon forward to start today - runs daily just after midnight.
+     * Only the new trailing days are computed, with one override query for all doctors.
+     */
+    @Scheduled(cron = "${availability.schedule.roll-cron:0 5 0 * * *}")
+    public void rollHorizon() {
+        LocalDate today = LocalDate.now();
+        LocalDate last = today.plusDays(horizonDays - 1L);
+        List<Long> doctorIds = new ArrayList<>(schedules.keySet());
+        if (doctorIds.isEmpty()) return;
+
+        Map<Long, Map<LocalDate, List<AvailabilityOverride>>> overridesByDoctor = new HashMap<>();
+        for (AvailabilityOverride override : availabilityOverrideRepository.findByDoctorIdsBetween(doctorIds, today, last)) {
+            overridesByDoctor.computeIfAbsent(override.getDoctor().getId(), id -> new HashMap<>())
+                    .computeIfAbsent(override.getDate(), date -> new ArrayList<>())
+                    .add(override);
+        }
+        for (Long doctorId : doctorIds) {
+            schedules.computeIfPresent(doctorId, (id, schedule) ->
+                    schedule.rollTo(today, horizonDays, overridesByDoctor.getOrDefault(id, Map.of())));
+        }
+        log.debug("Rolled schedule horizon for {} doctors to start at {}", doctorIds.size(), today);
+    }
+
+    private MaterializedSchedule scheduleFor(Long doctorId) {
+        long now = System.currentTimeMillis();
+        MaterializedSchedule schedule = schedules.get(doctorId);
+        if (schedule == null || isExpired(schedule.loadedAt(), now)) {
+            schedule = load(doctorId, now);
+            schedules.put(doctorId, schedule);
+        }
+        return schedule;
+    }
+
+    private DaySchedule dayFor(Long doctorId, LocalDate date) {
+        MaterializedSchedule schedule = scheduleFor(doctorId);
+        DaySchedule day = schedule.day(date);
+        if (day != null) {
+            return day;
+        }
+        // Outside the horizon: resolve on demand without caching
+        List<AvailabilityOverride> overrides = availabilityOverrideRepository.findByDoctorIdBetween(doctorId, date, date);
+        return DaySchedule.of(ScheduleRules.resolve(
+                schedule.weekly().getOrDefault(date.getDayOfWeek(), List.of()), overrides));
+    }
+
+    private MaterializedSchedule load(Long doctorId, long now) {
+        List<DoctorAvailability> availabilities = doctorAvailabilityRepository.findByDoctorId(doctorId);
+        if (availabilities.isEmpty() && !doctorRepository.existsById(doctorId)) {
+            throw new ResourceNotFoundException("Doctor", doctorId);
+        }
+
+        LocalDate from = LocalDate.now();
+        Map<LocalDate, List<AvailabilityOverride>> overrides = new HashMap<>();
+        groupByDate(availabilityOverrideRepository.findByDoctorIdBetween(
+                doctorId, from, from.plusDays(horizonDays - 1L)), overrides);
+
+        return MaterializedSchedule.materialize(ScheduleRules.weeklyWindows(availabilities), overrides,
+                from, horizonDays, now);
+    }
+
+    private static void groupByDate(List<AvailabilityOverride> overrides,
+                                    Map<LocalDate, List<AvailabilityOverride>> target) {
+        for (AvailabilityOverride override : overrides) {
+            target.computeIfAbsent(override.getDate(), date -> new ArrayList<>()).add(override);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private boolean isExpired(long loadedAt, long now) {
+        return now - loadedAt > ttlSeconds * 1000;
+    }
+
+    /**
+     * Open windows of one concrete day and their slot bitmap (null when off-grid)
+     */
+    private record DaySchedule(List<ScheduleRules.Window> windows, Long mask) {
+        static DaySchedule of(List<ScheduleRules.Window> windows) {
+            return new DaySchedule(windows, ScheduleRules.toSlotMask(windows));
+        }
+    }
+
+    /**
+     * Immutable snapshot of a doctor's rules and materialized horizon; changes produce a new snapshot
+     * that shares every day that was not recomputed
+     */
+    private record MaterializedSchedule(Map<DayOfWeek, List<ScheduleRules.Window>> weekly,
+                                        Map<LocalDate, List<AvailabilityOverride>> overrides,
+                                        LocalDate from,
+                                        DaySchedule[] days,
+                                        long loadedAt) {
+
+        static MaterializedSchedule materialize(Map<DayOfWeek, List<ScheduleRules.Window>> weekly,
+                                                Map<LocalDate, List<AvailabilityOverride>> overrides,
+                                                LocalDate from, int horizonDays, long loadedAt) {
+            DaySchedule[] days = new DaySchedule[horizonDays];
+            for (int i = 0; i < horizonDays; i++) {
+                days[i] = resolveDay(weekly, overrides, from.plusDays(i));
+            }
+            return new MaterializedSchedule(weekly, overrides, from, days, loadedAt);
+        }
+
+        DaySchedule day(LocalDate date) {
+            long offset = ChronoUnit.DAYS.between(from, date);
+            return offset >= 0 && offset < days.length ? days[(int) offset] : null;
+        }
+
+        MaterializedSchedule recompute(Map<DayOfWeek, List<ScheduleRules.Window>> newWeekly,
+                                       Map<LocalDate, List<AvailabilityOverride>> newOverrides,
+                                       Predicate<LocalDate> affected) {
+            DaySchedule[] updated = days.clone();
+            for (int i = 0; i < updated.length; i++) {
+                LocalDate date = from.plusDays(i);
+                if (affected.test(date)) {
+                    updated[i] = resolveDay(newWeekly, newOverrides, date);
+                }
+            }
+            return new MaterializedSchedule(newWeekly, newOverrides, from, updated, loadedAt);
+        }
+
+        MaterializedSchedule rollTo(LocalDate newFrom, int horizonDays,
+                                    Map<LocalDate, List<AvailabilityOverride>> newOverrides) {
+            DaySchedule[] rolled = new DaySchedule[horizonDays];
+            for (int i = 0; i < horizonDays; i++) {
+                LocalDate date = newFrom.plusDays(i);
+                DaySchedule existing = day(date);
+                rolled[i] = existing != null ? existing : resolveDay(weekly, newOverrides, date);
+            }
+            return new MaterializedSchedule(weekly, newOverrides, newFrom, rolled, loadedAt);
+        }
+
+        static DaySchedule resolveDay(Map<DayOfWeek, List<ScheduleRules.Window>> weekly,
+                                              Map<LocalDate, List<AvailabilityOverride>> overrides,
+                                              LocalDate date) {
+            return DaySchedule.of(ScheduleRules.resolve(
+                    weekly.getOrDefault(date.getDayOfWeek(), List.of()),
+                    overrides.getOrDefault(date, List.of())));
+        }
+    }
+}
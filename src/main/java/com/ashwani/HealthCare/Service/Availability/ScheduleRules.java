@@ -0,0 +1,219 @@
+package com.ashwani.HealthCare.Service.Availability;
+
+import com.ashwani.HealthCare.Entity.AvailabilityOverride;
+import com.ashwani.HealthCare.Entity.DoctorAvailability;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pure functions that turn weekly availability rules and dated overrides into
+ * the open windows of a concrete day, and open windows into slot bitmaps.
+ *
+ * Slots are 30 minutes on a half-hour grid, so a day fits in one long:
+ * bit i represents the slot starting at i * 30 minutes after midnight.
+ * Appointments start on the grid and may be 15, 30, 45 or 60 minutes long;
+ * an appointment occupies every slot its interval touches, and its whole
+ * interval must lie inside the day's open windows.
+ */
+public final class ScheduleRules {
+    public static final int SLOT_MINUTES = 30;
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int SLOTS_PER_DAY = MINUTES_PER_DAY / SLOT_MINUTES;
+    public static final int DEFAULT_DURATION_MINUTES = 30;
+    public static final Set<Integer> DURATIONS = Set.of(15, 30, 45, 60);
+
+    private ScheduleRules() {
+    }
+
+    /**
+     * Open interval of a day; a slot is offered while its start is before the window end
+     */
+    public record Window(LocalTime start, LocalTime end) {
+        public boolean contains(LocalTime time) {
+            return !time.isBefore(start) && time.isBefore(end);
+        }
+    }
+
+    /**
+     * Group available weekly rows into windows per day of week, in start-time order
+     */
+    public static Map<DayOfWeek, List<Window>> weeklyWindows(List<DoctorAvailability> availabilities) {
+        Map<DayOfWeek, List<Window>> weekly = new EnumMap<>(DayOfWeek.class);
+        for (DoctorAvailability availability : availabilities) {
+            if (!availability.getIsAvailable()) continue;
+            weekly.computeIfAbsent(availability.getDayOfWeek(), day -> new ArrayList<>())
+                    .add(new Window(availability.getStartTime(), availability.getEndTime()));
+        }
+        weekly.replaceAll((day, windows) -> sorted(windows));
+        return weekly;
+    }
+
+    /**
+     * Apply the overrides of one date to that weekday's windows:
+     * a full-day block wins, extra windows are added, blocked windows are cut out
+     */
+    public static List<Window> resolve(List<Window> weekly, List<AvailabilityOverride> overrides) {
+        if (overrides.isEmpty()) {
+            return weekly;
+        }
+
+        List<Window> open = new ArrayList<>(weekly);
+        for (AvailabilityOverride override : overrides) {
+            if (override.getIsAvailable()) {
+                open.add(new Window(override.getStartTime(), override.getEndTime()));
+            }
+        }
+        for (AvailabilityOverride override : overrides) {
+            if (override.getIsAvailable()) continue;
+            if (override.getStartTime() == null) {
+                return List.of();
+            }
+            open = subtract(open, override.getStartTime(), override.getEndTime());
+        }
+        return sorted(open);
+    }
+
+    /**
+     * Bitmap of slot starts offered by the windows
+     * @return The mask, or null if a window does not start on the half-hour grid
+     */
+    public static Long toSlotMask(List<Window> windows) {
+        long mask = 0L;
+        for (Window window : windows) {
+            int first = slotIndex(window.start());
+            if (first < 0) {
+                return null;
+            }
+            int endMinutes = window.end().toSecondOfDay() / 60;
+            int last = Math.min(SLOTS_PER_DAY, (endMinutes + SLOT_MINUTES - 1) / SLOT_MINUTES);
+            if (last > first) {
+                mask |= rangeMask(first, last);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Maps a start time onto the half-hour grid
+     * @return Slot index, or -1 if the time is not on a slot boundary
+     */
+    public static int slotIndex(LocalTime time) {
+        int seconds = time.toSecondOfDay();
+        if (seconds % (SLOT_MINUTES * 60) != 0) {
+            return -1;
+        }
+        return seconds / (SLOT_MINUTES * 60);
+    }
+
+    /**
+     * Bitmap of the slots touched by the half-open minute interval [startMinute, endMinute),
+     * including slots that are only partially covered
+     */
+    public static long touchedMask(int startMinute, int endMinute) {
+        int first = startMinute / SLOT_MINUTES;
+        int last = Math.min(SLOTS_PER_DAY, (endMinute + SLOT_MINUTES - 1) / SLOT_MINUTES);
+        return last > first ? rangeMask(first, last) : 0L;
+    }
+
+    /**
+     * Resolve a requested appointment length
+     * @param requested Requested minutes, or null for the default length
+     * @throws IllegalArgumentException if the start is off the half-hour grid, the length is not
+     *         supported or the appointment would run past midnight
+     */
+    public static int durationMinutes(Integer requested, LocalTime startTime) {
+        requireOnGrid(startTime);
+        int duration = requested != null ? requested : DEFAULT_DURATION_MINUTES;
+        if (!DURATIONS.contains(duration)) {
+            throw new IllegalArgumentException("durationMinutes must be one of 15, 30, 45 or 60");
+        }
+        if (minuteOfDay(startTime) + duration > MINUTES_PER_DAY) {
+            throw new IllegalArgumentException("Appointment cannot run past midnight");
+        }
+        return duration;
+    }
+
+    /**
+     * Appointments must start on a slot boundary: slot claims are keyed by grid slot,
+     * so an off-grid start would never collide with the claims of an overlapping booking
+     * @throws IllegalArgumentException if the time is not on the half-hour grid
+     */
+    public static void requireOnGrid(LocalTime startTime) {
+        if (slotIndex(startTime) < 0) {
+            throw new IllegalArgumentException("startTime must be on the half-hour grid (e.g. 10:00 or 10:30)");
+        }
+    }
+
+    /**
+     * Whether the windows cover the whole interval [startTime, startTime + durationMinutes);
+     * windows that touch or overlap count as one continuous window
+     */
+    public static boolean isOffered(List<Window> windows, LocalTime startTime, int durationMinutes) {
+        int start = minuteOfDay(startTime);
+        int end = start + durationMinutes;
+        int coveredUntil = start;
+        for (Window window : sorted(windows)) {
+            if (minuteOfDay(window.start()) <= coveredUntil) {
+                coveredUntil = Math.max(coveredUntil, endMinute(window.start(), window.end()));
+                if (coveredUntil >= end) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Number of slots an appointment of this length starting on a slot boundary occupies
+     */
+    public static int slotCount(int durationMinutes) {
+        return (durationMinutes + SLOT_MINUTES - 1) / SLOT_MINUTES;
+    }
+
+    public static int minuteOfDay(LocalTime time) {
+        return time.toSecondOfDay() / 60;
+    }
+
+    /**
+     * End minute of a stored interval; an end at or before the start is midnight of the next day
+     */
+    public static int endMinute(LocalTime start, LocalTime end) {
+        int endMinute = minuteOfDay(end);
+        return endMinute <= minuteOfDay(start) ? MINUTES_PER_DAY : endMinute;
+    }
+
+    private static List<Window> subtract(List<Window> windows, LocalTime blockStart, LocalTime blockEnd) {
+        List<Window> remaining = new ArrayList<>(windows.size() + 1);
+        for (Window window : windows) {
+            if (!blockStart.isBefore(window.end()) || !blockEnd.isAfter(window.start())) {
+                remaining.add(window);
+                continue;
+            }
+            if (blockStart.isAfter(window.start())) {
+                remaining.add(new Window(window.start(), blockStart));
+            }
+            if (blockEnd.isBefore(window.end())) {
+                remaining.add(new Window(blockEnd, window.end()));
+            }
+        }
+        return remaining;
+    }
+
+    private static List<Window> sorted(List<Window> windows) {
+        List<Window> copy = new ArrayList<>(windows);
+        copy.sort(Comparator.comparing(Window::start));
+        return List.copyOf(copy);
+    }
+
+    private static long rangeMask(int fromInclusive, int toExclusive) {
+        long upper = toExclusive >= Long.SIZE ? -1L : (1L << toExclusive) - 1;
+        return upper & ~((1L << fromInclusive) - 1);
+    }
+}
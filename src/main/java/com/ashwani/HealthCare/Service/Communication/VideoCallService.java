@@ -13,6 +13,7 @@ import com.ashwani.HealthCare.Repository.AppointmentRepository;
 import com.ashwani.HealthCare.Repository.TwilioWebhookEventRepository;
 import com.ashwani.HealthCare.Repository.VideoCallEventRepository;
 import com.ashwani.HealthCare.Repository.VideoCallSessionsRepository;
+import com.ashwani.HealthCare.Service.Webhook.WebhookDeduplicator;
 import com.twilio.jwt.accesstoken.AccessToken;
 import com.twilio.jwt.accesstoken.VideoGrant;
 import com.twilio.rest.video.v1.Room;
@@ -211,8 +212,9 @@ public class VideoCallService {
             return;
         }
 
-        // Save webhook event
-        TwilioWebhookEvent savedEvent = twilioWebhookEventRepository.save(twilioWebhookEvent);
+        // Save webhook event; flushed now so a duplicate event key fails before any processing.
+        // The row commits only if processing succeeds, so a failed event is not recorded as seen
+        TwilioWebhookEvent savedEvent = twilioWebhookEventRepository.saveAndFlush(twilioWebhookEvent);
 
         try {
             Long appointmentId = Long.parseLong(savedEvent.getRoomSid().substring("healthcare-".length()));
@@ -245,11 +247,27 @@ public class VideoCallService {
             savedEvent.setProcessed(true);
             savedEvent.setProcessedAt(LocalDateTime.now());
             twilioWebhookEventRepository.save(savedEvent);
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
+            // Rethrown so the event row (and its dedup key) rolls back and Twilio's retry is processed
             log.error("Error processing Twilio webhook event: {}", e.getMessage(), e);
+            throw e;
         }
     }
 
+    /**
+     * Idempotency key of a Twilio callback. Twilio sends no event id, so the key is a
+     * hash of the fields that identify the event; a retried callback repeats all of them.
+     */
+    public static String twilioEventKey(TwilioWebhookEvent event) {
+        return WebhookDeduplicator.hash(
+                event.getRoomSid(),
+                event.getEventType(),
+                event.getParticipantSid(),
+                event.getTrackSid(),
+                event.getRecordingSid(),
+                event.getEventData() == null ? null : event.getEventData().toString());
+    }
+
     private String generateAccessToken(Long userId, String roomName, String userType) {
         String identity = userType + "-" + userId;
 
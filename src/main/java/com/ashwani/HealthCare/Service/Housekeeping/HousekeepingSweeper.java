@@ -0,0 +1,99 @@
+package com.ashwani.HealthCare.Service.Housekeeping;
+
+import com.ashwani.HealthCare.Repository.AppointmentHoldRepository;
+import com.ashwani.HealthCare.Repository.PasswordResetTokenRepository;
+import com.ashwani.HealthCare.Repository.PaymentWebhookInboxRepository;
+import com.ashwani.HealthCare.Repository.SlotClaimRepository;
+import com.ashwani.HealthCare.Repository.TwilioWebhookEventRepository;
+import com.ashwani.HealthCare.Utility.KeysetBatches;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Periodically deletes rows that are no longer needed:
+ * - Expired appointment holds and lapsed hold slot claims
+ * - Expired or used password reset tokens
+ * - Processed Twilio webhook events and payment webhook inbox rows past the retention period
+ *
+ * Each table is swept in bounded batches (KeysetBatches): the next batch of eligible
+ * ids is read in ascending order and deleted as one id range in its own short
+ * transaction, so a large backlog never holds long locks. Rows deleted and time taken are
+ * published per table as housekeeping.rows.deleted and housekeeping.sweep metrics.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HousekeepingSweeper {
+    private final AppointmentHoldRepository appointmentHoldRepository;
+    private final SlotClaimRepository slotClaimRepository;
+    private final PasswordResetTokenRepository passwordResetTokenRepository;
+    private final TwilioWebhookEventRepository twilioWebhookEventRepository;
+    private final PaymentWebhookInboxRepository paymentWebhookInboxRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${housekeeping.batch-size:500}")
+    private int batchSize;
+
+    @Value("${housekeeping.webhook-retention-days:30}")
+    private int webhookRetentionDays;
+
+    /**
+     * Run all sweeps - every 15 minutes by default
+     */
+    @Scheduled(fixedDelayString = "${housekeeping.sweep-interval-ms:900000}",
+               initialDelayString = "${housekeeping.initial-delay-ms:60000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime webhookCutoff = now.minusDays(webhookRetentionDays);
+
+        long deleted = sweepTable("appointment_hold",
+                page -> appointmentHoldRepository.findExpiredIds(now, page),
+                (fromId, toId) -> appointmentHoldRepository.deleteExpiredInRange(fromId, toId, now));
+        deleted += sweepTable("slot_claims",
+                page -> slotClaimRepository.findExpiredIds(now, page),
+                (fromId, toId) -> slotClaimRepository.deleteExpiredInRange(fromId, toId, now));
+        deleted += sweepTable("password_reset_tokens",
+                page -> passwordResetTokenRepository.findExpiredOrUsedIds(now, page),
+                (fromId, toId) -> passwordResetTokenRepository.deleteExpiredOrUsedInRange(fromId, toId, now));
+        deleted += sweepTable("twilio_webhook_events",
+                page -> twilioWebhookEventRepository.findProcessedIdsBefore(webhookCutoff, page),
+                (fromId, toId) -> twilioWebhookEventRepository.deleteProcessedInRange(fromId, toId, webhookCutoff));
+        deleted += sweepTable("payment_webhook_inbox",
+                page -> paymentWebhookInboxRepository.findProcessedIdsBefore(webhookCutoff, page),
+                (fromId, toId) -> paymentWebhookInboxRepository.deleteProcessedInRange(fromId, toId, webhookCutoff));
+
+        if (deleted > 0) {
+            log.info("🧹 Housekeeping sweep deleted {} rows", deleted);
+        }
+    }
+
+    /**
+     * Delete eligible rows of one table batch by batch until a short batch is seen
+     * @return Number of rows deleted
+     */
+    private long sweepTable(String table, Function<Pageable, List<Long>> nextIds, KeysetBatches.RangeAction rangeDelete) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        LongAdder deleted = new LongAdder();
+        try {
+            KeysetBatches.run(batchSize, nextIds, rangeDelete, deleted::add);
+        } catch (RuntimeException e) {
+            log.error("Housekeeping sweep of {} failed after deleting {} rows", table, deleted.sum(), e);
+        } finally {
+            sample.stop(meterRegistry.timer("housekeeping.sweep", "table", table));
+            meterRegistry.counter("housekeeping.rows.deleted", "table", table).increment(deleted.sum());
+        }
+        log.debug("Housekeeping swept {} rows from {}", deleted.sum(), table);
+        return deleted.sum();
+    }
+}
@@ -0,0 +1,263 @@
+package com.ashwani.HealthCare.Service.Outbox;
+
+import com.ashwani.HealthCare.Entity.OutboxMessage;
+import com.ashwani.HealthCare.Repository.OutboxMessageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.MessagePropertiesBuilder;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes outbox messages to RabbitMQ with at-least-once delivery.
+ *
+ * Each round has three steps, and no database transaction is open during network I/O:
+ * 1. Claim: a short transaction locks the next due rows (SKIP LOCKED) and leases
+ *    them by pushing available_at past the confirm timeout, so other relays skip them
+ * 2. Publish: the batch is sent as persistent, mandatory messages, and the relay
+ *    waits for the broker's publisher confirm of each one
+ * 3. Settle: a short transaction deletes the confirmed rows and reschedules the
+ *    rest with a linear, capped backoff
+ *
+ * If the relay dies between publish and settle, the lease runs out and the rows are
+ * published again. Consumers therefore have to be idempotent; every message carries
+ * a stable message id. The relay wakes up when a message is committed on this
+ * instance, and otherwise polls.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final String TYPE_ID_HEADER = "__TypeId__";
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final Duration confirmTimeout;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+
+    private final Semaphore wakeups = new Semaphore(0);
+    private final AtomicLong pending = new AtomicLong();
+    private final ExecutorService relayThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running;
+
+    public OutboxRelay(OutboxMessageRepository outboxMessageRepository,
+                       RabbitTemplate rabbitTemplate,
+                       MeterRegistry meterRegistry,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${outbox.relay.poll-interval-ms:1000}") long pollIntervalMillis,
+                       @Value("${outbox.relay.confirm-timeout-ms:10000}") long confirmTimeoutMillis,
+                       @Value("${outbox.relay.retry-backoff-ms:5000}") long retryBackoffMillis,
+                       @Value("${outbox.relay.max-retry-backoff-ms:300000}") long maxRetryBackoffMillis) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.confirmTimeout = Duration.ofMillis(confirmTimeoutMillis);
+        this.retryBackoff = Duration.ofMillis(retryBackoffMillis);
+        this.maxRetryBackoff = Duration.ofMillis(maxRetryBackoffMillis);
+        meterRegistry.gauge("outbox.pending", pending);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        relayThread.execute(this::runRelay);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        relayThread.shutdownNow();
+    }
+
+    /**
+     * Signal that a message was committed, so it is published without waiting for the next poll
+     */
+    public void wakeUp() {
+        wakeups.release();
+    }
+
+    /**
+     * Refresh the outbox depth gauge - runs every 15 seconds
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.metrics-interval-ms:15000}")
+    public void refreshMetrics() {
+        pending.set(outboxMessageRepository.countPending());
+    }
+
+    private void runRelay() {
+        while (running) {
+            try {
+                wakeups.tryAcquire(pollIntervalMillis, TimeUnit.MILLISECONDS);
+                // Keep relaying while batches come back full
+                while (running && relayBatch() == batchSize) {
+                    wakeups.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Claimed rows stay leased and are picked up again once the lease runs out
+                log.error("Outbox relay round failed", e);
+            }
+        }
+    }
+
+    /**
+     * Claim, publish and settle one batch
+     * @return Number of messages claimed
+     */
+    private int relayBatch() throws InterruptedException {
+        List<OutboxMessage> batch = claimBatch();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        Map<Long, CorrelationData> inFlight = new HashMap<>();
+        Map<Long, String> failed = new HashMap<>();
+        for (OutboxMessage message : batch) {
+            CorrelationData correlation = new CorrelationData(message.getMessageId());
+            try {
+                rabbitTemplate.send(rabbitTemplate.getExchange(), message.getRoutingKey(), toAmqpMessage(message), correlation);
+                inFlight.put(message.getId(), correlation);
+            } catch (AmqpException e) {
+                failed.put(message.getId(), "Publish failed: " + e.getMessage());
+            }
+        }
+
+        List<Long> confirmed = new ArrayList<>(inFlight.size());
+        long deadline = System.nanoTime() + confirmTimeout.toNanos();
+        for (Map.Entry<Long, CorrelationData> entry : inFlight.entrySet()) {
+            String error = awaitConfirm(entry.getValue(), deadline);
+            if (error == null) {
+                confirmed.add(entry.getKey());
+            } else {
+                failed.put(entry.getKey(), error);
+            }
+        }
+
+        settle(confirmed, failed);
+        sample.stop(meterRegistry.timer("outbox.relay.batch"));
+        meterRegistry.counter("outbox.relay.published").increment(confirmed.size());
+        meterRegistry.counter("outbox.relay.failed").increment(failed.size());
+        if (!failed.isEmpty()) {
+            log.warn("Outbox relay: {} of {} messages not confirmed, rescheduled", failed.size(), batch.size());
+        }
+        return batch.size();
+    }
+
+    private List<OutboxMessage> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessage> due = outboxMessageRepository.claimDue(now, PageRequest.of(0, batchSize));
+            // Lease past the confirm timeout; the rows are published again if this relay never settles them
+            LocalDateTime leasedUntil = now.plus(confirmTimeout.multipliedBy(2));
+            due.forEach(message -> message.setAvailableAt(leasedUntil));
+            return due;
+        });
+    }
+
+    /**
+     * @return null once the broker confirmed the message, otherwise the reason it was not
+     */
+    private String awaitConfirm(CorrelationData correlation, long deadlineNanos) throws InterruptedException {
+        try {
+            CorrelationData.Confirm confirm = correlation.getFuture()
+                    .get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (!confirm.isAck()) {
+                return "Nacked by broker: " + confirm.getReason();
+            }
+            if (correlation.getReturned() != null) {
+                return "Unroutable: " + correlation.getReturned().getReplyText();
+            }
+            return null;
+        } catch (TimeoutException e) {
+            return "No publisher confirm within " + confirmTimeout.toMillis() + " ms";
+        } catch (ExecutionException e) {
+            return "Confirm failed: " + e.getCause().getMessage();
+        }
+    }
+
+    private void settle(List<Long> confirmed, Map<Long, String> failed) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!confirmed.isEmpty()) {
+                outboxMessageRepository.deleteAllByIdInBatch(confirmed);
+            }
+            if (!failed.isEmpty()) {
+                LocalDateTime now = LocalDateTime.now();
+                for (OutboxMessage message : outboxMessageRepository.findAllById(failed.keySet())) {
+                    int attempts = message.getAttempts() + 1;
+                    Duration backoff = retryBackoff.multipliedBy(attempts);
+                    message.setAttempts(attempts);
+                    message.setAvailableAt(now.plus(backoff.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : backoff));
+                    message.setLastError(truncate(failed.get(message.getId())));
+                }
+            }
+        });
+    }
+
+    private static Message toAmqpMessage(OutboxMessage message) {
+        MessageProperties properties = MessagePropertiesBuilder.newInstance()
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setMessageId(message.getMessageId())
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                .setHeader(TYPE_ID_HEADER, message.getMessageType())
+                // Creation time, so consumers can measure end-to-end lag
+                .setTimestamp(Date.from(message.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant()))
+                .build();
+        if (message.getExpirationMillis() != null) {
+            properties.setExpiration(message.getExpirationMillis().toString());
+        }
+        return new Message(message.getPayload().getBytes(StandardCharsets.UTF_8), properties);
+    }
+
+    private static String truncate(String error) {
+        if (error == null) return null;
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
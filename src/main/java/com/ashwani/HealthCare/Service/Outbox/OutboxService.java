@@ -0,0 +1,67 @@
+package com.ashwani.HealthCare.Service.Outbox;
+
+import com.ashwani.HealthCare.Entity.OutboxMessage;
+import com.ashwani.HealthCare.Repository.OutboxMessageRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Records messages for RabbitMQ in the outbox table, inside the caller's transaction.
+ * The message becomes visible to OutboxRelay only if that transaction commits, so
+ * a message is published if and only if the change it announces is stored.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final OutboxRelay outboxRelay;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Add a message to the outbox
+     * @param routingKey Routing key on the default exchange (the queue name)
+     * @param event Payload, serialized as JSON
+     * @param expirationMillis Per-message TTL, or null for none
+     * @throws IllegalStateException if the payload cannot be serialized
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String routingKey, Object event, Long expirationMillis) {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxMessage message = new OutboxMessage();
+        message.setMessageId(UUID.randomUUID().toString());
+        message.setRoutingKey(routingKey);
+        message.setMessageType(event.getClass().getName());
+        message.setPayload(toJson(event));
+        message.setExpirationMillis(expirationMillis);
+        message.setCreatedAt(now);
+        message.setAvailableAt(now);
+        outboxMessageRepository.save(message);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxRelay.wakeUp();
+            }
+        });
+        log.debug("Queued {} message {} in the outbox", routingKey, message.getMessageId());
+    }
+
+    private String toJson(Object event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox message " + event.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -2,29 +2,59 @@ package com.ashwani.HealthCare.Service.Payment.Event;
 
 import com.ashwani.HealthCare.DTO.Payment.PaymentCompletedEvent;
 import com.ashwani.HealthCare.Entity.Appointment;
-import com.ashwani.HealthCare.Entity.AppointmentHold;
 import com.ashwani.HealthCare.ExceptionHandlers.common.ResourceNotFoundException;
 import com.ashwani.HealthCare.ExceptionHandlers.token.TokenExpiredException;
-import com.ashwani.HealthCare.Repository.AppointmentHoldRepository;
 import com.ashwani.HealthCare.Repository.AppointmentRepository;
+import com.ashwani.HealthCare.Service.Appointment.AppointmentHoldManager;
+import com.ashwani.HealthCare.Service.Appointment.AppointmentHoldWriter;
 import com.ashwani.HealthCare.Service.Appointment.AppointmentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.Queue;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * Books appointments for payment.completed messages.
+ *
+ * Messages arrive in batches on several concurrent consumers (see
+ * paymentCompletedListenerContainerFactory) and are acknowledged manually. A message
+ * that fails is handed to PaymentEventRecoverer, which parks it for a delayed retry
+ * or dead-letters it; it is acked only after that copy is confirmed. If the copy
+ * cannot be stored, the delivery is rejected and requeued instead. Once the batch
+ * is handled, a single ack covers every settled message in it.
+ *
+ * Metrics:
+ * - payment.completed.consumer.messages: messages handled, tagged by outcome
+ * - payment.completed.consumer.processing: time to handle one message
+ * - payment.completed.consumer.lag: time from payment commit to handling
+ * - payment.completed.consumer.batch.size: messages per delivered batch
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentEventListener {
 
     private final AppointmentService appointmentService;
-    private final AppointmentHoldRepository appointmentHoldRepository;
+    private final AppointmentHoldManager appointmentHoldManager;
+    private final AppointmentHoldWriter appointmentHoldWriter;
     private final AppointmentRepository appointmentRepository;
+    private final PaymentEventRecoverer paymentEventRecoverer;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
 
     /**
      * Dynamically declare and listen to the payment.completed queue.
@@ -44,54 +74,95 @@ public class PaymentEventListener {
             durable = "true"
         ),
         autoStartup = "true",
-        containerFactory = "rabbitListenerContainerFactory"
+        containerFactory = "paymentCompletedListenerContainerFactory"
     )
-    public void handlePaymentCompletedEvent(PaymentCompletedEvent event) {
-        try {
-            // 0. IDEMPOTENCY CHECK: Check if appointment already exists for this payment
-            Optional<Appointment> existingAppointment = appointmentRepository.findByPaymentId(event.getPaymentId());
-            if (existingAppointment.isPresent()) {
-                log.info("⚠️ IDEMPOTENCY: Appointment already exists for payment {} (appointmentId: {}). Skipping duplicate creation.",
-                        event.getOrderId(), existingAppointment.get().getId());
-                return; // Acknowledge message and skip processing
+    public void handlePaymentCompletedEvents(List<Message> messages, Channel channel) throws IOException {
+        meterRegistry.summary("payment.completed.consumer.batch.size").record(messages.size());
+        long lastSettledTag = -1;
+        for (Message message : messages) {
+            long deliveryTag = message.getMessageProperties().getDeliveryTag();
+            recordLag(message);
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome;
+            try {
+                outcome = handlePaymentCompletedEvent(objectMapper.readValue(message.getBody(), PaymentCompletedEvent.class));
+            } catch (Exception e) {
+                try {
+                    outcome = paymentEventRecoverer.recover(message, e);
+                } catch (AmqpException recoveryError) {
+                    log.error("Could not park failed payment.completed message {}, requeueing it",
+                            message.getMessageProperties().getMessageId(), recoveryError);
+                    channel.basicNack(deliveryTag, false, true);
+                    outcome = "requeued";
+                }
             }
+            sample.stop(meterRegistry.timer("payment.completed.consumer.processing", "outcome", outcome));
+            meterRegistry.counter("payment.completed.consumer.messages", "outcome", outcome).increment();
+            if (!"requeued".equals(outcome)) {
+                lastSettledTag = Math.max(lastSettledTag, deliveryTag);
+            }
+        }
+        // Requeued deliveries are already settled, so one multiple-ack covers the rest of the batch
+        if (lastSettledTag >= 0) {
+            channel.basicAck(lastSettledTag, true);
+        }
+    }
 
-            // 1. Get appointment details from hold service
-            AppointmentHold hold = appointmentHoldRepository.findByHoldReference(event.getAppointmentHoldReference())
-                    .orElseThrow(() -> new ResourceNotFoundException("Appointment hold",
-                            event.getAppointmentHoldReference()));
+    /**
+     * Book the appointment held for a completed payment
+     * @return "booked", or "duplicate" if the payment already has an appointment
+     */
+    private String handlePaymentCompletedEvent(PaymentCompletedEvent event) {
+        // 0. IDEMPOTENCY CHECK: Check if appointment already exists for this payment
+        Optional<Appointment> existingAppointment = appointmentRepository.findByPaymentId(event.getPaymentId());
+        if (existingAppointment.isPresent()) {
+            log.info("⚠️ IDEMPOTENCY: Appointment already exists for payment {} (appointmentId: {}). Skipping duplicate creation.",
+                    event.getOrderId(), existingAppointment.get().getId());
+            return "duplicate"; // Acknowledge message and skip processing
+        }
 
-            // 2. Check if hold is still valid
-            if (hold.getExpiresAt().isBefore(LocalDateTime.now())) {
-                log.error("Appointment hold expired: {}", event.getAppointmentHoldReference());
-                throw new TokenExpiredException("Appointment hold has expired", "APPOINTMENT_HOLD");
-            }
+        // 1. Get appointment details from hold service
+        AppointmentHoldManager.ActiveHold hold = appointmentHoldManager.findHold(event.getAppointmentHoldReference())
+                .orElseThrow(() -> new ResourceNotFoundException("Appointment hold",
+                        event.getAppointmentHoldReference()));
 
-            // 3. Convert customerId to Long
-            Long patientId = Long.parseLong(event.getCustomerId());
+        // 2. Check if hold is still valid
+        if (hold.isExpired(LocalDateTime.now())) {
+            log.error("Appointment hold expired: {}", event.getAppointmentHoldReference());
+            throw new TokenExpiredException("Appointment hold has expired", "APPOINTMENT_HOLD");
+        }
 
-            // 4. Call bookAppointment with hold reference to skip duplicate slot check
-            // The slot was already validated during hold creation, so we can safely book it
-            Appointment appointment = appointmentService.bookAppointment(
-                    patientId,
-                    hold.getDoctorId(),
-                    hold.getDate(),
-                    hold.getStartTime(),
-                    hold.getReason(),
-                    event.getPaymentId(),
-                    event.getAppointmentHoldReference()  // Pass hold reference
-            );
+        // 3. Convert customerId to Long
+        Long patientId = Long.parseLong(event.getCustomerId());
 
-            // 5. Clean up the hold
-            appointmentHoldRepository.deleteById(hold.getId());
+        // 4. Call bookAppointment with hold reference to skip duplicate slot check
+        // The slot was already validated during hold creation, so we can safely book it
+        Appointment appointment = appointmentService.bookAppointment(
+                patientId,
+                hold.doctorId(),
+                hold.date(),
+                hold.startTime(),
+                hold.durationMinutes(),
+                hold.reason(),
+                event.getPaymentId(),
+                event.getAppointmentHoldReference()  // Pass hold reference
+        );
 
-            log.info("✅ Successfully created appointment {} for payment {} from hold {}",
-                    appointment.getId(), event.getOrderId(), event.getAppointmentHoldReference());
+        // 5. Clean up the hold
+        appointmentHoldManager.remove(hold.holdReference());
+        appointmentHoldWriter.delete(hold.holdReference());
+
+        log.info("✅ Successfully created appointment {} for payment {} from hold {}",
+                appointment.getId(), event.getOrderId(), event.getAppointmentHoldReference());
+        return "booked";
+    }
 
-        } catch (Exception e) {
-            log.error("FAILED to create appointment for payment {}: {}",
-                    event.getOrderId(), e.getMessage());
-            // Implement retry or DLQ logic
+    private void recordLag(Message message) {
+        // The outbox relay stamps each message with the time the payment was committed
+        Date timestamp = message.getMessageProperties().getTimestamp();
+        if (timestamp != null) {
+            long lagMillis = Math.max(0, System.currentTimeMillis() - timestamp.getTime());
+            meterRegistry.timer("payment.completed.consumer.lag").record(Duration.ofMillis(lagMillis));
         }
     }
 }
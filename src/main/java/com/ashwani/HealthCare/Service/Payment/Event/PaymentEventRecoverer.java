@@ -0,0 +1,230 @@
+package com.ashwani.HealthCare.Service.Payment.Event;
+
+import com.ashwani.HealthCare.ExceptionHandlers.appointment.SlotNotAvailableException;
+import com.ashwani.HealthCare.ExceptionHandlers.common.ResourceNotFoundException;
+import com.ashwani.HealthCare.ExceptionHandlers.token.TokenExpiredException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.rabbitmq.client.GetResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.ashwani.HealthCare.Config.RabbitMQConfig.PAYMENT_COMPLETED_DLQ;
+import static com.ashwani.HealthCare.Config.RabbitMQConfig.PAYMENT_COMPLETED_QUEUE;
+import static com.ashwani.HealthCare.Config.RabbitMQConfig.paymentCompletedRetryQueue;
+
+/**
+ * Retry, dead-letter and replay handling for payment.completed messages.
+ *
+ * A failed message is republished to the retry queue of its attempt (delays grow
+ * per attempt, see payment.completed-consumer.retry-delays-ms) and comes back to
+ * payment.completed when that queue's TTL expires. Failures that a retry cannot fix
+ * (missing or expired hold, slot taken, unreadable payload), and messages that ran
+ * out of retries, go to payment.completed.dlq with the error in their headers.
+ * Every republish waits for the publisher confirm, so the caller only acks the
+ * original delivery once the copy is safely stored.
+ *
+ * Metrics:
+ * - payment.completed.queue.depth / payment.completed.queue.consumers: ready messages and consumers on payment.completed
+ * - payment.completed.dlq.depth: messages waiting for replay
+ */
+@Component
+@Slf4j
+public class PaymentEventRecoverer {
+    public static final String RETRY_COUNT_HEADER = "x-retry-count";
+    private static final String EXCEPTION_TYPE_HEADER = "x-exception-type";
+    private static final String EXCEPTION_MESSAGE_HEADER = "x-exception-message";
+    private static final String FAILED_AT_HEADER = "x-failed-at";
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private static final Set<Class<? extends Exception>> NON_RETRYABLE = Set.of(
+            ResourceNotFoundException.class,
+            TokenExpiredException.class,
+            SlotNotAvailableException.class,
+            JsonProcessingException.class,
+            NumberFormatException.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final RabbitAdmin rabbitAdmin;
+    private final long[] retryDelays;
+    private final long confirmTimeoutMillis;
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final AtomicLong queueConsumers = new AtomicLong();
+    private final AtomicLong deadLetterDepth = new AtomicLong();
+
+    public PaymentEventRecoverer(RabbitTemplate rabbitTemplate,
+                                 RabbitAdmin rabbitAdmin,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${payment.completed-consumer.retry-delays-ms:5000,30000,120000}") long[] retryDelays,
+                                 @Value("${payment.completed-consumer.confirm-timeout-ms:5000}") long confirmTimeoutMillis) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.rabbitAdmin = rabbitAdmin;
+        this.retryDelays = retryDelays;
+        this.confirmTimeoutMillis = confirmTimeoutMillis;
+        meterRegistry.gauge("payment.completed.queue.depth", queueDepth);
+        meterRegistry.gauge("payment.completed.queue.consumers", queueConsumers);
+        meterRegistry.gauge("payment.completed.dlq.depth", deadLetterDepth);
+    }
+
+    /**
+     * Park a failed message in its next retry queue, or dead-letter it
+     * @param message The delivery that failed
+     * @param error Why it failed
+     * @return "retried" or "dead_lettered", used as the metrics outcome
+     * @throws AmqpException if the copy was not confirmed; the delivery must then be requeued
+     */
+    public String recover(Message message, Exception error) {
+        int retries = retryCount(message);
+        if (isRetryable(error) && retries < retryDelays.length) {
+            long delay = retryDelays[retries];
+            Message retry = MessageBuilder.fromClonedMessage(message)
+                    .setHeader(RETRY_COUNT_HEADER, retries + 1)
+                    .build();
+            publishConfirmed(paymentCompletedRetryQueue(delay), retry);
+            log.warn("payment.completed message {} failed (attempt {}), retrying in {} ms: {}",
+                    message.getMessageProperties().getMessageId(), retries + 1, delay, error.getMessage());
+            return "retried";
+        }
+
+        Message deadLetter = MessageBuilder.fromClonedMessage(message)
+                .setHeader(RETRY_COUNT_HEADER, retries)
+                .setHeader(EXCEPTION_TYPE_HEADER, error.getClass().getName())
+                .setHeader(EXCEPTION_MESSAGE_HEADER, truncate(error.getMessage()))
+                .setHeader(FAILED_AT_HEADER, Instant.now().toString())
+                .build();
+        // Dead letters wait for an operator, so they must not expire
+        deadLetter.getMessageProperties().setExpiration(null);
+        publishConfirmed(PAYMENT_COMPLETED_DLQ, deadLetter);
+        log.error("payment.completed message {} dead-lettered after {} retries: {}",
+                message.getMessageProperties().getMessageId(), retries, error.getMessage());
+        return "dead_lettered";
+    }
+
+    /**
+     * Move dead-lettered messages back to payment.completed with a fresh retry budget.
+     * Each message is acked on the DLQ only after its copy is confirmed; the replay
+     * stops at the first message that cannot be republished.
+     * @param limit Maximum number of messages to replay
+     * @return Number of messages replayed
+     */
+    public int replayDeadLetters(int limit) {
+        int replayed = 0;
+        while (replayed < limit && replayOne()) {
+            replayed++;
+        }
+        log.info("Replayed {} dead-lettered payment.completed messages", replayed);
+        return replayed;
+    }
+
+    /**
+     * @return false once the DLQ is empty
+     */
+    private boolean replayOne() {
+        Boolean replayed = rabbitTemplate.execute(channel -> {
+            GetResponse response = channel.basicGet(PAYMENT_COMPLETED_DLQ, false);
+            if (response == null) {
+                return false;
+            }
+            long deliveryTag = response.getEnvelope().getDeliveryTag();
+            try {
+                MessageProperties properties = propertiesConverter.toMessageProperties(
+                        response.getProps(), response.getEnvelope(), StandardCharsets.UTF_8.name());
+                properties.getHeaders().remove(RETRY_COUNT_HEADER);
+                properties.getHeaders().remove(EXCEPTION_TYPE_HEADER);
+                properties.getHeaders().remove(EXCEPTION_MESSAGE_HEADER);
+                properties.getHeaders().remove(FAILED_AT_HEADER);
+                publishConfirmed(PAYMENT_COMPLETED_QUEUE, new Message(response.getBody(), properties));
+                channel.basicAck(deliveryTag, false);
+                return true;
+            } catch (RuntimeException e) {
+                // Leave it on the DLQ for the next replay
+                channel.basicNack(deliveryTag, false, true);
+                throw e;
+            }
+        });
+        return Boolean.TRUE.equals(replayed);
+    }
+
+    /**
+     * @return Number of messages waiting in payment.completed.dlq
+     */
+    public long deadLetterCount() {
+        QueueInformation info = rabbitAdmin.getQueueInfo(PAYMENT_COMPLETED_DLQ);
+        return info == null ? 0 : info.getMessageCount();
+    }
+
+    /**
+     * Refresh the queue depth and consumer gauges - runs every 15 seconds
+     */
+    @Scheduled(fixedDelayString = "${payment.completed-consumer.metrics-interval-ms:15000}")
+    public void refreshMetrics() {
+        try {
+            QueueInformation queue = rabbitAdmin.getQueueInfo(PAYMENT_COMPLETED_QUEUE);
+            if (queue != null) {
+                queueDepth.set(queue.getMessageCount());
+                queueConsumers.set(queue.getConsumerCount());
+            }
+            deadLetterDepth.set(deadLetterCount());
+        } catch (AmqpException e) {
+            log.warn("Could not refresh payment.completed queue metrics: {}", e.getMessage());
+        }
+    }
+
+    private void publishConfirmed(String queue, Message message) {
+        CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+        rabbitTemplate.send("", queue, message, correlation);
+        try {
+            CorrelationData.Confirm confirm = correlation.getFuture().get(confirmTimeoutMillis, TimeUnit.MILLISECONDS);
+            if (!confirm.isAck()) {
+                throw new AmqpException("Republish to " + queue + " nacked by broker: " + confirm.getReason());
+            }
+            if (correlation.getReturned() != null) {
+                throw new AmqpException("Republish to " + queue + " unroutable: " + correlation.getReturned().getReplyText());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted waiting for publisher confirm", e);
+        } catch (TimeoutException e) {
+            throw new AmqpException("No publisher confirm from " + queue + " within " + confirmTimeoutMillis + " ms", e);
+        } catch (ExecutionException e) {
+            throw new AmqpException("Publisher confirm failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static int retryCount(Message message) {
+        Object value = message.getMessageProperties().getHeaders().get(RETRY_COUNT_HEADER);
+        return value instanceof Number number ? number.intValue() : 0;
+    }
+
+    private static boolean isRetryable(Exception error) {
+        return NON_RETRYABLE.stream().noneMatch(type -> type.isInstance(error));
+    }
+
+    private static String truncate(String error) {
+        if (error == null) return null;
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
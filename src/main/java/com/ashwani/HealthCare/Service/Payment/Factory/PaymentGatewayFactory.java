@@ -1,43 +1,177 @@
 package com.ashwani.HealthCare.Service.Payment.Factory;
 
+import com.ashwani.HealthCare.DTO.Payment.GatewayHealth;
+import com.ashwani.HealthCare.Service.Payment.Gateway.GatewayCallExecutor;
 import com.ashwani.HealthCare.Service.Payment.Gateway.PaymentGateway;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.annotation.Profile;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
 /**
  * Payment Gateway Factory
- * Returns the active payment gateway based on Spring profile
+ * Routes new orders across all live payment gateways and resolves the gateway
+ * that owns an existing order.
+ *
+ * Gateway beans:
+ * - CashfreePaymentGateway: always (all payment modes)
+ * - PaytmPaymentGateway: when paytm.merchant.id is configured (UPI only)
+ * - StubPaymentGateway: profile stub
+ * payment.routing.gateways limits new orders to the listed gateway names (empty means all);
+ * gateways left out still handle the webhooks and status checks of their existing orders.
  *
- * Profile-based gateway selection:
- * - dev, docker: CashfreePaymentGateway (all payment modes)
- * - prod: PaytmPaymentGateway (UPI only)
+ * Routing for new orders (routeNewOrder): only gateways that support the requested
+ * payment mode are candidates (Paytm takes UPI orders only). Each is weighted by its recent
+ * health from GatewayCallExecutor:
+ *   weight = successRate^4 * min(1, target-p95-ms / p95)
+ * with a floor of min-weight, so a degraded gateway still gets a trickle of traffic
+ * and its health is re-measured. Gateways whose circuit breaker is open are left out
+ * while any other gateway is available. The candidates are returned in weighted
+ * random order: the first one gets most orders, the rest are the failover order.
  *
- * The appropriate gateway bean is automatically injected by Spring
- * based on the @Profile annotation on each gateway implementation.
+ * Webhooks and order-status lookups go to the gateway that created the order
+ * (getGateway by name), never to the routed one.
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class PaymentGatewayFactory {
 
-    private final PaymentGateway paymentGateway;
+    private final Map<String, PaymentGateway> gatewaysByName;
+    private final List<PaymentGateway> routable;
+    private final PaymentGateway defaultGateway;
+    private final GatewayCallExecutor gatewayCallExecutor;
+    private final double targetP95Millis;
+    private final double minWeight;
+
+    public PaymentGatewayFactory(List<PaymentGateway> gateways,
+                                 GatewayCallExecutor gatewayCallExecutor,
+                                 @Value("${payment.routing.gateways:}") Set<String> enabledGateways,
+                                 @Value("${payment.routing.default-gateway:Cashfree}") String defaultGatewayName,
+                                 @Value("${payment.routing.target-p95-ms:2000}") double targetP95Millis,
+                                 @Value("${payment.routing.min-weight:0.01}") double minWeight) {
+        Set<String> enabled = enabledGateways.stream()
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .map(name -> name.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+        this.gatewaysByName = new LinkedHashMap<>();
+        this.routable = new ArrayList<>();
+        for (PaymentGateway gateway : gateways) {
+            String key = gateway.getGatewayName().toLowerCase(Locale.ROOT);
+            gatewaysByName.put(key, gateway);
+            if (enabled.isEmpty() || enabled.contains(key)) {
+                routable.add(gateway);
+            }
+        }
+        if (routable.isEmpty()) {
+            throw new IllegalStateException("No payment gateway to route to; check payment.routing.gateways");
+        }
+        this.defaultGateway = gatewaysByName.getOrDefault(defaultGatewayName.toLowerCase(Locale.ROOT),
+                gatewaysByName.values().iterator().next());
+        this.gatewayCallExecutor = gatewayCallExecutor;
+        this.targetP95Millis = targetP95Millis;
+        this.minWeight = minWeight;
+        log.info("Payment gateways live: {}, routing new orders to {}, default {}", gatewaysByName.keySet(),
+                routable.stream().map(PaymentGateway::getGatewayName).toList(), defaultGateway.getGatewayName());
+    }
+
+    /**
+     * Gateways to try for a new order, healthiest first (weighted random)
+     *
+     * @param paymentMode Requested payment mode, or null for any
+     * @return All routable gateways supporting the mode; the caller fails over down the list
+     * @throws IllegalArgumentException if no routable gateway supports the mode
+     */
+    public List<PaymentGateway> routeNewOrder(String paymentMode) {
+        String mode = paymentMode == null || paymentMode.isBlank() ? null : paymentMode.trim();
+        List<PaymentGateway> supporting = routable.stream()
+                .filter(gateway -> gateway.supportsPaymentMode(mode))
+                .toList();
+        if (supporting.isEmpty()) {
+            throw new IllegalArgumentException("No payment gateway supports payment mode " + mode);
+        }
+        List<PaymentGateway> candidates = supporting.stream()
+                .filter(gateway -> gatewayCallExecutor.isAvailable(gateway.getGatewayName()))
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (candidates.isEmpty()) {
+            // Every breaker is open: keep the usual order and let the executor reject fast
+            return new ArrayList<>(supporting);
+        }
+        if (candidates.size() == 1) {
+            return candidates;
+        }
+
+        // Weighted shuffle: key u^(1/w), highest key first
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<PaymentGateway, Double> keys = new HashMap<>();
+        for (PaymentGateway gateway : candidates) {
+            double weight = weight(gatewayCallExecutor.health(gateway.getGatewayName()));
+            keys.put(gateway, Math.pow(random.nextDouble(), 1.0 / weight));
+        }
+        candidates.sort(Comparator.comparingDouble((PaymentGateway gateway) -> keys.get(gateway)).reversed());
+        return candidates;
+    }
 
     /**
-     * Get the active payment gateway based on the current Spring profile
+     * Get the gateway that created an order
      *
-     * @return Payment gateway implementation (injected by Spring based on profile)
+     * @param gatewayName Name stored with the payment or webhook (case-insensitive);
+     *                    null for orders created before routing, which belong to the default gateway
+     * @throws IllegalArgumentException if no such gateway is live
+     */
+    public PaymentGateway getGateway(String gatewayName) {
+        if (gatewayName == null) {
+            return defaultGateway;
+        }
+        PaymentGateway gateway = gatewaysByName.get(gatewayName.toLowerCase(Locale.ROOT));
+        if (gateway == null) {
+            throw new IllegalArgumentException("Payment gateway not available: " + gatewayName);
+        }
+        return gateway;
+    }
+
+    /**
+     * Get the default gateway, used for orders that carry no gateway name
      */
     public PaymentGateway getPaymentGateway() {
-        log.info("Using {} Payment Gateway", paymentGateway.getGatewayName());
-        return paymentGateway;
+        return defaultGateway;
     }
 
     /**
-     * Get the active gateway name
+     * Get the default gateway name
      */
     public String getActiveGatewayName() {
-        return paymentGateway.getGatewayName();
+        return defaultGateway.getGatewayName();
+    }
+
+    /**
+     * Recent health and routing weight of every live gateway
+     */
+    public Map<String, Object> getRoutingStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        for (PaymentGateway gateway : gatewaysByName.values()) {
+            GatewayHealth health = gatewayCallExecutor.health(gateway.getGatewayName());
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("health", health);
+            entry.put("weight", weight(health));
+            status.put(gateway.getGatewayName(), entry);
+        }
+        return status;
+    }
+
+    private double weight(GatewayHealth health) {
+        double successWeight = Math.pow(health.getSuccessRate(), 4);
+        double latencyWeight = health.getP95Millis() <= targetP95Millis ? 1.0 : targetP95Millis / health.getP95Millis();
+        return Math.max(minWeight, successWeight * latencyWeight);
     }
 }
@@ -1,5 +1,6 @@
 package com.ashwani.HealthCare.Service.Payment.Gateway;
 
+import com.ashwani.HealthCare.DTO.Payment.GatewayOrderStatus;
 import com.ashwani.HealthCare.DTO.Payment.PaymentRequest;
 import com.ashwani.HealthCare.DTO.Payment.PaymentResponse;
 import com.ashwani.HealthCare.DTO.Payment.PaymentWebhookPayload;
@@ -10,8 +11,10 @@ import com.cashfree.pg.model.CreateOrderRequest;
 import com.cashfree.pg.model.CustomerDetails;
 import com.cashfree.pg.model.OrderEntity;
 import com.cashfree.pg.model.OrderMeta;
+import com.cashfree.pg.model.PaymentEntity;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
@@ -22,6 +25,9 @@ import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -51,6 +57,8 @@ public class CashfreePaymentGateway implements PaymentGateway {
     private String cashfreeEnvironment;
 
     private final Cashfree cashfree;
+    // Shared pooled client (PaymentHttpClientConfig); without it the SDK builds its own per call
+    private final OkHttpClient paymentHttpClient;
 
     @Override
     public PaymentResponse initiatePayment(PaymentRequest paymentRequest) throws ApiException {
@@ -76,7 +84,7 @@ public class CashfreePaymentGateway implements PaymentGateway {
                     paymentRequest.getCustomerId(), paymentRequest.getAmount());
 
             // Create order via SDK
-            ApiResponse<OrderEntity> response = cashfree.PGCreateOrder(request, null, null, null);
+            ApiResponse<OrderEntity> response = cashfree.PGCreateOrder(request, null, null, paymentHttpClient);
             String orderId = response.getData().getOrderId();
             String paymentSessionId = response.getData().getPaymentSessionId();
 
@@ -172,6 +180,67 @@ public class CashfreePaymentGateway implements PaymentGateway {
         return false;
     }
 
+    /**
+     * Cashfree has no bulk order-status endpoint, so each order is fetched with
+     * PGFetchOrder. Order statuses are mapped to the webhook vocabulary:
+     * PAID -> SUCCESS, EXPIRED/TERMINATED -> FAILED, anything else -> PENDING.
+     * The order amount comes from the order; for paid orders the successful payment
+     * (PGOrderFetchPayments) adds cf_payment_id, payment group and payment time, the
+     * same fields a webhook carries.
+     */
+    @Override
+    public Map<String, GatewayOrderStatus> fetchOrderStatuses(Collection<String> orderIds) {
+        Map<String, GatewayOrderStatus> statuses = new HashMap<>();
+        for (String orderId : orderIds) {
+            try {
+                OrderEntity order = cashfree.PGFetchOrder(orderId, null, null, paymentHttpClient).getData();
+                GatewayOrderStatus status = GatewayOrderStatus.of(orderId, toPaymentStatus(order.getOrderStatus()));
+                status.setOrderAmount(order.getOrderAmount());
+                if ("SUCCESS".equals(status.getStatus())) {
+                    addSuccessfulPayment(status);
+                }
+                statuses.put(orderId, status);
+            } catch (ApiException e) {
+                log.warn("[Cashfree] Could not fetch status of order {}. HTTP Code: {}, Message: {}",
+                        orderId, e.getCode(), e.getMessage());
+            }
+        }
+        return statuses;
+    }
+
+    // Fill in the paid order's payment details; without them the stored values are kept
+    private void addSuccessfulPayment(GatewayOrderStatus status) {
+        try {
+            List<PaymentEntity> payments = cashfree.PGOrderFetchPayments(status.getOrderId(), null, null, paymentHttpClient).getData();
+            if (payments == null) {
+                return;
+            }
+            payments.stream()
+                    .filter(payment -> "SUCCESS".equalsIgnoreCase(String.valueOf(payment.getPaymentStatus())))
+                    .findFirst()
+                    .ifPresent(payment -> {
+                        if (payment.getCfPaymentId() != null) status.setReferenceId(String.valueOf(payment.getCfPaymentId()));
+                        status.setPaymentMode(payment.getPaymentGroup());
+                        status.setTransactionTime(payment.getPaymentTime());
+                        if (payment.getPaymentAmount() != null) status.setOrderAmount(payment.getPaymentAmount());
+                    });
+        } catch (ApiException e) {
+            log.warn("[Cashfree] Could not fetch payments of paid order {}. HTTP Code: {}, Message: {}",
+                    status.getOrderId(), e.getCode(), e.getMessage());
+        }
+    }
+
+    private static String toPaymentStatus(String orderStatus) {
+        if (orderStatus == null) {
+            return "PENDING";
+        }
+        return switch (orderStatus.toUpperCase()) {
+            case "PAID" -> "SUCCESS";
+            case "EXPIRED", "TERMINATED" -> "FAILED";
+            default -> "PENDING";
+        };
+    }
+
     @Override
     public Map<String, Object> getConfigStatus() {
         Map<String, Object> status = new java.util.HashMap<>();
@@ -0,0 +1,214 @@
+package com.ashwani.HealthCare.Service.Payment.Gateway;
+
+import com.ashwani.HealthCare.DTO.Payment.GatewayHealth;
+import com.ashwani.HealthCare.ExceptionHandlers.payment.GatewayUnavailableException;
+import com.ashwani.HealthCare.Utility.CircuitBreaker;
+import com.ashwani.HealthCare.Utility.OutcomeWindow;
+import com.cashfree.pg.ApiException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs payment gateway calls off the request threads, isolated per gateway.
+ *
+ * Every call runs on its own virtual thread and is guarded by three limits, one
+ * set per gateway:
+ * - Circuit breaker: once the recent failure rate crosses the threshold, calls fail
+ *   fast with 503 until a trial call succeeds again
+ * - Bulkhead: at most max-concurrent calls in flight. Further calls are rejected
+ *   immediately instead of queueing. A timed-out call keeps its permit until the
+ *   virtual thread really finishes, because it still holds a gateway connection
+ * - Timeout: the returned future fails after timeout-ms, and the call's thread is interrupted
+ * A slow or failing gateway therefore costs a bounded number of virtual threads and
+ * never blocks servlet threads or endpoints that do not use it.
+ *
+ * Client errors (4xx from the gateway) do not count as breaker failures.
+ *
+ * The last health-window calls per gateway are also kept with their latency; health()
+ * reports success rate and p95 from them for routing (see PaymentGatewayFactory).
+ *
+ * Metrics:
+ * - payment.gateway.call: latency histogram, tagged by gateway, operation and outcome
+ * - payment.gateway.rejected: calls refused, tagged by reason (circuit_open, bulkhead_full)
+ * - payment.gateway.circuit.state: 0 closed, 1 half-open, 2 open
+ * - payment.gateway.bulkhead.available: free permits
+ */
+@Component
+@Slf4j
+public class GatewayCallExecutor {
+    private final MeterRegistry meterRegistry;
+    private final long timeoutMillis;
+    private final int maxConcurrent;
+    private final int breakerWindowSize;
+    private final int breakerMinimumCalls;
+    private final double breakerFailureRate;
+    private final long breakerOpenMillis;
+    private final int healthWindowSize;
+    private final ExecutorService virtualThreads = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("payment-gateway-", 0).factory());
+    private final ConcurrentHashMap<String, Guard> guards = new ConcurrentHashMap<>();
+
+    public GatewayCallExecutor(MeterRegistry meterRegistry,
+                               @Value("${payment.gateway.timeout-ms:10000}") long timeoutMillis,
+                               @Value("${payment.gateway.bulkhead.max-concurrent:20}") int maxConcurrent,
+                               @Value("${payment.gateway.circuit-breaker.window-size:20}") int breakerWindowSize,
+                               @Value("${payment.gateway.circuit-breaker.minimum-calls:10}") int breakerMinimumCalls,
+                               @Value("${payment.gateway.circuit-breaker.failure-rate:0.5}") double breakerFailureRate,
+                               @Value("${payment.gateway.circuit-breaker.open-ms:30000}") long breakerOpenMillis,
+                               @Value("${payment.gateway.health.window-size:100}") int healthWindowSize) {
+        this.meterRegistry = meterRegistry;
+        this.timeoutMillis = timeoutMillis;
+        this.maxConcurrent = maxConcurrent;
+        this.breakerWindowSize = breakerWindowSize;
+        this.breakerMinimumCalls = breakerMinimumCalls;
+        this.breakerFailureRate = breakerFailureRate;
+        this.breakerOpenMillis = breakerOpenMillis;
+        this.healthWindowSize = healthWindowSize;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        virtualThreads.shutdownNow();
+    }
+
+    /**
+     * Run a gateway call on a virtual thread under the gateway's breaker, bulkhead and timeout
+     * @param gateway Gateway name; limits are kept per name
+     * @param operation Operation name for metrics (e.g. initiatePayment)
+     * @return Future with the call's result. It fails with GatewayUnavailableException
+     *         when the call is rejected or times out, otherwise with the call's own exception
+     */
+    public <T> CompletableFuture<T> submit(String gateway, String operation, Callable<T> call) {
+        Guard guard = guards.computeIfAbsent(gateway, this::newGuard);
+        if (!guard.breaker().tryAcquirePermission()) {
+            return reject(gateway, "circuit_open", new GatewayUnavailableException(
+                    gateway + " payment gateway is temporarily unavailable, please try again shortly", "GATEWAY_UNAVAILABLE"));
+        }
+        if (!guard.bulkhead().tryAcquire()) {
+            guard.breaker().releasePermission();
+            return reject(gateway, "bulkhead_full", new GatewayUnavailableException(
+                    gateway + " payment gateway is busy, please try again", "GATEWAY_BUSY"));
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = virtualThreads.submit(() -> {
+            try {
+                result.complete(call.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                guard.bulkhead().release();
+            }
+        });
+
+        return result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).handle((value, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            String outcome = cause == null ? "success" : cause instanceof TimeoutException ? "timeout" : "error";
+            long latencyNanos = sample.stop(Timer.builder("payment.gateway.call")
+                    .tag("gateway", gateway)
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            guard.outcomes().record(cause == null || isClientError(cause), latencyNanos);
+
+            if (cause == null) {
+                guard.breaker().onSuccess();
+                return value;
+            }
+            if (cause instanceof TimeoutException) {
+                task.cancel(true);
+                guard.breaker().onFailure();
+                log.warn("{} gateway {} timed out after {} ms", gateway, operation, timeoutMillis);
+                throw new CompletionException(new GatewayUnavailableException(
+                        gateway + " payment gateway did not respond in time, please try again", "GATEWAY_TIMEOUT"));
+            }
+            if (isClientError(cause)) {
+                guard.breaker().onSuccess();
+            } else {
+                guard.breaker().onFailure();
+            }
+            throw cause instanceof CompletionException completion ? completion : new CompletionException(cause);
+        });
+    }
+
+    /**
+     * Whether a call to the gateway would currently be let through by its breaker
+     * (closed, or open long enough for a trial call). Does not take a permission.
+     */
+    public boolean isAvailable(String gateway) {
+        Guard guard = guards.get(gateway);
+        return guard == null || guard.breaker().getState() != CircuitBreaker.State.OPEN
+                || guard.breaker().isOpenExpired();
+    }
+
+    /**
+     * Recent health of a gateway; a gateway that was never called reports success rate 1 and no samples
+     */
+    public GatewayHealth health(String gateway) {
+        Guard guard = guards.computeIfAbsent(gateway, this::newGuard);
+        OutcomeWindow outcomes = guard.outcomes();
+        return new GatewayHealth(gateway, guard.breaker().getState().name(), outcomes.successRate(),
+                outcomes.percentile(0.95) / 1_000_000.0, outcomes.size());
+    }
+
+    private <T> CompletableFuture<T> reject(String gateway, String reason, GatewayUnavailableException error) {
+        meterRegistry.counter("payment.gateway.rejected", "gateway", gateway, "reason", reason).increment();
+        log.warn("{} gateway call rejected: {}", gateway, reason);
+        return CompletableFuture.failedFuture(error);
+    }
+
+    private Guard newGuard(String gateway) {
+        Guard guard = new Guard(
+                new CircuitBreaker(breakerWindowSize, breakerMinimumCalls, breakerFailureRate, breakerOpenMillis),
+                new Semaphore(maxConcurrent),
+                new OutcomeWindow(healthWindowSize));
+        Tags tags = Tags.of("gateway", gateway);
+        meterRegistry.gauge("payment.gateway.circuit.state", tags, guard.breaker(), GatewayCallExecutor::stateValue);
+        meterRegistry.gauge("payment.gateway.bulkhead.available", tags, guard.bulkhead(), Semaphore::availablePermits);
+        return guard;
+    }
+
+    private static double stateValue(CircuitBreaker breaker) {
+        return switch (breaker.getState()) {
+            case CLOSED -> 0;
+            case HALF_OPEN -> 1;
+            case OPEN -> 2;
+        };
+    }
+
+    // Gateway rejected the request itself (bad input, auth); the gateway is healthy.
+    // Covers SDK errors (ApiException) and REST calls (HttpStatusCodeException), also when wrapped
+    private static boolean isClientError(Throwable cause) {
+        for (Throwable error = cause; error != null; error = error.getCause()) {
+            if (error instanceof ApiException apiException && apiException.getCode() != 0) {
+                return apiException.getCode() >= 400 && apiException.getCode() < 500;
+            }
+            if (error instanceof HttpStatusCodeException httpError) {
+                return httpError.getStatusCode().is4xxClientError();
+            }
+        }
+        return false;
+    }
+
+    private record Guard(CircuitBreaker breaker, Semaphore bulkhead, OutcomeWindow outcomes) {
+    }
+}
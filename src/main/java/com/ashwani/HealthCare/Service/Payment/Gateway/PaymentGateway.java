@@ -1,10 +1,12 @@
 package com.ashwani.HealthCare.Service.Payment.Gateway;
 
+import com.ashwani.HealthCare.DTO.Payment.GatewayOrderStatus;
 import com.ashwani.HealthCare.DTO.Payment.PaymentRequest;
 import com.ashwani.HealthCare.DTO.Payment.PaymentResponse;
 import com.ashwani.HealthCare.DTO.Payment.PaymentWebhookPayload;
 import com.cashfree.pg.ApiException;
 
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -37,6 +39,24 @@ public interface PaymentGateway {
      */
     boolean isTestWebhook(PaymentWebhookPayload payload);
 
+    /**
+     * Fetch the current status of several orders from the gateway's order-status API.
+     * Gateways without a bulk endpoint query the orders one by one; callers bound the
+     * parallelism by splitting work into batches.
+     * @param orderIds Orders to look up
+     * @return Status by order id; orders the gateway could not report on are left out
+     */
+    Map<String, GatewayOrderStatus> fetchOrderStatuses(Collection<String> orderIds);
+
+    /**
+     * Check whether the gateway can take an order for a payment mode
+     * @param paymentMode Requested payment mode (e.g. UPI, CARD), or null for any mode
+     * @return true if the order's checkout can offer that mode
+     */
+    default boolean supportsPaymentMode(String paymentMode) {
+        return true;
+    }
+
     /**
      * Get payment gateway configuration status for debugging
      * @return Configuration status map
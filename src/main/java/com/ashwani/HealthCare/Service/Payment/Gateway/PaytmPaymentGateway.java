@@ -1,5 +1,6 @@
 package com.ashwani.HealthCare.Service.Payment.Gateway;
 
+import com.ashwani.HealthCare.DTO.Payment.GatewayOrderStatus;
 import com.ashwani.HealthCare.DTO.Payment.PaymentRequest;
 import com.ashwani.HealthCare.DTO.Payment.PaymentResponse;
 import com.ashwani.HealthCare.DTO.Payment.PaymentWebhookPayload;
@@ -9,35 +10,32 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.util.*;
 
 /**
  * Paytm Payment Gateway Implementation
- * Active for profile: prod
- * Supports UPI mode only for production
+ * Active when paytm.merchant.id is configured; routed alongside Cashfree by PaymentGatewayFactory
+ * Supports UPI mode only
  *
  * Note: This is a simplified implementation for Paytm UPI payments.
  * For full Paytm integration, you may need to add the official Paytm SDK.
- *
- * CURRENTLY DISABLED - Uncomment @Component to enable when Paytm credentials are available
  */
-//@Component  // DISABLED - Using Cashfree for all environments
+@Component
 @RequiredArgsConstructor
 @Slf4j
 //@Profile("prod")
-@ConditionalOnProperty(
-        prefix = "paytm",
-        name = "merchant.id",
-        matchIfMissing = false  // Don't create bean if property missing
-)
+// paytm.merchant.id defaults to empty, so check for a value rather than for presence
+@ConditionalOnExpression("!'${paytm.merchant.id:}'.isBlank()")
 public class PaytmPaymentGateway implements PaymentGateway {
 
     @Value("${paytm.merchant.id}")
@@ -150,6 +148,11 @@ public class PaytmPaymentGateway implements PaymentGateway {
 
         } catch (ApiException e) {
             throw e;
+        } catch (HttpStatusCodeException e) {
+            // Keep the HTTP status, so a rejected request (4xx) is not counted against the gateway's health
+            log.error("[Paytm] API returned {} while initiating payment", e.getStatusCode());
+            throw new ApiException("Paytm API error: " + e.getStatusCode(), e.getStatusCode().value(),
+                    null, e.getResponseBodyAsString());
         } catch (Exception e) {
             log.error("[Paytm] Error initiating payment", e);
             throw new ApiException("Paytm payment error: " + e.getMessage());
@@ -199,6 +202,50 @@ public class PaytmPaymentGateway implements PaymentGateway {
         return orderId.contains("test") || orderId.contains("demo") || orderId.contains("sample");
     }
 
+    /**
+     * Query each order through the Paytm transaction status API (/v3/order/status).
+     * TXN_SUCCESS -> SUCCESS, TXN_FAILURE -> FAILED, anything else -> PENDING.
+     */
+    @Override
+    public Map<String, GatewayOrderStatus> fetchOrderStatuses(Collection<String> orderIds) {
+        Map<String, GatewayOrderStatus> statuses = new HashMap<>();
+        for (String orderId : orderIds) {
+            try {
+                Map<String, Object> bodyContent = new HashMap<>();
+                bodyContent.put("mid", merchantId);
+                bodyContent.put("orderId", orderId);
+                Map<String, Object> body = new HashMap<>();
+                body.put("head", Map.of("signature", generateChecksum(bodyContent, merchantKey)));
+                body.put("body", bodyContent);
+
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_JSON);
+                ResponseEntity<String> response = restTemplate.exchange(paytmApiUrl + "/v3/order/status",
+                        HttpMethod.POST, new HttpEntity<>(body, headers), String.class);
+
+                JsonNode bodyNode = objectMapper.readTree(response.getBody()).path("body");
+                String resultStatus = bodyNode.path("resultInfo").path("resultStatus").asText();
+                String status = switch (resultStatus) {
+                    case "TXN_SUCCESS" -> "SUCCESS";
+                    case "TXN_FAILURE" -> "FAILED";
+                    default -> "PENDING";
+                };
+                statuses.put(orderId, new GatewayOrderStatus(orderId, status,
+                        textOrNull(bodyNode, "txnId"),
+                        textOrNull(bodyNode, "paymentMode"),
+                        textOrNull(bodyNode, "txnDate"),
+                        bodyNode.hasNonNull("txnAmount") ? new BigDecimal(bodyNode.get("txnAmount").asText()) : null));
+            } catch (Exception e) {
+                log.warn("[Paytm] Could not fetch status of order {}: {}", orderId, e.getMessage());
+            }
+        }
+        return statuses;
+    }
+
+    private static String textOrNull(JsonNode node, String field) {
+        return node.hasNonNull(field) ? node.get(field).asText() : null;
+    }
+
     @Override
     public Map<String, Object> getConfigStatus() {
         Map<String, Object> status = new HashMap<>();
@@ -214,6 +261,12 @@ public class PaytmPaymentGateway implements PaymentGateway {
         return status;
     }
 
+    // Checkout is restricted to UPI (PAYMENT_MODE_ONLY), so only orders that ask for UPI come here
+    @Override
+    public boolean supportsPaymentMode(String paymentMode) {
+        return "UPI".equalsIgnoreCase(paymentMode);
+    }
+
     @Override
     public String getGatewayName() {
         return "Paytm";
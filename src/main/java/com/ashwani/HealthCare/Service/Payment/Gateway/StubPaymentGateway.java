@@ -0,0 +1,102 @@
+package com.ashwani.HealthCare.Service.Payment.Gateway;
+
+import com.ashwani.HealthCare.DTO.Payment.GatewayOrderStatus;
+import com.ashwani.HealthCare.DTO.Payment.PaymentRequest;
+import com.ashwani.HealthCare.DTO.Payment.PaymentResponse;
+import com.ashwani.HealthCare.DTO.Payment.PaymentWebhookPayload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Local stub gateway for offline development and load tests of the payment
+ * reconciler. Active for profile: stub (takes precedence over Cashfree).
+ *
+ * Orders are created without any network call. Order-status lookups sleep for a
+ * configurable latency per call plus per order, then report a deterministic
+ * status derived from the order id hash: SUCCESS for success-rate of orders,
+ * FAILED for failure-rate, PENDING for the rest.
+ */
+@Component
+@Primary
+@Profile("stub")
+@Slf4j
+public class StubPaymentGateway implements PaymentGateway {
+
+    @Value("${payment.gateway.stub.call-latency-ms:50}")
+    private long callLatencyMillis;
+
+    @Value("${payment.gateway.stub.per-order-latency-ms:5}")
+    private long perOrderLatencyMillis;
+
+    @Value("${payment.gateway.stub.success-rate:0.8}")
+    private double successRate;
+
+    @Value("${payment.gateway.stub.failure-rate:0.1}")
+    private double failureRate;
+
+    @Override
+    public PaymentResponse initiatePayment(PaymentRequest paymentRequest) {
+        String orderId = "stub_" + UUID.randomUUID();
+        log.info("[Stub] Created order {} for customer {}, amount {}",
+                orderId, paymentRequest.getCustomerId(), paymentRequest.getAmount());
+        return new PaymentResponse(orderId, "stub_session_" + UUID.randomUUID());
+    }
+
+    @Override
+    public Map<String, GatewayOrderStatus> fetchOrderStatuses(Collection<String> orderIds) {
+        sleep(callLatencyMillis + perOrderLatencyMillis * orderIds.size());
+        Map<String, GatewayOrderStatus> statuses = new HashMap<>();
+        for (String orderId : orderIds) {
+            // Stable per order, so repeated runs agree
+            double bucket = Math.floorMod(orderId.hashCode(), 10_000) / 10_000.0;
+            String status = bucket < successRate ? "SUCCESS"
+                    : bucket < successRate + failureRate ? "FAILED"
+                    : "PENDING";
+            statuses.put(orderId, new GatewayOrderStatus(orderId, status,
+                    "SUCCESS".equals(status) ? "stub_ref_" + orderId : null, "UPI", null, null));
+        }
+        return statuses;
+    }
+
+    @Override
+    public boolean validateWebhookSignature(PaymentWebhookPayload payload, String signature, String rawBody) {
+        return true;
+    }
+
+    @Override
+    public boolean isTestWebhook(PaymentWebhookPayload payload) {
+        return false;
+    }
+
+    @Override
+    public Map<String, Object> getConfigStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("gateway", "Stub");
+        status.put("callLatencyMs", callLatencyMillis);
+        status.put("perOrderLatencyMs", perOrderLatencyMillis);
+        status.put("successRate", successRate);
+        status.put("failureRate", failureRate);
+        return status;
+    }
+
+    @Override
+    public String getGatewayName() {
+        return "Stub";
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.ashwani.HealthCare.Service.Payment.Inbox;
+
+import com.ashwani.HealthCare.DTO.Payment.PaymentWebhookPayload;
+import com.ashwani.HealthCare.Entity.Payment;
+import com.ashwani.HealthCare.Entity.PaymentWebhookInbox;
+import com.ashwani.HealthCare.ExceptionHandlers.payment.WebhookValidationException;
+import com.ashwani.HealthCare.Repository.PaymentWebhookInboxRepository;
+import com.ashwani.HealthCare.Service.Payment.PaymentService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Worker pool that drains the payment webhook inbox.
+ *
+ * Each worker claims the next due deliveries with SELECT ... FOR UPDATE SKIP LOCKED,
+ * so workers on this and other instances never process the same row. A batch is
+ * handled in one transaction: bodies are parsed with the shared ObjectMapper, the
+ * referenced payments are loaded with one query, every delivery is validated and
+ * applied in arrival order, and all updates are flushed together on commit.
+ *
+ * A delivery with an invalid signature or an unparseable body fails permanently;
+ * these are detected before the payment is touched, so the batch carries on. Any
+ * other error may leave a payment half-updated (status changed, but no revenue rollup
+ * or outbox row), so it fails the whole batch transaction and every row of it is
+ * rolled back, including attempt counts. The deliveries are then processed again one
+ * per transaction, and a delivery that fails on its own has its attempt recorded in a
+ * separate transaction, so attempts always advance and one poisoned row cannot hold
+ * back the rest. Retries use a linear backoff until the attempts run out.
+ *
+ * Workers wake up as soon as a delivery is appended on this instance, and otherwise
+ * poll for deliveries appended elsewhere.
+ *
+ * Metrics:
+ * - payment.webhook.inbox.depth: pending deliveries
+ * - payment.webhook.inbox.oldest.age: seconds the oldest pending delivery has waited
+ * - payment.webhook.inbox.lag: time from receipt to processing, per delivery
+ * - payment.webhook.inbox.deliveries: deliveries handled, tagged by outcome
+ */
+@Component
+@Slf4j
+public class PaymentWebhookInboxProcessor {
+    // Header carrying the signature, per gateway (names are stored lower-case)
+    private static final Map<String, String> SIGNATURE_HEADERS = Map.of(
+            "cashfree", "x-webhook-signature",
+            "paytm", "checksumhash");
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final PaymentWebhookInboxRepository paymentWebhookInboxRepository;
+    private final PaymentService paymentService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final int workers;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+
+    private final Semaphore wakeups = new Semaphore(0);
+    private final AtomicLong depth = new AtomicLong();
+    private final AtomicLong oldestAgeSeconds = new AtomicLong();
+    private final ExecutorService workerPool;
+    private volatile boolean running;
+
+    public PaymentWebhookInboxProcessor(PaymentWebhookInboxRepository paymentWebhookInboxRepository,
+                                        PaymentService paymentService,
+                                        ObjectMapper objectMapper,
+                                        MeterRegistry meterRegistry,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${payment.webhook-inbox.workers:2}") int workers,
+                                        @Value("${payment.webhook-inbox.batch-size:50}") int batchSize,
+                                        @Value("${payment.webhook-inbox.poll-interval-ms:1000}") long pollIntervalMillis,
+                                        @Value("${payment.webhook-inbox.max-attempts:5}") int maxAttempts,
+                                        @Value("${payment.webhook-inbox.retry-backoff-ms:30000}") long retryBackoffMillis) {
+        this.paymentWebhookInboxRepository = paymentWebhookInboxRepository;
+        this.paymentService = paymentService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = Duration.ofMillis(retryBackoffMillis);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "payment-webhook-inbox-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        meterRegistry.gauge("payment.webhook.inbox.depth", depth);
+        meterRegistry.gauge("payment.webhook.inbox.oldest.age", oldestAgeSeconds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            workerPool.execute(this::runWorker);
+        }
+        log.info("Started {} payment webhook inbox workers", workers);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        workerPool.shutdownNow();
+    }
+
+    /**
+     * Signal that a delivery was appended, so an idle worker picks it up without waiting for the next poll
+     */
+    public void wakeUp() {
+        wakeups.release();
+    }
+
+    /**
+     * Refresh the inbox depth and oldest-age gauges - runs every 15 seconds
+     */
+    @Scheduled(fixedDelayString = "${payment.webhook-inbox.metrics-interval-ms:15000}")
+    public void refreshMetrics() {
+        depth.set(paymentWebhookInboxRepository.countPending());
+        LocalDateTime oldest = paymentWebhookInboxRepository.findOldestPendingReceivedAt();
+        oldestAgeSeconds.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toSeconds()));
+    }
+
+    private void runWorker() {
+        while (running) {
+            try {
+                wakeups.tryAcquire(pollIntervalMillis, TimeUnit.MILLISECONDS);
+                // Keep draining while batches come back full
+                while (running && processBatch() == batchSize) {
+                    wakeups.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Claiming or recording an attempt failed (e.g. the database is down); try again after the poll interval
+                log.error("Payment webhook inbox batch failed", e);
+            }
+        }
+    }
+
+    /**
+     * Claim and apply one batch of due deliveries in a single transaction,
+     * falling back to one transaction per delivery if the batch fails as a whole
+     * @return Number of deliveries claimed
+     */
+    private int processBatch() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int claimed;
+        try {
+            claimed = Objects.requireNonNullElse(transactionTemplate.execute(status -> applyDue(batchSize, null)), 0);
+        } catch (RuntimeException e) {
+            log.warn("Payment webhook inbox batch failed, retrying its deliveries one at a time", e);
+            claimed = processOneByOne();
+        }
+        sample.stop(meterRegistry.timer("payment.webhook.inbox.batch"));
+        return claimed;
+    }
+
+    /**
+     * Apply due deliveries one per transaction. A delivery whose transaction fails has
+     * the attempt recorded in a transaction of its own.
+     * @return Number of deliveries claimed
+     */
+    private int processOneByOne() {
+        int claimed = 0;
+        while (claimed < batchSize && running) {
+            AtomicLong deliveryId = new AtomicLong(-1);
+            try {
+                Integer applied = transactionTemplate.execute(status -> applyDue(1, deliveryId));
+                if (applied == null || applied == 0) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                if (deliveryId.get() < 0) {
+                    throw e;
+                }
+                recordFailedAttempt(deliveryId.get(), e);
+            }
+            claimed++;
+        }
+        return claimed;
+    }
+
+    private void recordFailedAttempt(long deliveryId, RuntimeException e) {
+        transactionTemplate.executeWithoutResult(status ->
+                // Another worker may have claimed the row in the meantime; it then records its own attempt
+                paymentWebhookInboxRepository.claimById(deliveryId)
+                        .ifPresent(delivery -> retryLater(delivery, e, LocalDateTime.now())));
+    }
+
+    /**
+     * Claim up to limit due deliveries and apply them in the caller's transaction
+     * @param claimedId Receives the id of the first claimed delivery (optional)
+     * @return Number of deliveries claimed
+     */
+    private int applyDue(int limit, AtomicLong claimedId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<PaymentWebhookInbox> deliveries = paymentWebhookInboxRepository.claimDue(now, PageRequest.of(0, limit));
+        if (deliveries.isEmpty()) {
+            return 0;
+        }
+        if (claimedId != null) {
+            claimedId.set(deliveries.get(0).getId());
+        }
+
+        List<PaymentWebhookPayload> payloads = new ArrayList<>(deliveries.size());
+        Set<String> orderIds = new HashSet<>();
+        for (PaymentWebhookInbox delivery : deliveries) {
+            PaymentWebhookPayload payload = parse(delivery);
+            payloads.add(payload);
+            if (payload != null && payload.getOrderId() != null) {
+                orderIds.add(payload.getOrderId());
+            }
+        }
+        Map<String, Payment> payments = paymentService.findPaymentsByOrderId(orderIds);
+
+        for (int i = 0; i < deliveries.size(); i++) {
+            PaymentWebhookInbox delivery = deliveries.get(i);
+            PaymentWebhookPayload payload = payloads.get(i);
+            if (payload == null) {
+                fail(delivery, "Unparseable webhook body", now);
+                continue;
+            }
+            try {
+                paymentService.applyWebhook(delivery.getGateway(), payload, signatureOf(delivery), delivery.getBody(), payments);
+                markProcessed(delivery, now);
+            } catch (WebhookValidationException e) {
+                fail(delivery, e.getMessage(), now);
+            }
+            // Any other exception propagates and rolls the transaction back; the managed
+            // payment may already be modified and must not be flushed on commit
+        }
+        return deliveries.size();
+    }
+
+    private PaymentWebhookPayload parse(PaymentWebhookInbox delivery) {
+        try {
+            return objectMapper.readValue(delivery.getBody(), PaymentWebhookPayload.class);
+        } catch (JsonProcessingException e) {
+            log.error("Unparseable {} webhook in inbox row {}", delivery.getGateway(), delivery.getId(), e);
+            return null;
+        }
+    }
+
+    private static String signatureOf(PaymentWebhookInbox delivery) {
+        String header = SIGNATURE_HEADERS.get(delivery.getGateway());
+        return header == null || delivery.getHeaders() == null ? null : delivery.getHeaders().get(header);
+    }
+
+    private void markProcessed(PaymentWebhookInbox delivery, LocalDateTime now) {
+        delivery.setStatus(PaymentWebhookInbox.PROCESSED);
+        delivery.setAttempts(delivery.getAttempts() + 1);
+        delivery.setProcessedAt(now);
+        delivery.setLastError(null);
+        meterRegistry.timer("payment.webhook.inbox.lag").record(Duration.between(delivery.getReceivedAt(), now));
+        meterRegistry.counter("payment.webhook.inbox.deliveries", "outcome", "processed").increment();
+    }
+
+    private void fail(PaymentWebhookInbox delivery, String error, LocalDateTime now) {
+        log.warn("Payment webhook inbox row {} failed permanently: {}", delivery.getId(), error);
+        delivery.setStatus(PaymentWebhookInbox.FAILED);
+        delivery.setAttempts(delivery.getAttempts() + 1);
+        delivery.setProcessedAt(now);
+        delivery.setLastError(truncate(error));
+        meterRegistry.counter("payment.webhook.inbox.deliveries", "outcome", "failed").increment();
+    }
+
+    private void retryLater(PaymentWebhookInbox delivery, RuntimeException e, LocalDateTime now) {
+        int attempts = delivery.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            fail(delivery, "Gave up after " + attempts + " attempts: " + e.getMessage(), now);
+            return;
+        }
+        log.warn("Payment webhook inbox row {} failed (attempt {}), retrying: {}", delivery.getId(), attempts, e.getMessage());
+        delivery.setAttempts(attempts);
+        delivery.setAvailableAt(now.plus(retryBackoff.multipliedBy(attempts)));
+        delivery.setLastError(truncate(e.getMessage()));
+        meterRegistry.counter("payment.webhook.inbox.deliveries", "outcome", "retried").increment();
+    }
+
+    private static String truncate(String error) {
+        if (error == null) return null;
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,80 @@
+package com.ashwani.HealthCare.Service.Payment.Inbox;
+
+import com.ashwani.HealthCare.Entity.PaymentWebhookInbox;
+import com.ashwani.HealthCare.Repository.PaymentWebhookInboxRepository;
+import com.ashwani.HealthCare.Service.Webhook.WebhookDeduplicator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Accepts payment gateway webhooks by appending them to the inbox.
+ * The request thread only performs one INSERT; parsing, signature validation and
+ * status updates are done by PaymentWebhookInboxProcessor. Retried deliveries are
+ * dropped by WebhookDeduplicator, keyed by the gateway's event id or the body hash.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentWebhookInboxService {
+    // Never stored: gateways do not send them and they would only carry our own credentials
+    private static final Set<String> EXCLUDED_HEADERS = Set.of("authorization", "cookie");
+    // Header carrying the gateway's event id, per gateway; other gateways are keyed by body hash
+    private static final Map<String, String> EVENT_ID_HEADERS = Map.of("cashfree", "x-idempotency-key");
+
+    private final PaymentWebhookInboxRepository paymentWebhookInboxRepository;
+    private final PaymentWebhookInboxProcessor paymentWebhookInboxProcessor;
+    private final WebhookDeduplicator webhookDeduplicator;
+
+    /**
+     * Append a raw webhook delivery and wake up the inbox workers
+     * @param gateway Gateway the delivery was addressed to (cashfree, paytm)
+     * @return Inbox id of the delivery, or empty if it duplicates one already accepted
+     */
+    public Optional<Long> append(String gateway, HttpHeaders headers, String rawBody) {
+        Map<String, String> storedHeaders = toStoredHeaders(headers);
+        String dedupKey = dedupKeyOf(gateway, storedHeaders, rawBody);
+        return webhookDeduplicator.acceptOnce(gateway, dedupKey, PaymentWebhookInbox.DEDUP_CONSTRAINT, () -> {
+            LocalDateTime now = LocalDateTime.now();
+            PaymentWebhookInbox delivery = new PaymentWebhookInbox();
+            delivery.setGateway(gateway);
+            delivery.setDedupKey(dedupKey);
+            delivery.setHeaders(storedHeaders);
+            delivery.setBody(rawBody);
+            delivery.setReceivedAt(now);
+            delivery.setAvailableAt(now);
+            paymentWebhookInboxRepository.save(delivery);
+
+            log.debug("Appended {} webhook to inbox as {}", gateway, delivery.getId());
+            paymentWebhookInboxProcessor.wakeUp();
+            return delivery.getId();
+        });
+    }
+
+    private static String dedupKeyOf(String gateway, Map<String, String> storedHeaders, String rawBody) {
+        String header = EVENT_ID_HEADERS.get(gateway);
+        String eventId = header == null ? null : storedHeaders.get(header);
+        return eventId != null && !eventId.isBlank() && eventId.length() <= 128
+                ? eventId
+                : WebhookDeduplicator.hash(rawBody);
+    }
+
+    private static Map<String, String> toStoredHeaders(HttpHeaders headers) {
+        Map<String, String> stored = new HashMap<>();
+        headers.forEach((name, values) -> {
+            String key = name.toLowerCase(Locale.ROOT);
+            if (!EXCLUDED_HEADERS.contains(key) && !values.isEmpty()) {
+                stored.put(key, values.get(0));
+            }
+        });
+        return stored;
+    }
+}
@@ -0,0 +1,227 @@
+package com.ashwani.HealthCare.Service.Payment;
+
+import com.ashwani.HealthCare.DTO.Payment.GatewayOrderStatus;
+import com.ashwani.HealthCare.Entity.Payment;
+import com.ashwani.HealthCare.Repository.PaymentRepository;
+import com.ashwani.HealthCare.Service.Payment.Factory.PaymentGatewayFactory;
+import com.ashwani.HealthCare.Service.Payment.Gateway.PaymentGateway;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reconciles payments whose webhook never arrived.
+ *
+ * On a schedule, PENDING payments that are older than stale-after-minutes (and not
+ * older than max-age-hours) are read in keyset pages. Each page is grouped by the
+ * gateway that created the order and split into batches for that gateway's
+ * order-status API, and the batches are queried on a fixed pool, so at most
+ * parallelism calls are in flight. The statuses found are
+ * applied with PaymentService.reconcile, the same transition as webhooks: a payment
+ * that turns out to be paid gets its completion event and its appointment booked.
+ *
+ * A payment is found within stale-after-minutes plus one interval of its order. That
+ * must be shorter than the appointment hold TTL, or a reconciled SUCCESS would find its
+ * hold expired; the constructor refuses such a configuration. A payment confirmed after
+ * its hold expired anyway (e.g. paid in the hold's last minutes) is not rebooked: its
+ * completion event is dead-lettered, which flags it for a refund.
+ *
+ * Only one instance reconciles at a time: a pass runs while holding a PostgreSQL
+ * transaction-level advisory lock on a dedicated connection, and instances that
+ * cannot take it skip the run. The lock is released when that transaction ends,
+ * also if the pass fails or the connection is lost. Within a pass, PaymentService.reconcile
+ * locks the payment rows before re-checking their status, so a concurrent webhook
+ * and the reconciler never both apply a transition.
+ *
+ * Metrics:
+ * - payment.reconciler.run: duration of a full pass
+ * - payment.reconciler.checked / payment.reconciler.updated: orders queried and moved out of PENDING
+ * - payment.reconciler.errors: gateway batches that failed
+ */
+@Component
+@Slf4j
+public class PaymentReconciler {
+    private final PaymentRepository paymentRepository;
+    private final PaymentService paymentService;
+    private final PaymentGatewayFactory paymentGatewayFactory;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long staleAfterMinutes;
+    private final long maxAgeHours;
+    private final int pageSize;
+    private final int batchSize;
+    private final ExecutorService gatewayCalls;
+    private final DataSource dataSource;
+
+    // Advisory lock key held by the instance currently reconciling
+    private static final long RUN_LOCK_KEY = "payment-reconciler".hashCode();
+
+    public PaymentReconciler(PaymentRepository paymentRepository,
+                             PaymentService paymentService,
+                             DataSource dataSource,
+                             PaymentGatewayFactory paymentGatewayFactory,
+                             MeterRegistry meterRegistry,
+                             @Value("${payment.reconciler.enabled:true}") boolean enabled,
+                             @Value("${payment.reconciler.stale-after-minutes:5}") long staleAfterMinutes,
+                             @Value("${payment.reconciler.interval-ms:120000}") long intervalMillis,
+                             @Value("${appointment.hold.ttl-minutes:15}") long holdTtlMinutes,
+                             @Value("${payment.reconciler.max-age-hours:48}") long maxAgeHours,
+                             @Value("${payment.reconciler.page-size:500}") int pageSize,
+                             @Value("${payment.reconciler.batch-size:25}") int batchSize,
+                             @Value("${payment.reconciler.parallelism:4}") int parallelism) {
+        if (staleAfterMinutes * 60_000 + intervalMillis >= holdTtlMinutes * 60_000) {
+            throw new IllegalStateException("payment.reconciler.stale-after-minutes plus interval-ms must be below "
+                    + "appointment.hold.ttl-minutes, or reconciled payments find their hold expired");
+        }
+        this.paymentRepository = paymentRepository;
+        this.paymentService = paymentService;
+        this.dataSource = dataSource;
+        this.paymentGatewayFactory = paymentGatewayFactory;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.staleAfterMinutes = staleAfterMinutes;
+        this.maxAgeHours = maxAgeHours;
+        this.pageSize = pageSize;
+        this.batchSize = batchSize;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.gatewayCalls = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "payment-reconciler-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        gatewayCalls.shutdownNow();
+    }
+
+    /**
+     * Reconcile stale PENDING payments - runs every 2 minutes by default
+     */
+    @Scheduled(fixedDelayString = "${payment.reconciler.interval-ms:120000}",
+               initialDelayString = "${payment.reconciler.initial-delay-ms:120000}")
+    public void reconcileStalePayments() {
+        if (!enabled) {
+            return;
+        }
+        try (Connection lockConnection = dataSource.getConnection()) {
+            lockConnection.setAutoCommit(false);
+            try {
+                if (!tryRunLock(lockConnection)) {
+                    log.debug("Payment reconciliation is running on another instance, skipping");
+                    return;
+                }
+                reconcilePass();
+            } finally {
+                // Ends the lock transaction, which releases the advisory lock
+                lockConnection.rollback();
+            }
+        } catch (SQLException e) {
+            log.warn("Payment reconciliation skipped, could not take the run lock: {}", e.getMessage());
+        }
+    }
+
+    private boolean tryRunLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_xact_lock(?)")) {
+            statement.setLong(1, RUN_LOCK_KEY);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    private void reconcilePass() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime createdFrom = now.minusHours(maxAgeHours);
+        LocalDateTime createdTo = now.minusMinutes(staleAfterMinutes);
+
+        long checked = 0;
+        long updated = 0;
+        long afterId = 0;
+        List<Payment> page;
+        do {
+            page = paymentRepository.findStalePending(createdFrom, createdTo, afterId, PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
+            List<GatewayOrderStatus> statuses = fetchStatuses(page);
+            checked += page.size();
+            if (!statuses.isEmpty()) {
+                updated += paymentService.reconcile(statuses);
+            }
+        } while (page.size() == pageSize && !Thread.currentThread().isInterrupted());
+
+        sample.stop(meterRegistry.timer("payment.reconciler.run"));
+        meterRegistry.counter("payment.reconciler.checked").increment(checked);
+        meterRegistry.counter("payment.reconciler.updated").increment(updated);
+        if (checked > 0) {
+            log.info("Payment reconciliation checked {} stale PENDING payments, updated {}", checked, updated);
+        }
+    }
+
+    /**
+     * Query one page of orders in batches, each from the gateway that created it,
+     * at most parallelism batches at a time
+     * @return Statuses the gateways reported; failed batches are skipped until the next run
+     */
+    private List<GatewayOrderStatus> fetchStatuses(List<Payment> page) {
+        Map<String, List<String>> orderIdsByGateway = new HashMap<>();
+        for (Payment payment : page) {
+            try {
+                String gatewayName = paymentGatewayFactory.getGateway(payment.getGateway()).getGatewayName();
+                orderIdsByGateway.computeIfAbsent(gatewayName, name -> new ArrayList<>()).add(payment.getOrderId());
+            } catch (IllegalArgumentException e) {
+                // The order's gateway is not live on this instance; it stays PENDING
+                log.debug("Skipping order {}: {}", payment.getOrderId(), e.getMessage());
+            }
+        }
+
+        List<Future<List<GatewayOrderStatus>>> batches = new ArrayList<>();
+        orderIdsByGateway.forEach((gatewayName, orderIds) -> {
+            PaymentGateway gateway = paymentGatewayFactory.getGateway(gatewayName);
+            for (int from = 0; from < orderIds.size(); from += batchSize) {
+                List<String> batch = List.copyOf(orderIds.subList(from, Math.min(from + batchSize, orderIds.size())));
+                batches.add(gatewayCalls.submit(() -> new ArrayList<>(gateway.fetchOrderStatuses(batch).values())));
+            }
+        });
+
+        List<GatewayOrderStatus> statuses = new ArrayList<>(page.size());
+        for (Future<List<GatewayOrderStatus>> batch : batches) {
+            try {
+                statuses.addAll(batch.get());
+            } catch (ExecutionException e) {
+                meterRegistry.counter("payment.reconciler.errors").increment();
+                log.warn("Gateway order-status batch failed: {}", e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return statuses;
+    }
+}
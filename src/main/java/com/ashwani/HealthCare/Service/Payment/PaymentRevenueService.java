@@ -0,0 +1,187 @@
+package com.ashwani.HealthCare.Service.Payment;
+
+import com.ashwani.HealthCare.DTO.Payment.PaymentRevenueBucket;
+import com.ashwani.HealthCare.DTO.Payment.PaymentRevenueSummary;
+import com.ashwani.HealthCare.Entity.Payment;
+import com.ashwani.HealthCare.Entity.PaymentRevenueDaily;
+import com.ashwani.HealthCare.Repository.PaymentRepository;
+import com.ashwani.HealthCare.Repository.PaymentRevenueDailyRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Payment revenue rollups (payment_revenue_daily).
+ *
+ * Settled payments are counted per order day, payment mode and status. Every status
+ * change moves the payment between buckets in the same transaction as the change
+ * (see recordChange, called from PaymentService.applyStatus). The payment row must be
+ * locked (PaymentRepository.lockByOrderIdIn), so two racing updates of one payment
+ * are applied in turn and each transition is counted once. Revenue queries therefore
+ * read at most days x modes x statuses rows instead of scanning payments.
+ *
+ * rebuild recomputes a range of days from payments. Use it to backfill existing data
+ * or to repair drift. Each chunk of days is rebuilt in its own transaction, which locks
+ * the rollup table against concurrent upserts. Status changes wait briefly, and none
+ * are lost or counted twice.
+ */
+@Service
+@Slf4j
+public class PaymentRevenueService {
+    private static final String PENDING = "PENDING";
+
+    private final PaymentRevenueDailyRepository revenueRepository;
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int maxRangeDays;
+    private final int rebuildChunkDays;
+
+    public PaymentRevenueService(PaymentRevenueDailyRepository revenueRepository,
+                                 PaymentRepository paymentRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 EntityManager entityManager,
+                                 @Value("${payment.revenue.max-range-days:366}") int maxRangeDays,
+                                 @Value("${payment.revenue.rebuild-chunk-days:31}") int rebuildChunkDays) {
+        this.revenueRepository = revenueRepository;
+        this.paymentRepository = paymentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.maxRangeDays = maxRangeDays;
+        this.rebuildChunkDays = rebuildChunkDays;
+    }
+
+    /**
+     * Move a payment between rollup buckets after a status change. Must run in the
+     * transaction that changes the payment, after that payment was locked for update.
+     * @param previousStatus Status before the change
+     * @param previousMode Payment mode before the change
+     * @param previousAmount Order amount before the change
+     * @param payment The payment with its new values
+     * @throws IllegalStateException if the payment is not locked, so a concurrent change could be counted twice
+     */
+    public void recordChange(String previousStatus, String previousMode, BigDecimal previousAmount, Payment payment) {
+        if (entityManager.getLockMode(payment) != LockModeType.PESSIMISTIC_WRITE) {
+            throw new IllegalStateException("Payment " + payment.getOrderId() + " must be locked before its rollups change");
+        }
+        LocalDate day = orderDay(payment);
+        String oldMode = modeOf(previousMode);
+        String newMode = modeOf(payment.getPaymentMode());
+        BigDecimal oldAmount = amountOf(previousAmount);
+        BigDecimal newAmount = amountOf(payment.getOrderAmount());
+        boolean wasCounted = isCounted(previousStatus);
+        boolean isCounted = isCounted(payment.getStatus());
+
+        if (wasCounted && isCounted && previousStatus.equals(payment.getStatus()) && oldMode.equals(newMode)) {
+            // Same bucket: only the amount can have changed
+            if (oldAmount.compareTo(newAmount) != 0) {
+                revenueRepository.addToBucket(day, newMode, payment.getStatus(), 0, newAmount.subtract(oldAmount));
+            }
+            return;
+        }
+        if (wasCounted) {
+            revenueRepository.addToBucket(day, oldMode, previousStatus, -1, oldAmount.negate());
+        }
+        if (isCounted) {
+            revenueRepository.addToBucket(day, newMode, payment.getStatus(), 1, newAmount);
+        }
+    }
+
+    /**
+     * Revenue per day, payment mode and status for orders created in [from, to]
+     * @param status Status filter (optional)
+     * @param paymentMode Payment mode filter (optional)
+     * @throws IllegalArgumentException if the range is reversed or longer than max-range-days
+     */
+    public PaymentRevenueSummary getRevenue(LocalDate from, LocalDate to, String status, String paymentMode) {
+        validateRange(from, to);
+        if (PENDING.equalsIgnoreCase(status)) {
+            throw new IllegalArgumentException("PENDING payments are not part of revenue rollups");
+        }
+        List<PaymentRevenueBucket> buckets = revenueRepository.findBuckets(from, to, blankToNull(status), blankToNull(paymentMode))
+                .stream()
+                .map(row -> new PaymentRevenueBucket(row.getId().getRevenueDate(), row.getId().getPaymentMode(),
+                        row.getId().getStatus(), row.getPaymentCount(), row.getTotalAmount()))
+                .toList();
+        long paymentCount = buckets.stream().mapToLong(PaymentRevenueBucket::getPaymentCount).sum();
+        BigDecimal totalAmount = buckets.stream().map(PaymentRevenueBucket::getTotalAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        return new PaymentRevenueSummary(from, to, paymentCount, totalAmount, buckets);
+    }
+
+    /**
+     * Recompute the rollups for orders created in [from, to] from the payments table
+     * @param from First day (optional, defaults to the oldest payment's day)
+     * @param to Last day (optional, defaults to today)
+     * @return Number of buckets written
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        LocalDate last = to != null ? to : LocalDate.now();
+        LocalDate first = from;
+        if (first == null) {
+            LocalDateTime oldest = paymentRepository.findOldestCreatedAt();
+            first = oldest != null ? oldest.toLocalDate() : last;
+        }
+        if (first.isAfter(last)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+
+        int written = 0;
+        for (LocalDate chunkStart = first; !chunkStart.isAfter(last); chunkStart = chunkStart.plusDays(rebuildChunkDays)) {
+            LocalDate chunkEnd = chunkStart.plusDays(rebuildChunkDays - 1L);
+            LocalDate end = chunkEnd.isAfter(last) ? last : chunkEnd;
+            LocalDate start = chunkStart;
+            Integer buckets = transactionTemplate.execute(status -> {
+                revenueRepository.lockForRebuild();
+                revenueRepository.deleteRange(start, end);
+                return revenueRepository.insertFromPayments(start.atStartOfDay(), end.plusDays(1).atStartOfDay());
+            });
+            written += Objects.requireNonNullElse(buckets, 0);
+        }
+        log.info("Rebuilt payment revenue rollups for {} to {}: {} buckets", first, last, written);
+        return written;
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) + 1 > maxRangeDays) {
+            throw new IllegalArgumentException("Range must not exceed " + maxRangeDays + " days");
+        }
+    }
+
+    // Same day, mode and amount rules as insertFromPayments, so rebuilt and incremental rollups agree
+    private static LocalDate orderDay(Payment payment) {
+        return payment.getCreatedAt() != null ? payment.getCreatedAt().toLocalDate() : LocalDate.now();
+    }
+
+    private static String modeOf(String paymentMode) {
+        return paymentMode != null ? paymentMode : PaymentRevenueDaily.UNKNOWN_MODE;
+    }
+
+    private static BigDecimal amountOf(BigDecimal amount) {
+        return amount != null ? amount : BigDecimal.ZERO;
+    }
+
+    private static boolean isCounted(String status) {
+        return status != null && !PENDING.equals(status);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
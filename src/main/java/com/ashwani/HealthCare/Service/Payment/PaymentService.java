@@ -1,29 +1,36 @@
 package com.ashwani.HealthCare.Service.Payment;
 
 
+import com.ashwani.HealthCare.DTO.Payment.GatewayOrderStatus;
 import com.ashwani.HealthCare.DTO.Payment.PaymentCompletedEvent;
 import com.ashwani.HealthCare.DTO.Payment.PaymentRequest;
 import com.ashwani.HealthCare.DTO.Payment.PaymentResponse;
+import com.ashwani.HealthCare.DTO.Payment.PaymentStatusResponse;
 import com.ashwani.HealthCare.DTO.Payment.PaymentWebhookPayload;
 import com.ashwani.HealthCare.Entity.Payment;
 import com.ashwani.HealthCare.ExceptionHandlers.common.ResourceNotFoundException;
+import com.ashwani.HealthCare.ExceptionHandlers.payment.GatewayUnavailableException;
 import com.ashwani.HealthCare.ExceptionHandlers.payment.PaymentException;
 import com.ashwani.HealthCare.ExceptionHandlers.payment.WebhookValidationException;
 import com.ashwani.HealthCare.Repository.PaymentRepository;
+import com.ashwani.HealthCare.Service.Payment.Gateway.GatewayCallExecutor;
 import com.ashwani.HealthCare.Service.Payment.Gateway.PaymentGateway;
+import com.ashwani.HealthCare.Service.Outbox.OutboxService;
 import com.ashwani.HealthCare.Service.Payment.Factory.PaymentGatewayFactory;
 import com.cashfree.pg.ApiException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.core.Message;
-import org.springframework.amqp.core.MessageProperties;
-import org.springframework.amqp.core.MessagePropertiesBuilder;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -36,139 +43,249 @@ public class PaymentService {
 
     private final PaymentGatewayFactory paymentGatewayFactory;
     private final PaymentRepository paymentRepository;
-    private final RabbitTemplate rabbitTemplate;
+    private final OutboxService outboxService;
+    private final PaymentStatusWatcher paymentStatusWatcher;
+    private final GatewayCallExecutor gatewayCallExecutor;
+    private final PaymentRevenueService paymentRevenueService;
 
-    public PaymentResponse initiatePayment(PaymentRequest paymentRequest) {
-        try {
-            // Get the appropriate payment gateway
-            PaymentGateway gateway = paymentGatewayFactory.getPaymentGateway();
-            log.info("Initiating payment with {} gateway for customer: {}, amount: {}",
-                    gateway.getGatewayName(), paymentRequest.getCustomerId(), paymentRequest.getAmount());
+    // Queue consumed by PaymentEventListener; unconsumed events expire after 10 minutes
+    private static final String PAYMENT_COMPLETED_ROUTING_KEY = "payment.completed";
+    private static final long PAYMENT_COMPLETED_TTL_MS = 600_000L;
 
-            // Create order via the selected gateway
-            PaymentResponse response = gateway.initiatePayment(paymentRequest);
+    /**
+     * Create an order and record it as PENDING, together with the gateway that created it.
+     * Gateways that support the requested payment mode are tried in the order
+     * PaymentGatewayFactory routes them; a gateway that rejects the call or times out
+     * (GatewayUnavailableException) fails over to the next.
+     * Each gateway call runs on GatewayCallExecutor (virtual thread, bulkhead, timeout,
+     * circuit breaker), so no request thread waits on the gateway.
+     * @return Future with the order and session info. It fails with
+     *         GatewayUnavailableException (503) or PaymentException (400)
+     * @throws IllegalArgumentException if no gateway supports the requested payment mode
+     */
+    public CompletableFuture<PaymentResponse> initiatePayment(PaymentRequest paymentRequest) {
+        List<PaymentGateway> gateways = paymentGatewayFactory.routeNewOrder(paymentRequest.getPaymentMode());
+        return createOrder(paymentRequest, gateways, 0)
+                .exceptionally(error -> {
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof PaymentException paymentException) {
+                        throw paymentException;
+                    }
+                    if (cause instanceof ApiException) {
+                        log.error("Payment gateway error while initiating payment", cause);
+                        throw new PaymentException("Payment gateway error: " + cause.getMessage(), null, "GATEWAY_ERROR");
+                    }
+                    log.error("Unexpected error while initiating payment", cause);
+                    throw new PaymentException("Failed to initiate payment: " + cause.getMessage());
+                });
+    }
 
-            log.info("Successfully created order: {} using {} gateway",
-                    response.getOrderId(), gateway.getGatewayName());
+    private CompletableFuture<PaymentResponse> createOrder(PaymentRequest paymentRequest,
+                                                           List<PaymentGateway> gateways, int index) {
+        PaymentGateway gateway = gateways.get(index);
+        log.info("Initiating payment with {} gateway for customer: {}, amount: {}",
+                gateway.getGatewayName(), paymentRequest.getCustomerId(), paymentRequest.getAmount());
 
-            // Save payment entity
-            Payment payment = new Payment();
-            payment.setOrderId(response.getOrderId());
-            payment.setStatus("PENDING");
-            payment.setPatientId(Long.parseLong(paymentRequest.getCustomerId()));
-            payment.setAppointmentHoldReference(paymentRequest.getAppointmentHoldReference());
+        // Create order via the selected gateway
+        return gatewayCallExecutor.submit(gateway.getGatewayName(), "initiatePayment",
+                        () -> gateway.initiatePayment(paymentRequest))
+                .thenApply(response -> {
+                    log.info("Successfully created order: {} using {} gateway",
+                            response.getOrderId(), gateway.getGatewayName());
 
-            paymentRepository.save(payment);
+                    // Save payment entity
+                    Payment payment = new Payment();
+                    payment.setOrderId(response.getOrderId());
+                    payment.setStatus("PENDING");
+                    payment.setGateway(gateway.getGatewayName());
+                    // Known up front, so a payment settled by the reconciler has its amount too
+                    payment.setOrderAmount(paymentRequest.getAmount());
+                    payment.setPatientId(Long.parseLong(paymentRequest.getCustomerId()));
+                    payment.setAppointmentHoldReference(paymentRequest.getAppointmentHoldReference());
 
-            // Return order and session info to the controller/caller
-            return response;
-        } catch (ApiException e) {
-            log.error("Payment gateway error while initiating payment", e);
-            throw new PaymentException("Payment gateway error: " + e.getMessage(), null, "GATEWAY_ERROR");
-        } catch (Exception e) {
-            log.error("Unexpected error while initiating payment", e);
-            throw new PaymentException("Failed to initiate payment: " + e.getMessage());
-        }
+                    paymentRepository.save(payment);
+
+                    // Return order and session info to the controller/caller
+                    response.setGateway(gateway.getGatewayName());
+                    return response;
+                })
+                .exceptionallyCompose(error -> {
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof GatewayUnavailableException && index + 1 < gateways.size()) {
+                        log.warn("{} gateway unavailable ({}), failing over to {}", gateway.getGatewayName(),
+                                cause.getMessage(), gateways.get(index + 1).getGatewayName());
+                        return createOrder(paymentRequest, gateways, index + 1);
+                    }
+                    return CompletableFuture.failedFuture(cause);
+                });
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
 
     /**
      * Returns latest payment status we know for a given order.
-     * For now, reads from our DB which is updated by webhook. In future,
-     * can be extended to call Cashfree's order/status API for real-time status.
+     * Reads from our DB, which is updated by webhooks and, for payments whose
+     * webhook never arrived, by PaymentReconciler from the gateway's order-status API.
      */
     public String getPaymentStatus(String orderId) {
-        Payment payment = paymentRepository.findByOrderId(orderId);
-        if (payment == null) {
-            return "PENDING";
+        return paymentStatusWatcher.currentStatus(orderId).getStatus();
+    }
+
+    /**
+     * Long-poll for an order's status: completes as soon as a webhook moves the
+     * order out of PENDING on this instance, or with the stored status once the timeout passes
+     * @param timeoutMillis How long to wait (1 second to 1 minute)
+     * @throws IllegalArgumentException if the timeout is out of range
+     */
+    public DeferredResult<PaymentStatusResponse> awaitPaymentStatus(String orderId, long timeoutMillis) {
+        if (timeoutMillis < 1_000 || timeoutMillis > 60_000) {
+            throw new IllegalArgumentException("timeoutMs must be between 1000 and 60000");
         }
-        return payment.getStatus() == null ? "PENDING" : payment.getStatus();
+        return paymentStatusWatcher.await(orderId, timeoutMillis);
     }
 
-    @Transactional
-    public void handleWebhook(PaymentWebhookPayload payload, String signature, String rawBody) {
-        try {
-            log.info("Received webhook for order: {}, type: {}", payload.getOrderId(), payload.getType());
-            
-            // Get the appropriate payment gateway
-            PaymentGateway gateway = paymentGatewayFactory.getPaymentGateway();
+    /**
+     * Load and lock the payments referenced by a batch of status updates with a single query.
+     * Must run in the transaction that applies the updates: the row locks are held until it
+     * ends, so a webhook and the reconciler racing on one order apply their transitions one
+     * after the other, and the second one sees the first one's status.
+     * @return Payments by order id
+     */
+    public Map<String, Payment> findPaymentsByOrderId(Collection<String> orderIds) {
+        Map<String, Payment> payments = new HashMap<>();
+        if (!orderIds.isEmpty()) {
+            paymentRepository.lockByOrderIdIn(orderIds).forEach(payment -> payments.put(payment.getOrderId(), payment));
+        }
+        return payments;
+    }
 
-            // Check if this is a test webhook (contains test data)
-            if (gateway.isTestWebhook(payload)) {
-                log.info("Test webhook detected for order: {}, skipping processing", payload.getOrderId());
-                return;
-            }
+    /**
+     * Apply one webhook delivery to its payment.
+     * Runs inside the caller's transaction: the payment is updated in place and flushed
+     * with the rest of the batch on commit, together with the completion event's outbox row.
+     * @param payments Managed payments of the batch, by order id
+     * @param deliveredVia Gateway whose webhook endpoint received the delivery
+     * @throws WebhookValidationException if the signature is invalid, or the order was
+     *         created by a different gateway than the one the webhook came from
+     * @throws ResourceNotFoundException if the order is unknown
+     */
+    public void applyWebhook(String deliveredVia, PaymentWebhookPayload payload, String signature, String rawBody,
+                             Map<String, Payment> payments) {
+        log.info("Received {} webhook for order: {}, type: {}", deliveredVia, payload.getOrderId(), payload.getType());
 
-            // Validate webhook signature if enabled
-            if (!gateway.validateWebhookSignature(payload, signature, rawBody)) {
-                log.error("Invalid webhook signature for order: {} using {} gateway",
-                        payload.getOrderId(), gateway.getGatewayName());
-                throw new WebhookValidationException("Invalid webhook signature", payload.getOrderId());
-            }
+        // The gateway the webhook came from validates it
+        PaymentGateway gateway;
+        try {
+            gateway = paymentGatewayFactory.getGateway(deliveredVia);
+        } catch (IllegalArgumentException e) {
+            throw new WebhookValidationException(e.getMessage(), payload.getOrderId());
+        }
 
-            log.info("Processing webhook for order: {} using {} gateway",
+        // Check if this is a test webhook (contains test data)
+        if (gateway.isTestWebhook(payload)) {
+            log.info("Test webhook detected for order: {}, skipping processing", payload.getOrderId());
+            return;
+        }
+
+        // Validate webhook signature if enabled
+        if (!gateway.validateWebhookSignature(payload, signature, rawBody)) {
+            log.error("Invalid webhook signature for order: {} using {} gateway",
                     payload.getOrderId(), gateway.getGatewayName());
+            throw new WebhookValidationException("Invalid webhook signature", payload.getOrderId());
+        }
 
-            // Find the payment/order record by orderId
-            Payment payment = paymentRepository.findByOrderId(payload.getOrderId());
-            if (payment == null) {
-                log.error("Order not found in database: {}", payload.getOrderId());
-                throw new ResourceNotFoundException("Payment order", payload.getOrderId());
-            }
+        log.info("Processing webhook for order: {} using {} gateway",
+                payload.getOrderId(), gateway.getGatewayName());
+
+        // Find the payment/order record by orderId
+        Payment payment = payments.get(payload.getOrderId());
+        if (payment == null) {
+            log.error("Order not found in database: {}", payload.getOrderId());
+            throw new ResourceNotFoundException("Payment order", payload.getOrderId());
+        }
 
-            // Update payment status
-            String previousStatus = payment.getStatus();
-            String newStatus = payload.getOrderStatus();
-            
-            log.info("Updating payment status for order: {} from {} to {}", 
-                    payload.getOrderId(), previousStatus, newStatus);
-
-            payment.setStatus(payload.getOrderStatus());
-            payment.setReferenceId(payload.getReferenceId());
-            payment.setPaymentMode(payload.getPaymentMode());
-            payment.setTransactionTime(payload.getTxTime());
-            payment.setOrderAmount(payload.getOrderAmount());
-            
-            log.info("Payment updated - OrderId: {}, Status: {}, ReferenceId: {}, PaymentMode: {}", 
-                    payload.getOrderId(), newStatus, payload.getReferenceId(), payload.getPaymentMode());
-
-            // 4. Save the updated record
-            paymentRepository.save(payment);
-
-            // Only publish an event if the payment has just been successfully completed
-            if (isSuccessfulStatus(newStatus) && !isSuccessfulStatus(previousStatus)){
-                try {
-                    // Create the event object with all necessary data
-                    PaymentCompletedEvent event = new PaymentCompletedEvent();
-                    event.setOrderId(payload.getOrderId());
-                    event.setReferenceId(payload.getReferenceId());
-                    event.setCustomerId(payment.getPatientId().toString());
-                    event.setOrderAmount(payload.getOrderAmount());
-                    event.setPaymentMode(payload.getPaymentMode());
-                    event.setAppointmentHoldReference(payment.getAppointmentHoldReference());
-                    event.setPaymentId(payment.getId());
-
-                    // Publish the event to RabbitMQ
-                    // When sending the message, set TTL (10 minutes = 600000 milliseconds)
-                    MessageProperties props = MessagePropertiesBuilder.newInstance()
-                            .setContentType(MessageProperties.CONTENT_TYPE_JSON)
-                            .setExpiration("600000")
-                            .build();
-
-                    Message message = rabbitTemplate.getMessageConverter().toMessage(event, props);
-                    rabbitTemplate.send("payment.completed", message);
-                    // PaymentCompletedEvent published successfully
-                } catch (Exception e) {
-                    // Log the error but don't re-throw it and cause the webhook to fail.
-                    // Cashfree will retry the webhook if we return an error code.
-                    // We don't want that just because our messaging is down.
-                    log.error("Failed to publish RabbitMQ event for order: {}", payload.getOrderId(), e);
-                }
+        // Only the gateway that created the order may change its status
+        PaymentGateway owner = paymentGatewayFactory.getGateway(payment.getGateway());
+        if (owner != gateway) {
+            log.error("Webhook for order: {} came from {} but the order belongs to {}",
+                    payload.getOrderId(), gateway.getGatewayName(), owner.getGatewayName());
+            throw new WebhookValidationException("Webhook gateway does not match the order's gateway", payload.getOrderId());
+        }
+
+        applyStatus(payment, new GatewayOrderStatus(payload.getOrderId(), payload.getOrderStatus(),
+                payload.getReferenceId(), payload.getPaymentMode(), payload.getTxTime(), payload.getOrderAmount()));
+    }
+
+    /**
+     * Apply order statuses fetched from the gateway by the reconciler, through the same
+     * transition as webhooks. The payments are locked before their status is checked, and
+     * only payments that are still PENDING are changed, so a webhook that arrived in the
+     * meantime wins and no transition is applied twice.
+     * @return Number of payments moved out of PENDING
+     */
+    @Transactional
+    public int reconcile(Collection<GatewayOrderStatus> statuses) {
+        Map<String, Payment> payments = findPaymentsByOrderId(statuses.stream().map(GatewayOrderStatus::getOrderId).toList());
+        int updated = 0;
+        for (GatewayOrderStatus status : statuses) {
+            Payment payment = payments.get(status.getOrderId());
+            if (payment == null || !"PENDING".equalsIgnoreCase(payment.getStatus())
+                    || status.getStatus() == null || "PENDING".equalsIgnoreCase(status.getStatus())) {
+                continue;
             }
-            
-        } catch (Exception e) {
-            log.error("Error processing webhook for orderId: {}", payload.getOrderId(), e);
-            // Re-throw the exception so the gateway knows the webhook failed and will retry
-            throw e;
+            log.info("Reconciled order {} from gateway status API", status.getOrderId());
+            applyStatus(payment, status);
+            updated++;
+        }
+        return updated;
+    }
+
+    /**
+     * Status transition shared by webhooks and reconciliation. Runs in the caller's
+     * transaction; on the first move to a successful status the completion event is
+     * written to the outbox in the same transaction.
+     */
+    private void applyStatus(Payment payment, GatewayOrderStatus update) {
+        String previousStatus = payment.getStatus();
+        String previousMode = payment.getPaymentMode();
+        BigDecimal previousAmount = payment.getOrderAmount();
+        String newStatus = update.getStatus();
+
+        log.info("Updating payment status for order: {} from {} to {}",
+                update.getOrderId(), previousStatus, newStatus);
+
+        payment.setStatus(newStatus);
+        // Fields the source did not report keep their stored value
+        if (update.getReferenceId() != null) payment.setReferenceId(update.getReferenceId());
+        if (update.getPaymentMode() != null) payment.setPaymentMode(update.getPaymentMode());
+        if (update.getTransactionTime() != null) payment.setTransactionTime(update.getTransactionTime());
+        if (update.getOrderAmount() != null) payment.setOrderAmount(update.getOrderAmount());
+
+        log.info("Payment updated - OrderId: {}, Status: {}, ReferenceId: {}, PaymentMode: {}",
+                update.getOrderId(), newStatus, payment.getReferenceId(), payment.getPaymentMode());
+
+        // Keeps the revenue rollups in step, in this transaction
+        paymentRevenueService.recordChange(previousStatus, previousMode, previousAmount, payment);
+
+        // Wakes long-polling clients once the transaction commits
+        paymentStatusWatcher.statusChanged(update.getOrderId(), newStatus);
+
+        // Only publish an event if the payment has just been successfully completed
+        if (isSuccessfulStatus(newStatus) && !isSuccessfulStatus(previousStatus)) {
+            // Create the event object with all necessary data
+            PaymentCompletedEvent event = new PaymentCompletedEvent();
+            event.setOrderId(update.getOrderId());
+            event.setReferenceId(payment.getReferenceId());
+            event.setCustomerId(payment.getPatientId().toString());
+            event.setOrderAmount(payment.getOrderAmount());
+            event.setPaymentMode(payment.getPaymentMode());
+            event.setAppointmentHoldReference(payment.getAppointmentHoldReference());
+            event.setPaymentId(payment.getId());
+
+            // Written in this transaction and published by the outbox relay once it commits
+            outboxService.enqueue(PAYMENT_COMPLETED_ROUTING_KEY, event, PAYMENT_COMPLETED_TTL_MS);
         }
     }
 
@@ -226,6 +343,7 @@ public class PaymentService {
             PaymentGateway gateway = paymentGatewayFactory.getPaymentGateway();
             Map<String, Object> status = gateway.getConfigStatus();
             status.put("activeGateway", gateway.getGatewayName());
+            status.put("routing", paymentGatewayFactory.getRoutingStatus());
             return status;
         } catch (Exception e) {
             Map<String, Object> errorStatus = new java.util.HashMap<>();
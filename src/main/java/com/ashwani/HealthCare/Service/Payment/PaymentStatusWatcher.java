@@ -0,0 +1,121 @@
+package com.ashwani.HealthCare.Service.Payment;
+
+import com.ashwani.HealthCare.DTO.Payment.PaymentStatusResponse;
+import com.ashwani.HealthCare.Entity.Payment;
+import com.ashwani.HealthCare.Repository.PaymentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-poll support for payment status.
+ *
+ * A waiting request is parked as a DeferredResult, so no servlet thread is held
+ * while it waits. The waiter is registered before the status is read, so a webhook
+ * that commits in between still wakes it. The waiter is completed when:
+ * - this instance commits a status change for the order (see statusChanged)
+ * - the timeout passes. The status is then read again, which also picks up changes
+ *   applied by other instances
+ * One webhook therefore replaces repeated status polls during checkout.
+ *
+ * Metrics: payment.status.waiters (parked requests), payment.status.wakeups.
+ */
+@Component
+@Slf4j
+public class PaymentStatusWatcher {
+    private static final String PENDING = "PENDING";
+
+    private final PaymentRepository paymentRepository;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, Set<DeferredResult<PaymentStatusResponse>>> waitersByOrder = new ConcurrentHashMap<>();
+    private final AtomicLong parked = new AtomicLong();
+
+    public PaymentStatusWatcher(PaymentRepository paymentRepository, MeterRegistry meterRegistry) {
+        this.paymentRepository = paymentRepository;
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("payment.status.waiters", parked);
+    }
+
+    /**
+     * Wait until the order leaves PENDING or the timeout passes
+     * @return Result completed with the order's status
+     */
+    public DeferredResult<PaymentStatusResponse> await(String orderId, long timeoutMillis) {
+        DeferredResult<PaymentStatusResponse> result = new DeferredResult<>(timeoutMillis);
+        // Added inside compute so a concurrent removal cannot drop the set it is being added to
+        waitersByOrder.compute(orderId, (id, existing) -> {
+            Set<DeferredResult<PaymentStatusResponse>> set = existing != null ? existing : ConcurrentHashMap.newKeySet();
+            set.add(result);
+            return set;
+        });
+        parked.incrementAndGet();
+        result.onTimeout(() -> result.setResult(currentStatus(orderId)));
+        result.onCompletion(() -> {
+            parked.decrementAndGet();
+            removeWaiter(orderId, result);
+        });
+
+        PaymentStatusResponse current = currentStatus(orderId);
+        if (!current.isPending()) {
+            result.setResult(current);
+        }
+        return result;
+    }
+
+    /**
+     * Latest status stored for an order; unknown orders count as PENDING
+     */
+    public PaymentStatusResponse currentStatus(String orderId) {
+        Payment payment = paymentRepository.findByOrderId(orderId);
+        String status = payment == null || payment.getStatus() == null ? PENDING : payment.getStatus();
+        return new PaymentStatusResponse(orderId, status, PENDING.equals(status));
+    }
+
+    /**
+     * Wake the order's waiters once the current transaction commits
+     */
+    public void statusChanged(String orderId, String status) {
+        if (!waitersByOrder.containsKey(orderId)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wake(orderId, status);
+                }
+            });
+        } else {
+            wake(orderId, status);
+        }
+    }
+
+    private void wake(String orderId, String status) {
+        String current = status == null ? PENDING : status;
+        if (PENDING.equals(current)) {
+            return;
+        }
+        Set<DeferredResult<PaymentStatusResponse>> waiters = waitersByOrder.remove(orderId);
+        if (waiters == null) {
+            return;
+        }
+        PaymentStatusResponse response = new PaymentStatusResponse(orderId, current, false);
+        waiters.forEach(waiter -> waiter.setResult(response));
+        meterRegistry.counter("payment.status.wakeups").increment(waiters.size());
+        log.debug("Woke {} status waiters for order {} ({})", waiters.size(), orderId, current);
+    }
+
+    private void removeWaiter(String orderId, DeferredResult<PaymentStatusResponse> result) {
+        waitersByOrder.computeIfPresent(orderId, (id, waiters) -> {
+            waiters.remove(result);
+            return waiters.isEmpty() ? null : waiters;
+        });
+    }
+}
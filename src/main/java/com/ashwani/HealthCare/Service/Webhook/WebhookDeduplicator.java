@@ -0,0 +1,106 @@
+package com.ashwani.HealthCare.Service.Webhook;
+
+import com.ashwani.HealthCare.Utility.RecentKeyCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency layer for gateway webhooks, which are retried aggressively.
+ *
+ * Each delivery has a key: the gateway's event id, or a hash of the body. The key is
+ * checked in two layers:
+ * 1. A bounded in-memory cache of recently accepted keys, which rejects most retries
+ *    with one hash lookup, before any transaction or database work starts
+ * 2. A unique index on the table the delivery is stored in. It catches duplicates the
+ *    cache missed (other instances, restarts, evicted keys), since the insert fails
+ *
+ * A key enters the cache only after its delivery is stored, so a failed attempt never
+ * blocks the gateway's retry. Duplicates are counted as webhook.dedup.duplicates,
+ * tagged by source and by the layer that caught them.
+ */
+@Component
+@Slf4j
+public class WebhookDeduplicator {
+    private final RecentKeyCache recentKeys;
+    private final MeterRegistry meterRegistry;
+
+    public WebhookDeduplicator(MeterRegistry meterRegistry,
+                               @Value("${webhook.dedup.cache-size:100000}") int cacheSize) {
+        this.recentKeys = new RecentKeyCache(cacheSize);
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("webhook.dedup.cache.size", recentKeys, RecentKeyCache::size);
+    }
+
+    /**
+     * Store a delivery unless it was already accepted
+     * @param source Webhook source (cashfree, paytm, twilio)
+     * @param key Idempotency key of the delivery
+     * @param uniqueConstraint Name of the unique index that guards the key in the database
+     * @param accept Stores (and possibly processes) the delivery
+     * @return The result of accept, or empty if the delivery is a duplicate
+     */
+    public <T> Optional<T> acceptOnce(String source, String key, String uniqueConstraint, Supplier<T> accept) {
+        String cacheKey = source + ':' + key;
+        if (recentKeys.contains(cacheKey)) {
+            duplicate(source, key, "cache");
+            return Optional.empty();
+        }
+        T result;
+        try {
+            result = accept.get();
+        } catch (DataIntegrityViolationException e) {
+            if (!violates(e, uniqueConstraint)) {
+                throw e;
+            }
+            recentKeys.add(cacheKey);
+            duplicate(source, key, "database");
+            return Optional.empty();
+        }
+        recentKeys.add(cacheKey);
+        return Optional.ofNullable(result);
+    }
+
+    /**
+     * Hex SHA-256 of the given parts, for sources without an event id
+     */
+    public static String hash(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                // Separator, so ("ab", "c") and ("a", "bc") hash differently
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void duplicate(String source, String key, String layer) {
+        log.info("Duplicate {} webhook {} rejected ({})", source, key, layer);
+        meterRegistry.counter("webhook.dedup.duplicates", "source", source, "layer", layer).increment();
+    }
+
+    private static boolean violates(DataIntegrityViolationException e, String uniqueConstraint) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                return violation.getConstraintName().equalsIgnoreCase(uniqueConstraint);
+            }
+        }
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(uniqueConstraint);
+    }
+}
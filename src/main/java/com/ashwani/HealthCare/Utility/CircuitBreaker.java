@@ -0,0 +1,138 @@
+package com.ashwani.HealthCare.Utility;
+
+/**
+ * Count-based circuit breaker.
+ *
+ * While CLOSED, the outcomes of the last windowSize calls are kept in a ring; once
+ * at least minimumCalls have been recorded and the failure rate reaches the
+ * threshold, the breaker OPENs and rejects every call for openMillis. It then goes
+ * HALF_OPEN and lets a single trial call through: success closes the breaker with
+ * a fresh window, failure opens it again.
+ *
+ * All transitions are synchronized; the breaker guards remote calls that take
+ * milliseconds, so the lock is never contended for long.
+ */
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final boolean[] window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int failures;
+    private int next;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    /**
+     * @param windowSize Number of most recent calls the failure rate is computed over
+     * @param minimumCalls Calls required in the window before the breaker may open
+     * @param failureRateThreshold Failure rate (0-1) at which the breaker opens
+     * @param openMillis How long the breaker stays open before a trial call
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openMillis) {
+        if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize) {
+            throw new IllegalArgumentException("minimumCalls must be between 1 and windowSize");
+        }
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openMillis * 1_000_000L;
+    }
+
+    /**
+     * Ask to make a call. Every granted permission must be followed by
+     * onSuccess, onFailure or releasePermission.
+     * @return false if the call must be rejected
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (trialInFlight) {
+                    yield false;
+                }
+                trialInFlight = true;
+                yield true;
+            }
+        };
+    }
+
+    /**
+     * Give back a permission that was not used for a call
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            close();
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold) {
+                open();
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return true if the breaker is open but its open period has passed, so the next
+     *         tryAcquirePermission would allow a trial call
+     */
+    public synchronized boolean isOpenExpired() {
+        return state == State.OPEN && System.nanoTime() - openedAt >= openNanos;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == window.length) {
+            // Window full: the oldest outcome drops out
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        trialInFlight = false;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recorded = 0;
+        failures = 0;
+        next = 0;
+        trialInFlight = false;
+    }
+}
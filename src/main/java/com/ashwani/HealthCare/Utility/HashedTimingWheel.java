@@ -0,0 +1,152 @@
+package com.ashwani.HealthCare.Utility;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashed timing wheel for large numbers of coarse-grained timeouts.
+ *
+ * Scheduling and cancelling are O(1): an entry is dropped into the bucket for its
+ * deadline tick, and a single daemon thread walks one bucket per tick, firing the
+ * entries that are due. Entries further out than one revolution simply stay in
+ * their bucket until the wheel comes round to their deadline tick.
+ *
+ * @param <T> Type of the item handed to the expiry callback
+ */
+@Slf4j
+public class HashedTimingWheel<T> implements AutoCloseable {
+    private final long tickMillis;
+    private final int mask;
+    private final List<List<Timeout<T>>> buckets;
+    private final Consumer<T> onExpire;
+    private final LongSupplier clock;
+    // Null when ticks are driven by hand
+    private final ScheduledExecutorService ticker;
+    private final long startMillis;
+
+    // Last tick processed; written only by advance(), which runs on one thread at a time
+    private volatile long currentTick;
+
+    /**
+     * @param name Name of the ticker thread
+     * @param tickMillis Resolution of the wheel
+     * @param wheelSize Number of buckets (rounded up to a power of two)
+     * @param onExpire Callback run on the ticker thread for every expired item; must be cheap
+     */
+    public HashedTimingWheel(String name, long tickMillis, int wheelSize, Consumer<T> onExpire) {
+        this(tickMillis, wheelSize, System::currentTimeMillis, onExpire,
+                Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, name);
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+        this.ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Wheel without a ticker thread, reading time from the given clock: expiries happen
+     * only when {@link #advance()} is called, so tests can step through ticks by hand
+     */
+    HashedTimingWheel(long tickMillis, int wheelSize, LongSupplier clock, Consumer<T> onExpire) {
+        this(tickMillis, wheelSize, clock, onExpire, null);
+    }
+
+    private HashedTimingWheel(long tickMillis, int wheelSize, LongSupplier clock, Consumer<T> onExpire,
+                              ScheduledExecutorService ticker) {
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.onExpire = onExpire;
+        this.clock = clock;
+        this.ticker = ticker;
+        this.startMillis = clock.getAsLong();
+    }
+
+    /**
+     * Schedule an item to expire at the given wall-clock time
+     * @return Handle that can be used to cancel the timeout
+     */
+    public Timeout<T> schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.max(currentTick + 1, (deadlineMillis - startMillis + tickMillis - 1) / tickMillis);
+        Timeout<T> timeout = new Timeout<>(item, deadlineTick);
+        List<Timeout<T>> bucket = buckets.get((int) (deadlineTick & mask));
+        synchronized (bucket) {
+            bucket.add(timeout);
+        }
+        return timeout;
+    }
+
+    @Override
+    public void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Process every tick up to the current time of the clock
+     */
+    void advance() {
+        long targetTick = (clock.getAsLong() - startMillis) / tickMillis;
+        // Catch up if the ticker thread was delayed (GC pauses, suspended VM)
+        while (currentTick < targetTick) {
+            long tick = currentTick + 1;
+            expireBucket(tick);
+            currentTick = tick;
+        }
+    }
+
+    private void expireBucket(long tick) {
+        List<Timeout<T>> due = new ArrayList<>();
+        List<Timeout<T>> bucket = buckets.get((int) (tick & mask));
+        synchronized (bucket) {
+            Iterator<Timeout<T>> it = bucket.iterator();
+            while (it.hasNext()) {
+                Timeout<T> timeout = it.next();
+                if (timeout.cancelled) {
+                    it.remove();
+                } else if (timeout.deadlineTick <= tick) {
+                    it.remove();
+                    due.add(timeout);
+                }
+            }
+        }
+        for (Timeout<T> timeout : due) {
+            try {
+                onExpire.accept(timeout.item);
+            } catch (RuntimeException e) {
+                log.error("Timing wheel expiry callback failed", e);
+            }
+        }
+    }
+
+    /**
+     * Handle for a scheduled item
+     */
+    public static final class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+        private volatile boolean cancelled;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public void cancel() {
+            this.cancelled = true;
+        }
+    }
+}
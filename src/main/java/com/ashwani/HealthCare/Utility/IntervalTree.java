@@ -0,0 +1,249 @@
+package com.ashwani.HealthCare.Utility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Augmented balanced search tree over half-open integer intervals [start, end).
+ *
+ * Nodes are ordered by (start, end) and kept AVL-balanced; every node also stores
+ * the largest end in its subtree, so an overlap check visits one root-to-leaf path
+ * and is O(log n). Values sharing the exact same interval live in one node.
+ * Not thread-safe: callers guard each tree with their own lock.
+ *
+ * @param <T> Type of the value attached to each interval
+ */
+public class IntervalTree<T> {
+    private Node<T> root;
+    private int size;
+
+    /**
+     * Add a value for an interval
+     * @throws IllegalArgumentException if the interval is empty
+     */
+    public void add(int start, int end, T value) {
+        if (end <= start) {
+            throw new IllegalArgumentException("Interval end must be after its start");
+        }
+        root = insert(root, start, end, value);
+        size++;
+    }
+
+    /**
+     * Remove the first value stored for exactly this interval that matches
+     * @return Whether a value was removed
+     */
+    public boolean remove(int start, int end, Predicate<? super T> match) {
+        int before = size;
+        root = delete(root, start, end, match);
+        return size < before;
+    }
+
+    /**
+     * Whether any stored interval overlaps [start, end) - O(log n)
+     */
+    public boolean overlaps(int start, int end) {
+        Node<T> node = root;
+        while (node != null) {
+            if (node.start < end && start < node.end) {
+                return true;
+            }
+            // If the left subtree reaches past start but holds no overlap, nothing to the right can overlap either
+            node = node.left != null && node.left.maxEnd > start ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * Values of all stored intervals overlapping [start, end) - O(log n + k)
+     */
+    public List<T> overlapping(int start, int end) {
+        List<T> values = new ArrayList<>();
+        collect(root, start, end, values);
+        return values;
+    }
+
+    /**
+     * Visit every stored interval in (start, end) order
+     */
+    public void forEach(Visitor<? super T> visitor) {
+        visit(root, visitor);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @FunctionalInterface
+    public interface Visitor<T> {
+        void visit(int start, int end, T value);
+    }
+
+    private Node<T> insert(Node<T> node, int start, int end, T value) {
+        if (node == null) {
+            return new Node<>(start, end, value);
+        }
+        int cmp = compare(start, end, node);
+        if (cmp == 0) {
+            node.values.add(value);
+            return node;
+        }
+        if (cmp < 0) {
+            node.left = insert(node.left, start, end, value);
+        } else {
+            node.right = insert(node.right, start, end, value);
+        }
+        return rebalance(node);
+    }
+
+    private Node<T> delete(Node<T> node, int start, int end, Predicate<? super T> match) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, end, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, end, match);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, end, match);
+        } else {
+            if (!removeFirst(node.values, match)) {
+                return node;
+            }
+            size--;
+            if (!node.values.isEmpty()) {
+                return node;
+            }
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node<T> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = removeMin(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+        return rebalance(node);
+    }
+
+    private Node<T> removeMin(Node<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return rebalance(node);
+    }
+
+    private void collect(Node<T> node, int start, int end, List<T> values) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        collect(node.left, start, end, values);
+        if (node.start < end && start < node.end) {
+            values.addAll(node.values);
+        }
+        if (node.start < end) {
+            collect(node.right, start, end, values);
+        }
+    }
+
+    private void visit(Node<T> node, Visitor<? super T> visitor) {
+        if (node == null) {
+            return;
+        }
+        visit(node.left, visitor);
+        for (T value : node.values) {
+            visitor.visit(node.start, node.end, value);
+        }
+        visit(node.right, visitor);
+    }
+
+    private static <T> boolean removeFirst(List<T> values, Predicate<? super T> match) {
+        for (int i = 0; i < values.size(); i++) {
+            if (match.test(values.get(i))) {
+                values.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int compare(int start, int end, Node<?> node) {
+        int cmp = Integer.compare(start, node.start);
+        return cmp != 0 ? cmp : Integer.compare(end, node.end);
+    }
+
+    private static <T> Node<T> rebalance(Node<T> node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static <T> Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <T> Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node<?> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        int maxEnd = node.end;
+        if (node.left != null) maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        if (node.right != null) maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static final class Node<T> {
+        private final int start;
+        private final int end;
+        private final List<T> values = new ArrayList<>(1);
+        private int maxEnd;
+        private int height = 1;
+        private Node<T> left;
+        private Node<T> right;
+
+        Node(int start, int end, T value) {
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+            this.values.add(value);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.Set;
 
 @Component
 public class JWTUtility {
@@ -16,15 +17,20 @@ public class JWTUtility {
     @Value("${jwt.expiration.ms}")
     private int expirationMs;
 
+    // Accounts granted ADMIN on top of their role, as ROLE:id entries (e.g. DOCTOR:12)
+    @Value("${security.admin.accounts:}")
+    private Set<String> adminAccounts;
+
     private SecretKey getSigningKey() {
         return Keys.hmacShaKeyFor(secret.getBytes());
     }
 
-    // Generate token with role
+    // Generate token with role; listed admin accounts also get the admin claim
     public String generateToken(String userId, String role) {
         return Jwts.builder()
                 .setSubject(userId)
                 .claim("role", role)
+                .claim("admin", isAdminAccount(userId, role))
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expirationMs))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
@@ -63,4 +69,14 @@ public class JWTUtility {
     public String getRoleFromToken(String token) {
         return validateToken(token).get("role", String.class);
     }
+
+    // Whether the token was issued to an admin account
+    public boolean isAdmin(Claims claims) {
+        return Boolean.TRUE.equals(claims.get("admin", Boolean.class));
+    }
+
+    private boolean isAdminAccount(String userId, String role) {
+        String account = role + ":" + userId;
+        return adminAccounts.stream().anyMatch(entry -> entry.trim().equalsIgnoreCase(account));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.ashwani.HealthCare.Utility;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * Keyset-batched bulk delete/update for background jobs.
+ *
+ * Each round reads the first batch of eligible ids in ascending order and applies
+ * one set-based statement to the id range [first, last], which re-checks the
+ * eligibility condition. Processed rows stop being eligible, so the next round
+ * reads the first page again. The loop ends on a short batch, or on a batch that
+ * changed nothing: rows changed underneath us, and the next run picks up the rest.
+ */
+public final class KeysetBatches {
+
+    @FunctionalInterface
+    public interface RangeAction {
+        /**
+         * @return Number of rows changed in [fromId, toId]
+         */
+        int apply(Long fromId, Long toId);
+    }
+
+    private KeysetBatches() {
+    }
+
+    /**
+     * Process eligible rows batch by batch
+     * @param batchSize Ids read per batch
+     * @param nextIds Reads the next eligible ids, ascending, for the given page
+     * @param rangeAction Changes the eligible rows in one id range, in its own transaction
+     * @param onBatch Receives the rows changed by each batch, so callers keep the count
+     *                of work already done if a later batch fails
+     */
+    public static void run(int batchSize, Function<Pageable, List<Long>> nextIds,
+                           RangeAction rangeAction, LongConsumer onBatch) {
+        Pageable firstBatch = PageRequest.of(0, batchSize);
+        List<Long> ids;
+        do {
+            ids = nextIds.apply(firstBatch);
+            if (ids.isEmpty()) break;
+            int changed = rangeAction.apply(ids.get(0), ids.get(ids.size() - 1));
+            onBatch.accept(changed);
+            if (changed == 0) break;
+        } while (ids.size() == batchSize);
+    }
+}
@@ -0,0 +1,70 @@
+package com.ashwani.HealthCare.Utility;
+
+import java.util.Arrays;
+
+/**
+ * Rolling window over the outcomes of the last N calls: success or failure plus latency.
+ *
+ * Used to compare remote dependencies by recent success rate and tail latency. The
+ * window is a fixed ring, so old calls drop out as new ones are recorded and a
+ * recovered dependency is scored on its recent behaviour only.
+ *
+ * Methods are synchronized; percentile copies at most windowSize longs.
+ */
+public class OutcomeWindow {
+    private final long[] latencies;
+    private final boolean[] failed;
+    private int recorded;
+    private int failures;
+    private int next;
+
+    public OutcomeWindow(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("windowSize must be positive");
+        }
+        this.latencies = new long[windowSize];
+        this.failed = new boolean[windowSize];
+    }
+
+    public synchronized void record(boolean success, long latencyNanos) {
+        if (recorded == latencies.length) {
+            // Window full: the oldest outcome drops out
+            if (failed[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        latencies[next] = latencyNanos;
+        failed[next] = !success;
+        if (!success) {
+            failures++;
+        }
+        next = (next + 1) % latencies.length;
+    }
+
+    public synchronized int size() {
+        return recorded;
+    }
+
+    /**
+     * @return Share of successful calls in the window, 1.0 when nothing was recorded yet
+     */
+    public synchronized double successRate() {
+        return recorded == 0 ? 1.0 : 1.0 - (double) failures / recorded;
+    }
+
+    /**
+     * @param quantile Between 0 and 1, e.g. 0.95
+     * @return Latency at the quantile in nanoseconds, 0 when nothing was recorded yet
+     */
+    public synchronized long percentile(double quantile) {
+        if (recorded == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, recorded);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(quantile * recorded) - 1;
+        return sorted[Math.max(0, Math.min(index, recorded - 1))];
+    }
+}
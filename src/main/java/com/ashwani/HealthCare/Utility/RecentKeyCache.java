@@ -0,0 +1,56 @@
+package com.ashwani.HealthCare.Utility;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded set of the most recently added keys.
+ *
+ * Lookups are a single lock-free hash probe. Keys are also written into a ring
+ * buffer in insertion order; once the ring is full, each new key overwrites and
+ * evicts the oldest one, so memory stays fixed at the capacity no matter how many
+ * keys pass through. Only inserts of new keys take the ring lock.
+ */
+public class RecentKeyCache {
+    private final Set<String> keys;
+    private final String[] ring;
+    private int next;
+
+    /**
+     * @param capacity Maximum number of keys remembered
+     */
+    public RecentKeyCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.keys = ConcurrentHashMap.newKeySet(capacity);
+        this.ring = new String[capacity];
+    }
+
+    public boolean contains(String key) {
+        return keys.contains(key);
+    }
+
+    /**
+     * Remember a key, evicting the oldest one when the cache is full
+     * @return false if the key was already present
+     */
+    public boolean add(String key) {
+        if (!keys.add(key)) {
+            return false;
+        }
+        synchronized (ring) {
+            String evicted = ring[next];
+            ring[next] = key;
+            next = (next + 1) % ring.length;
+            if (evicted != null) {
+                keys.remove(evicted);
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+}
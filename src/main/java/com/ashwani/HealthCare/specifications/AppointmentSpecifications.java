@@ -1,5 +1,6 @@
 package com.ashwani.HealthCare.specifications;
 
+import com.ashwani.HealthCare.DTO.Appointments.AppointmentCursor;
 import com.ashwani.HealthCare.Entity.Appointment;
 import jakarta.persistence.criteria.JoinType;
 import org.springframework.data.jpa.domain.Specification;
@@ -11,12 +12,12 @@ public class AppointmentSpecifications {
 
     public static Specification<Appointment> hasDoctor(Long doctorId) {
         return (root, query, cb) -> {
-            // Add fetch joins to prevent N+1 queries
+            // Add fetch joins to prevent N+1 queries. All three are to-one, so rows stay
+            // unique without DISTINCT and the keyset ORDER BY can use the index directly
             if (query.getResultType().equals(Appointment.class)) {
                 root.fetch("doctor", JoinType.LEFT);
                 root.fetch("patient", JoinType.LEFT);
                 root.fetch("paymentDetails", JoinType.LEFT);
-                query.distinct(true);
             }
             return cb.equal(root.get("doctor").get("id"), doctorId);
         };
@@ -24,12 +25,12 @@ public class AppointmentSpecifications {
 
     public static Specification<Appointment> hasPatient(Long patientId) {
         return (root, query, cb) -> {
-            // Add fetch joins to prevent N+1 queries
+            // Add fetch joins to prevent N+1 queries. All three are to-one, so rows stay
+            // unique without DISTINCT and the keyset ORDER BY can use the index directly
             if (query.getResultType().equals(Appointment.class)) {
                 root.fetch("patient", JoinType.LEFT);
                 root.fetch("doctor", JoinType.LEFT);
                 root.fetch("paymentDetails", JoinType.LEFT);
-                query.distinct(true);
             }
             return cb.equal(root.get("patient").get("id"), patientId);
         };
@@ -75,6 +76,24 @@ public class AppointmentSpecifications {
         };
     }
 
+    /**
+     * Keyset predicate: appointments strictly after the cursor in (appointmentDate, startTime, id) order
+     */
+    public static Specification<Appointment> isAfter(AppointmentCursor cursor) {
+        return (root, query, cb) -> {
+            if (cursor == null) {
+                return null;
+            }
+            return cb.or(
+                    cb.greaterThan(root.get("appointmentDate"), cursor.date()),
+                    cb.and(cb.equal(root.get("appointmentDate"), cursor.date()),
+                            cb.greaterThan(root.get("startTime"), cursor.startTime())),
+                    cb.and(cb.equal(root.get("appointmentDate"), cursor.date()),
+                            cb.equal(root.get("startTime"), cursor.startTime()),
+                            cb.greaterThan(root.get("id"), cursor.id())));
+        };
+    }
+
     public static Specification<Appointment> hasStatus(String status) {
         return (root, query, cb) ->
                 status == null ? null : cb.equal(root.get("status"), status);
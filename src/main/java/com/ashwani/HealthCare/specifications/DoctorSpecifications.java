@@ -1,9 +1,15 @@
 package com.ashwani.HealthCare.specifications;
 
+import com.ashwani.HealthCare.Entity.AvailabilityOverride;
 import com.ashwani.HealthCare.Entity.Doctor;
+import com.ashwani.HealthCare.Entity.DoctorAvailability;
 import com.ashwani.HealthCare.Enums.Gender;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDate;
+
 public class DoctorSpecifications {
 
     // Filter by specialization (null-safe, case-insensitive partial match)
@@ -35,4 +41,25 @@ public class DoctorSpecifications {
                         ? cb.conjunction()  // Returns no filtering condition if null
                         : cb.equal(root.get("gender"), gender);
     }
+
+    // Doctors who can have a free slot in [from, to]: an available weekly row,
+    // or an override opening an extra window on one of those dates
+    public static Specification<Doctor> hasScheduleBetween(LocalDate from, LocalDate to) {
+        return (root, query, cb) -> {
+            Subquery<Long> weekly = query.subquery(Long.class);
+            Root<DoctorAvailability> availability = weekly.from(DoctorAvailability.class);
+            weekly.select(availability.get("id")).where(
+                    cb.equal(availability.get("doctor"), root),
+                    cb.isTrue(availability.get("isAvailable")));
+
+            Subquery<Long> extra = query.subquery(Long.class);
+            Root<AvailabilityOverride> override = extra.from(AvailabilityOverride.class);
+            extra.select(override.get("id")).where(
+                    cb.equal(override.get("doctor"), root),
+                    cb.isTrue(override.get("isAvailable")),
+                    cb.between(override.get("date"), from, to));
+
+            return cb.or(cb.exists(weekly), cb.exists(extra));
+        };
+    }
 }
@@ -0,0 +1,106 @@
+package com.ashwani.HealthCare.Controllers;
+
+import com.ashwani.HealthCare.Config.SecurityConfig;
+import com.ashwani.HealthCare.Service.Appointment.AppointmentExportService;
+import com.ashwani.HealthCare.Service.Appointment.AppointmentService;
+import com.ashwani.HealthCare.Service.Appointment.FirstAvailableSlotService;
+import com.ashwani.HealthCare.Utility.JWTUtility;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The appointment export carries patient data: only the doctor themselves or an admin may download it.
+ */
+@WebMvcTest(AppointmentController.class)
+@Import(SecurityConfig.class)
+class AppointmentControllerExportSecurityTests {
+    private static final String EXPORT_URL = "/api/appointments/doctor/2/export";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private JWTUtility jwtUtility;
+    @MockitoBean
+    private AppointmentService appointmentService;
+    @MockitoBean
+    private FirstAvailableSlotService firstAvailableSlotService;
+    @MockitoBean
+    private AppointmentExportService appointmentExportService;
+
+    @Test
+    void patientCannotExportADoctorsAppointments() throws Exception {
+        // Same numeric id as the doctor, but a patient token
+        mockMvc.perform(get(EXPORT_URL).header("Authorization", token("2", "PATIENT", false)))
+                .andExpect(status().isForbidden());
+
+        verify(appointmentExportService, never()).exportDoctorAppointments(any(), any());
+    }
+
+    @Test
+    void doctorCannotExportAnotherDoctorsAppointments() throws Exception {
+        mockMvc.perform(get(EXPORT_URL).header("Authorization", token("3", "DOCTOR", false)))
+                .andExpect(status().isForbidden());
+
+        verify(appointmentExportService, never()).exportDoctorAppointments(any(), any());
+    }
+
+    @Test
+    void doctorCanExportOwnAppointments() throws Exception {
+        expectExport();
+
+        MvcResult started = mockMvc.perform(get(EXPORT_URL).header("Authorization", token("2", "DOCTOR", false)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"appointmentId\":42}\n"));
+    }
+
+    @Test
+    void adminCanExportAnyDoctorsAppointments() throws Exception {
+        expectExport();
+
+        MvcResult started = mockMvc.perform(get(EXPORT_URL).header("Authorization", token("7", "PATIENT", true)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk());
+    }
+
+    private void expectExport() {
+        when(appointmentExportService.exportDoctorAppointments(eq(2L), eq(AppointmentExportService.ExportFormat.NDJSON)))
+                .thenReturn(out -> out.write("{\"appointmentId\":42}\n".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String token(String userId, String role, boolean admin) {
+        String token = role.toLowerCase() + "-" + userId + (admin ? "-admin" : "");
+        Claims claims = Jwts.claims().setSubject(userId);
+        claims.put("role", role);
+        when(jwtUtility.validateToken(token)).thenReturn(claims);
+        when(jwtUtility.isAdmin(claims)).thenReturn(admin);
+        return "Bearer " + token;
+    }
+}
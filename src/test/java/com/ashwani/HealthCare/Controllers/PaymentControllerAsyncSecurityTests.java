@@ -0,0 +1,110 @@
+package com.ashwani.HealthCare.Controllers;
+
+import com.ashwani.HealthCare.Config.SecurityConfig;
+import com.ashwani.HealthCare.DTO.Payment.PaymentRequest;
+import com.ashwani.HealthCare.DTO.Payment.PaymentResponse;
+import com.ashwani.HealthCare.DTO.Payment.PaymentStatusResponse;
+import com.ashwani.HealthCare.Service.Payment.Event.PaymentEventRecoverer;
+import com.ashwani.HealthCare.Service.Payment.Inbox.PaymentWebhookInboxService;
+import com.ashwani.HealthCare.Service.Payment.PaymentRevenueService;
+import com.ashwani.HealthCare.Service.Payment.PaymentService;
+import com.ashwani.HealthCare.Utility.JWTUtility;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Async payment endpoints through the real security filter chain and JwtFilter:
+ * the result is written on an ASYNC re-dispatch, which must not be rejected as unauthenticated.
+ */
+@WebMvcTest(PaymentController.class)
+@Import(SecurityConfig.class)
+class PaymentControllerAsyncSecurityTests {
+    private static final String TOKEN = "Bearer patient-token";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private JWTUtility jwtUtility;
+    @MockitoBean
+    private PaymentService paymentService;
+    @MockitoBean
+    private PaymentWebhookInboxService paymentWebhookInboxService;
+    @MockitoBean
+    private PaymentEventRecoverer paymentEventRecoverer;
+    @MockitoBean
+    private PaymentRevenueService paymentRevenueService;
+
+    @BeforeEach
+    void authenticatePatient() {
+        Claims claims = Jwts.claims().setSubject("1");
+        claims.put("role", "PATIENT");
+        when(jwtUtility.validateToken("patient-token")).thenReturn(claims);
+    }
+
+    @Test
+    void initiatePaymentResultIsWrittenOnTheAsyncDispatch() throws Exception {
+        when(paymentService.initiatePayment(any(PaymentRequest.class))).thenReturn(
+                CompletableFuture.completedFuture(new PaymentResponse("order_1", "session_1", "cashfree")));
+
+        MvcResult started = mockMvc.perform(post("/api/payments/initiate")
+                        .header("Authorization", TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 500, \"paymentMode\": \"UPI\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderId").value("order_1"));
+    }
+
+    @Test
+    void awaitPaymentStatusResultIsWrittenOnTheAsyncDispatch() throws Exception {
+        DeferredResult<PaymentStatusResponse> deferred = new DeferredResult<>();
+        when(paymentService.awaitPaymentStatus(eq("order_1"), anyLong())).thenReturn(deferred);
+
+        MvcResult started = mockMvc.perform(get("/api/payments/status/order_1/wait")
+                        .header("Authorization", TOKEN))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // Completed later, as when the webhook for the order arrives
+        deferred.setResult(new PaymentStatusResponse("order_1", "SUCCESS", false));
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("SUCCESS"))
+                .andExpect(jsonPath("$.pending").value(false));
+    }
+
+    @Test
+    void requestWithoutTokenIsStillRejected() throws Exception {
+        mockMvc.perform(post("/api/payments/initiate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 500}"))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,250 @@
+package com.ashwani.HealthCare;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.time.LocalDateTime;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Insert throughput of webhook-event and video-event ingestion with IDENTITY keys
+ * versus pooled-lo sequence keys, against a real PostgreSQL database.
+ *
+ * Rows are persisted through an EntityManager with the application's Hibernate
+ * settings (pooled-lo optimizer, JDBC batch size 50, ordered inserts, driver-side
+ * batch rewriting), and Hibernate statistics confirm what each strategy sent:
+ * - IDENTITY: one INSERT ... RETURNING id per row, so batching is disabled
+ * - pooled-lo (allocationSize 50): one nextval and one batch per 50 rows
+ *
+ * The entities below map to bench_* tables created and dropped by Hibernate, so
+ * the real tables are untouched. They are declared in id-generation-benchmark-orm.xml
+ * rather than with @Entity, which keeps them out of the application's entity scan.
+ * Skipped unless BENCHMARK_DATABASE_URL is set:
+ *
+ *   BENCHMARK_DATABASE_URL=jdbc:postgresql://host:5432/db BENCHMARK_DB_USERNAME=... \
+ *   BENCHMARK_DB_PASSWORD=... ./mvnw test -Dtest=IdGenerationBenchmarkTests
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_DATABASE_URL", matches = ".+")
+@Slf4j
+class IdGenerationBenchmarkTests {
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 5000);
+    private static final int WARMUP_ROWS = 500;
+    private static final int BLOCK_SIZE = 50;
+
+    private static SessionFactory sessionFactory;
+
+    @BeforeAll
+    static void buildSessionFactory() {
+        sessionFactory = new Configuration()
+                .addResource("id-generation-benchmark-orm.xml")
+                .setProperty("hibernate.connection.url", System.getenv("BENCHMARK_DATABASE_URL"))
+                .setProperty("hibernate.connection.username", System.getenv().getOrDefault("BENCHMARK_DB_USERNAME", ""))
+                .setProperty("hibernate.connection.password", System.getenv().getOrDefault("BENCHMARK_DB_PASSWORD", ""))
+                .setProperty("hibernate.connection.reWriteBatchedInserts", "true")
+                .setProperty("hibernate.id.optimizer.pooled.preferred", "pooled-lo")
+                .setProperty("hibernate.jdbc.batch_size", String.valueOf(BLOCK_SIZE))
+                .setProperty("hibernate.order_inserts", "true")
+                .setProperty("hibernate.generate_statistics", "true")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .buildSessionFactory();
+    }
+
+    @AfterAll
+    static void closeSessionFactory() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+    }
+
+    @Test
+    void webhookEventIngestion() {
+        compare("twilio_webhook_events", IdentityWebhookEvent::new, PooledWebhookEvent::new);
+    }
+
+    @Test
+    void videoEventIngestion() {
+        compare("video_call_events", IdentityVideoEvent::new, PooledVideoEvent::new);
+    }
+
+    private void compare(String table, IntFunction<Object> identityEvent, IntFunction<Object> pooledEvent) {
+        persist(identityEvent, WARMUP_ROWS);
+        persist(pooledEvent, WARMUP_ROWS);
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        long identityNanos = persist(identityEvent, ROWS);
+        long identityStatements = statistics.getPrepareStatementCount();
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+
+        statistics.clear();
+        long pooledLoNanos = persist(pooledEvent, ROWS);
+        long pooledLoStatements = statistics.getPrepareStatementCount();
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+
+        // IDENTITY needs the generated key of every row, so each row is its own statement
+        assertTrue(identityStatements >= ROWS,
+                "IDENTITY prepared " + identityStatements + " statements for " + ROWS + " rows");
+        // pooled-lo: per block of 50 rows, one nextval plus one batched INSERT
+        long blocks = (ROWS + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        assertTrue(pooledLoStatements <= 2 * blocks + 1,
+                "pooled-lo prepared " + pooledLoStatements + " statements for " + blocks + " blocks");
+
+        log.info("{} ingestion, {} rows: IDENTITY {} rows/s in {} statements, pooled-lo sequence {} rows/s "
+                        + "in {} statements ({}x)",
+                table, ROWS, Math.round(rowsPerSecond(identityNanos)), identityStatements,
+                Math.round(rowsPerSecond(pooledLoNanos)), pooledLoStatements,
+                String.format("%.1f", (double) identityNanos / pooledLoNanos));
+    }
+
+    /**
+     * Persist rows in one transaction, flushing and clearing the context every block
+     * the way an ingestion worker would
+     * @return Elapsed nanoseconds
+     */
+    private long persist(IntFunction<Object> event, int rows) {
+        long start = System.nanoTime();
+        EntityManager entityManager = sessionFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            for (int i = 0; i < rows; i++) {
+                entityManager.persist(event.apply(i));
+                if ((i + 1) % BLOCK_SIZE == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.getTransaction().commit();
+        } finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            entityManager.close();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static double rowsPerSecond(long nanos) {
+        return ROWS / (nanos / 1_000_000_000.0);
+    }
+
+    // Shaped like twilio_webhook_events
+    abstract static class BenchWebhookEvent {
+        @Column(name = "room_sid", nullable = false)
+        String roomSid;
+        @Column(name = "event_type", nullable = false)
+        String eventType = "participant-connected";
+        @Column(name = "participant_sid")
+        String participantSid;
+        @Column(name = "event_data", columnDefinition = "text")
+        String eventData;
+        @Column(name = "processed")
+        Boolean processed = false;
+        @Column(name = "received_at")
+        LocalDateTime receivedAt = LocalDateTime.now();
+
+        BenchWebhookEvent() {
+        }
+
+        BenchWebhookEvent(int i) {
+            roomSid = "RM" + (i % 100);
+            participantSid = "PA" + i;
+            eventData = "{\"sequence\": " + i + "}";
+        }
+    }
+
+    static class IdentityWebhookEvent extends BenchWebhookEvent {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        Long id;
+
+        IdentityWebhookEvent() {
+        }
+
+        IdentityWebhookEvent(int i) {
+            super(i);
+        }
+    }
+
+    static class PooledWebhookEvent extends BenchWebhookEvent {
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bench_webhook_events_seq")
+        @SequenceGenerator(name = "bench_webhook_events_seq", sequenceName = "bench_webhook_events_seq",
+                allocationSize = BLOCK_SIZE)
+        Long id;
+
+        PooledWebhookEvent() {
+        }
+
+        PooledWebhookEvent(int i) {
+            super(i);
+        }
+    }
+
+    // Shaped like video_call_events
+    abstract static class BenchVideoEvent {
+        @Column(name = "session_id", nullable = false)
+        Long sessionId;
+        @Column(name = "event_type", nullable = false)
+        String eventType = "participant-connected";
+        @Column(name = "participant_identity")
+        String participantIdentity;
+        @Column(name = "event_data", columnDefinition = "text")
+        String eventData;
+        @Column(name = "created_at", nullable = false)
+        LocalDateTime createdAt = LocalDateTime.now();
+        @Column(name = "updated_at")
+        LocalDateTime updatedAt = createdAt;
+
+        BenchVideoEvent() {
+        }
+
+        BenchVideoEvent(int i) {
+            sessionId = (long) (i % 100);
+            participantIdentity = "patient_" + i;
+            eventData = "{\"sequence\": " + i + "}";
+        }
+    }
+
+    static class IdentityVideoEvent extends BenchVideoEvent {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        Long id;
+
+        IdentityVideoEvent() {
+        }
+
+        IdentityVideoEvent(int i) {
+            super(i);
+        }
+    }
+
+    static class PooledVideoEvent extends BenchVideoEvent {
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bench_video_events_seq")
+        @SequenceGenerator(name = "bench_video_events_seq", sequenceName = "bench_video_events_seq",
+                allocationSize = BLOCK_SIZE)
+        Long id;
+
+        PooledVideoEvent() {
+        }
+
+        PooledVideoEvent(int i) {
+            super(i);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.ashwani.HealthCare.Service.Availability;
+
+import com.ashwani.HealthCare.Entity.DoctorAvailability;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.SequenceGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AvailabilityImportServiceTests {
+
+    @Test
+    void idBlocksMatchTheEntitySequenceGenerator() throws ReflectiveOperationException {
+        Field id = DoctorAvailability.class.getDeclaredField("id");
+        SequenceGenerator generator = id.getAnnotation(SequenceGenerator.class);
+        assertEquals(generator.name(), id.getAnnotation(GeneratedValue.class).generator());
+
+        // Bulk-imported ids are carved from the same sequence in blocks of the same size as Hibernate's,
+        // so imported rows and rows saved through JPA never get the same id
+        assertEquals(DoctorAvailability.ID_SEQUENCE, generator.sequenceName());
+        assertEquals(DoctorAvailability.ID_ALLOCATION_SIZE, generator.allocationSize());
+        assertEquals(generator.allocationSize(), ((Integer) constant("ID_BLOCK_SIZE")).intValue());
+        assertTrue(((String) constant("RESERVE_ID_BLOCKS_SQL")).contains("nextval('" + generator.sequenceName() + "')"));
+    }
+
+    private static Object constant(String name) throws ReflectiveOperationException {
+        Field field = AvailabilityImportService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(null);
+    }
+}
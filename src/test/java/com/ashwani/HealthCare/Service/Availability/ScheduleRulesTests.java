@@ -0,0 +1,66 @@
+package com.ashwani.HealthCare.Service.Availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScheduleRulesTests {
+    private static final List<ScheduleRules.Window> NINE_TO_FIVE =
+            List.of(window("09:00", "17:00"));
+
+    @Test
+    void offGridStartIsRejected() {
+        // Its claim key would never collide with the 10:00/10:30 claims of an overlapping booking
+        assertThrows(IllegalArgumentException.class,
+                () -> ScheduleRules.durationMinutes(30, LocalTime.of(10, 15)));
+        assertThrows(IllegalArgumentException.class,
+                () -> ScheduleRules.durationMinutes(null, LocalTime.of(10, 0, 30)));
+        assertThrows(IllegalArgumentException.class,
+                () -> ScheduleRules.requireOnGrid(LocalTime.of(16, 45)));
+
+        assertEquals(45, ScheduleRules.durationMinutes(45, LocalTime.of(10, 30)));
+        assertEquals(ScheduleRules.DEFAULT_DURATION_MINUTES, ScheduleRules.durationMinutes(null, LocalTime.of(10, 0)));
+    }
+
+    @Test
+    void intervalRunningPastTheWindowEndIsNotOffered() {
+        assertFalse(ScheduleRules.isOffered(NINE_TO_FIVE, LocalTime.of(16, 30), 45));
+        assertFalse(ScheduleRules.isOffered(NINE_TO_FIVE, LocalTime.of(16, 45), 30));
+        assertFalse(ScheduleRules.isOffered(NINE_TO_FIVE, LocalTime.of(8, 30), 60));
+
+        assertTrue(ScheduleRules.isOffered(NINE_TO_FIVE, LocalTime.of(16, 30), 30));
+        assertTrue(ScheduleRules.isOffered(NINE_TO_FIVE, LocalTime.of(9, 0), 60));
+    }
+
+    @Test
+    void touchingWindowsCountAsOne() {
+        List<ScheduleRules.Window> split = List.of(window("12:00", "17:00"), window("09:00", "12:00"));
+        List<ScheduleRules.Window> gap = List.of(window("09:00", "12:00"), window("13:00", "17:00"));
+
+        assertTrue(ScheduleRules.isOffered(split, LocalTime.of(11, 30), 60));
+        assertFalse(ScheduleRules.isOffered(gap, LocalTime.of(11, 30), 60));
+    }
+
+    @Test
+    void windowEndingAtMidnightCoversTheLastSlot() {
+        List<ScheduleRules.Window> evening = List.of(window("20:00", "00:00"));
+
+        assertTrue(ScheduleRules.isOffered(evening, LocalTime.of(23, 30), 30));
+    }
+
+    @Test
+    void appointmentCannotRunPastMidnight() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ScheduleRules.durationMinutes(60, LocalTime.of(23, 30)));
+    }
+
+    private static ScheduleRules.Window window(String start, String end) {
+        return new ScheduleRules.Window(LocalTime.parse(start), LocalTime.parse(end));
+    }
+}
@@ -0,0 +1,83 @@
+package com.ashwani.HealthCare.Service.Payment.Gateway;
+
+import com.ashwani.HealthCare.ExceptionHandlers.payment.GatewayUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GatewayCallExecutorTests {
+    private static final String GATEWAY = "test";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // 50 ms timeout, one concurrent call, a single failure opens the breaker, open period 0 ms
+    private final GatewayCallExecutor executor = new GatewayCallExecutor(meterRegistry,
+            50, 1, 1, 1, 0.5, 0, 10);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void halfOpenTrialRejectedByTheBulkheadLeavesTheTrialAvailable() throws Exception {
+        CountDownLatch hold = new CountDownLatch(1);
+
+        // Times out and opens the breaker, but keeps the only bulkhead permit until released
+        CompletableFuture<String> stuck = executor.submit(GATEWAY, "stuck", () -> {
+            awaitIgnoringInterrupts(hold);
+            return "late";
+        });
+        assertEquals("GATEWAY_TIMEOUT", errorCode(stuck));
+        assertEquals("OPEN", executor.health(GATEWAY).getCircuitState());
+
+        // Open period is over: the breaker grants the trial, the bulkhead refuses it
+        CompletableFuture<String> rejected = executor.submit(GATEWAY, "trial", () -> "ok");
+        assertEquals("GATEWAY_BUSY", errorCode(rejected));
+        assertEquals("HALF_OPEN", executor.health(GATEWAY).getCircuitState());
+        assertEquals(1.0, meterRegistry.get("payment.gateway.rejected")
+                .tag("reason", "bulkhead_full").counter().count());
+
+        hold.countDown();
+        awaitBulkheadPermits(1);
+
+        // The refused trial was given back, so the next call is the trial and closes the breaker
+        assertEquals("ok", executor.submit(GATEWAY, "trial", () -> "ok").get(5, TimeUnit.SECONDS));
+        assertEquals("CLOSED", executor.health(GATEWAY).getCircuitState());
+    }
+
+    private static String errorCode(CompletableFuture<?> future) {
+        ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        return assertInstanceOf(GatewayUnavailableException.class, error.getCause()).getErrorCode();
+    }
+
+    private void awaitBulkheadPermits(int permits) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("payment.gateway.bulkhead.available").gauge().value() < permits) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Bulkhead permit was not released");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    // Timed-out calls are interrupted; this one models a call stuck in I/O that ignores it
+    private static void awaitIgnoringInterrupts(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException ignored) {
+                // keep holding the permit
+            }
+        }
+    }
+}
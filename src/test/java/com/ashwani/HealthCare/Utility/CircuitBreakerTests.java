@@ -0,0 +1,131 @@
+package com.ashwani.HealthCare.Utility;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTests {
+    // Long enough that an opened breaker stays open for the whole test
+    private static final long STAYS_OPEN = 60_000;
+    // Open period already over on the next tryAcquirePermission
+    private static final long REOPENS_NOW = 0;
+
+    @Test
+    void staysClosedUntilMinimumCallsAreRecorded() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, STAYS_OPEN);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+            breaker.onFailure();
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void opensAtFailureRateThresholdAndRejectsCalls() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.5, STAYS_OPEN);
+
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertFalse(breaker.isOpenExpired());
+    }
+
+    @Test
+    void oldOutcomesDropOutOfTheWindow() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.5, STAYS_OPEN);
+
+        breaker.onFailure();
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess();
+        }
+        // The first failure has been evicted: one failure in four is below 50%
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void allowsOneTrialCallOnceTheOpenPeriodHasPassed() {
+        CircuitBreaker breaker = openedBreaker(REOPENS_NOW);
+
+        assertTrue(breaker.isOpenExpired());
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void successfulTrialClosesWithAFreshWindow() {
+        CircuitBreaker breaker = openedBreaker(REOPENS_NOW);
+        assertTrue(breaker.tryAcquirePermission());
+
+        breaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        // Failures from before the trial are forgotten: a single new failure does not reopen
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void failedTrialOpensAgain() {
+        CircuitBreaker breaker = openedBreaker(REOPENS_NOW);
+        assertTrue(breaker.tryAcquirePermission());
+
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void trialRejectedByTheBulkheadIsGivenBack() {
+        CircuitBreaker breaker = openedBreaker(REOPENS_NOW);
+
+        // GatewayCallExecutor: breaker permission granted, then the bulkhead is full
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.releasePermission();
+
+        // Without the release the breaker would stay half-open with no trial ever made
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void releaseWhileClosedDoesNotAffectTheWindow() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, STAYS_OPEN);
+
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.releasePermission();
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void rejectsMinimumCallsOutsideTheWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker(5, 6, 0.5, STAYS_OPEN));
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker(5, 0, 0.5, STAYS_OPEN));
+    }
+
+    private static CircuitBreaker openedBreaker(long openMillis) {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, openMillis);
+        breaker.onFailure();
+        breaker.onFailure();
+        return breaker;
+    }
+}
@@ -0,0 +1,141 @@
+package com.ashwani.HealthCare.Utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The wheel is driven by a hand-advanced clock, so every expiry is checked at the exact tick it happens.
+ */
+class HashedTimingWheelTests {
+    private static final long TICK_MILLIS = 10;
+    // Four buckets: one revolution of the wheel is 40 ms
+    private static final int WHEEL_SIZE = 4;
+    private static final long REVOLUTION_MILLIS = TICK_MILLIS * WHEEL_SIZE;
+    private static final long START_MILLIS = 1_000_000;
+
+    private final AtomicLong now = new AtomicLong(START_MILLIS);
+    private final Map<String, Long> firedAt = new HashMap<>();
+    private final List<String> firingOrder = new ArrayList<>();
+    private final HashedTimingWheel<String> wheel = new HashedTimingWheel<>(TICK_MILLIS, WHEEL_SIZE, now::get, item -> {
+        firedAt.put(item, now.get());
+        firingOrder.add(item);
+    });
+
+    @Test
+    void entryBeyondOneRevolutionWaitsForItsDeadline() {
+        long near = START_MILLIS + 2 * TICK_MILLIS;
+        long far = START_MILLIS + 4 * REVOLUTION_MILLIS + 3 * TICK_MILLIS;
+
+        wheel.schedule("far", far);
+        wheel.schedule("near", near);
+
+        // The far entry's bucket is visited four times before its deadline tick comes round
+        tickUntil(far - TICK_MILLIS);
+        assertEquals(List.of("near"), firingOrder);
+        assertEquals(near, firedAt.get("near").longValue());
+
+        tickUntil(far);
+        assertEquals(List.of("near", "far"), firingOrder);
+        assertEquals(far, firedAt.get("far").longValue());
+    }
+
+    @Test
+    void entriesSharingABucketFireOneRevolutionApart() {
+        long first = START_MILLIS + 3 * TICK_MILLIS;
+        // Exactly one revolution later: same bucket, next round
+        long second = first + REVOLUTION_MILLIS;
+
+        wheel.schedule("second", second);
+        wheel.schedule("first", first);
+
+        tickUntil(second - TICK_MILLIS);
+        assertEquals(List.of("first"), firingOrder);
+        assertEquals(first, firedAt.get("first").longValue());
+
+        tickUntil(second);
+        assertEquals(List.of("first", "second"), firingOrder);
+        assertEquals(second, firedAt.get("second").longValue());
+    }
+
+    @Test
+    void deadlineBetweenTicksFiresOnTheFollowingTick() {
+        wheel.schedule("between", START_MILLIS + TICK_MILLIS + 1);
+
+        tickUntil(START_MILLIS + TICK_MILLIS);
+        assertTrue(firingOrder.isEmpty(), "fired before its deadline");
+
+        tickUntil(START_MILLIS + 2 * TICK_MILLIS);
+        assertEquals(List.of("between"), firingOrder);
+    }
+
+    @Test
+    void cancelledEntryNeverFires() {
+        long deadline = START_MILLIS + REVOLUTION_MILLIS;
+
+        wheel.schedule("cancelled", deadline).cancel();
+        wheel.schedule("kept", deadline + 2 * REVOLUTION_MILLIS);
+
+        tickUntil(deadline + 3 * REVOLUTION_MILLIS);
+        assertEquals(List.of("kept"), firingOrder);
+    }
+
+    @Test
+    void pastDeadlineFiresOnTheNextTick() {
+        tickUntil(START_MILLIS + 2 * TICK_MILLIS);
+
+        wheel.schedule("overdue", START_MILLIS - REVOLUTION_MILLIS);
+        wheel.advance();
+        assertTrue(firingOrder.isEmpty(), "fired before the next tick");
+
+        tickUntil(now.get() + TICK_MILLIS);
+        assertEquals(List.of("overdue"), firingOrder);
+    }
+
+    @Test
+    void delayedTickerCatchesUpInDeadlineOrder() {
+        wheel.schedule("third", START_MILLIS + 2 * REVOLUTION_MILLIS + TICK_MILLIS);
+        wheel.schedule("first", START_MILLIS + TICK_MILLIS);
+        wheel.schedule("second", START_MILLIS + REVOLUTION_MILLIS);
+        wheel.schedule("later", START_MILLIS + 3 * REVOLUTION_MILLIS);
+
+        // One advance after a long pause (GC, suspended VM) covers every missed tick
+        now.set(START_MILLIS + 3 * REVOLUTION_MILLIS - TICK_MILLIS);
+        wheel.advance();
+
+        assertEquals(List.of("first", "second", "third"), firingOrder);
+    }
+
+    @Test
+    void failingCallbackDoesNotStopTheWheel() {
+        List<String> fired = new ArrayList<>();
+        HashedTimingWheel<String> failing = new HashedTimingWheel<>(TICK_MILLIS, WHEEL_SIZE, now::get, item -> {
+            if (item.equals("bad")) {
+                throw new IllegalStateException("callback failed");
+            }
+            fired.add(item);
+        });
+
+        failing.schedule("bad", START_MILLIS + TICK_MILLIS);
+        failing.schedule("good", START_MILLIS + TICK_MILLIS);
+        failing.schedule("next", START_MILLIS + 2 * REVOLUTION_MILLIS);
+
+        now.set(START_MILLIS + 2 * REVOLUTION_MILLIS);
+        failing.advance();
+        assertEquals(List.of("good", "next"), fired);
+    }
+
+    private void tickUntil(long millis) {
+        while (now.get() < millis) {
+            now.addAndGet(TICK_MILLIS);
+            wheel.advance();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.ashwani.HealthCare.Utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntervalTreeTests {
+
+    @Test
+    void intervalsAreHalfOpen() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.add(540, 600, "09:00-10:00");
+
+        // Touching windows do not overlap
+        assertFalse(tree.overlaps(480, 540));
+        assertFalse(tree.overlaps(600, 660));
+        assertTrue(tree.overlaps(599, 600));
+        assertTrue(tree.overlaps(500, 541));
+        assertTrue(tree.overlaps(560, 570));
+        assertTrue(tree.overlaps(0, 1440));
+    }
+
+    @Test
+    void overlappingReturnsEveryMatchInOrder() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.add(600, 660, "c");
+        tree.add(480, 540, "a");
+        tree.add(540, 600, "b");
+        tree.add(900, 960, "d");
+
+        assertEquals(List.of("a", "b", "c"), tree.overlapping(500, 620));
+        assertEquals(List.of(), tree.overlapping(660, 900));
+        assertEquals(List.of("d"), tree.overlapping(959, 2000));
+    }
+
+    @Test
+    void findsALongIntervalHiddenInTheLeftSubtree() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.add(0, 1000, "long");
+        for (int start = 10; start < 500; start += 10) {
+            tree.add(start, start + 5, "short-" + start);
+        }
+
+        // Only the long interval reaches this far; the search must follow maxEnd into the left subtree
+        assertTrue(tree.overlaps(900, 910));
+        assertEquals(List.of("long"), tree.overlapping(900, 910));
+    }
+
+    @Test
+    void sameIntervalHoldsSeveralValues() {
+        IntervalTree<Integer> tree = new IntervalTree<>();
+        tree.add(60, 120, 1);
+        tree.add(60, 120, 2);
+
+        assertEquals(2, tree.size());
+        assertEquals(List.of(1, 2), tree.overlapping(60, 61));
+
+        assertTrue(tree.remove(60, 120, value -> value == 1));
+        assertEquals(List.of(2), tree.overlapping(60, 61));
+        assertFalse(tree.remove(60, 120, value -> value == 1));
+        assertTrue(tree.remove(60, 120, value -> value == 2));
+        assertTrue(tree.isEmpty());
+        assertFalse(tree.overlaps(0, 1440));
+    }
+
+    @Test
+    void rejectsEmptyIntervals() {
+        IntervalTree<String> tree = new IntervalTree<>();
+
+        assertThrows(IllegalArgumentException.class, () -> tree.add(600, 600, "empty"));
+        assertThrows(IllegalArgumentException.class, () -> tree.add(600, 540, "reversed"));
+    }
+
+    @Test
+    void staysBalancedUnderSortedInsertsAndRemovals() {
+        // Insert and delete recurse along one path: without rebalancing, sorted input
+        // degenerates into a list 200000 deep and overflows the stack
+        int count = 200_000;
+        IntervalTree<Integer> tree = new IntervalTree<>();
+        for (int i = 0; i < count; i++) {
+            tree.add(2 * i, 2 * i + 1, i);
+        }
+        assertEquals(count, tree.size());
+        assertTrue(tree.overlaps(2 * (count - 1), 2 * count));
+        assertFalse(tree.overlaps(1, 2));
+
+        for (int i = 0; i < count; i += 2) {
+            int value = i;
+            assertTrue(tree.remove(2 * i, 2 * i + 1, v -> v == value));
+        }
+        assertEquals(count / 2, tree.size());
+        assertFalse(tree.overlaps(0, 1));
+        assertEquals(List.of(1, 3), tree.overlapping(0, 8));
+
+        List<Integer> inOrder = new ArrayList<>();
+        tree.forEach((start, end, value) -> inOrder.add(value));
+        assertEquals(count / 2, inOrder.size());
+        for (int i = 0; i < inOrder.size(); i++) {
+            assertEquals(2 * i + 1, inOrder.get(i).intValue());
+        }
+    }
+
+    @Test
+    void matchesBruteForceAfterRandomAddsAndRemovals() {
+        Random random = new Random(42);
+        IntervalTree<Integer> tree = new IntervalTree<>();
+        List<int[]> stored = new ArrayList<>();
+
+        for (int i = 0; i < 2_000; i++) {
+            if (!stored.isEmpty() && random.nextInt(3) == 0) {
+                int[] removed = stored.remove(random.nextInt(stored.size()));
+                assertTrue(tree.remove(removed[0], removed[1], value -> value == removed[2]));
+            } else {
+                int start = random.nextInt(1440);
+                int[] interval = {start, start + 1 + random.nextInt(120), i};
+                stored.add(interval);
+                tree.add(interval[0], interval[1], interval[2]);
+            }
+
+            int start = random.nextInt(1440);
+            int end = start + 1 + random.nextInt(60);
+            List<Integer> expected = new ArrayList<>();
+            for (int[] interval : stored) {
+                if (interval[0] < end && start < interval[1]) {
+                    expected.add(interval[2]);
+                }
+            }
+            List<Integer> actual = tree.overlapping(start, end);
+            assertEquals(stored.size(), tree.size());
+            assertEquals(!expected.isEmpty(), tree.overlaps(start, end));
+            assertEquals(expected.stream().sorted().toList(), actual.stream().sorted().toList());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.ashwani.HealthCare.Utility;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OutcomeWindowTests {
+
+    @Test
+    void emptyWindowReportsHealthy() {
+        OutcomeWindow window = new OutcomeWindow(5);
+
+        assertEquals(0, window.size());
+        assertEquals(1.0, window.successRate());
+        assertEquals(0, window.percentile(0.95));
+    }
+
+    @Test
+    void successRateCountsFailuresInTheWindow() {
+        OutcomeWindow window = new OutcomeWindow(4);
+
+        window.record(true, 10);
+        window.record(false, 10);
+        window.record(true, 10);
+
+        assertEquals(3, window.size());
+        assertEquals(2.0 / 3, window.successRate(), 1e-9);
+    }
+
+    @Test
+    void oldestOutcomesAreEvictedOnceTheWindowIsFull() {
+        OutcomeWindow window = new OutcomeWindow(3);
+
+        window.record(false, 1_000);
+        window.record(false, 1_000);
+        window.record(true, 10);
+        window.record(true, 20);
+        window.record(true, 30);
+
+        // Both failures and their latencies have dropped out
+        assertEquals(3, window.size());
+        assertEquals(1.0, window.successRate());
+        assertEquals(30, window.percentile(1.0));
+    }
+
+    @Test
+    void evictionKeepsTheFailureCountInStep() {
+        OutcomeWindow window = new OutcomeWindow(2);
+
+        window.record(true, 1);
+        window.record(false, 1);
+        window.record(false, 1);
+
+        assertEquals(0.0, window.successRate());
+        window.record(true, 1);
+        assertEquals(0.5, window.successRate());
+    }
+
+    @Test
+    void p95IsTheNearestRankOverRecordedCalls() {
+        OutcomeWindow window = new OutcomeWindow(100);
+        // Recorded out of order: latencies 100..1 ms as nanoseconds
+        for (int i = 100; i >= 1; i--) {
+            window.record(true, i * 1_000_000L);
+        }
+
+        assertEquals(95_000_000L, window.percentile(0.95));
+        assertEquals(50_000_000L, window.percentile(0.5));
+        assertEquals(1_000_000L, window.percentile(0.0));
+        assertEquals(100_000_000L, window.percentile(1.0));
+    }
+
+    @Test
+    void p95OfAPartlyFilledWindowIgnoresUnusedSlots() {
+        OutcomeWindow window = new OutcomeWindow(100);
+
+        window.record(true, 40);
+        window.record(true, 20);
+        window.record(false, 30);
+
+        // ceil(0.95 * 3) = 3rd of [20, 30, 40]; unused zero slots are not counted
+        assertEquals(40, window.percentile(0.95));
+    }
+
+    @Test
+    void p95AfterWrapAroundUsesOnlyTheCurrentWindow() {
+        OutcomeWindow window = new OutcomeWindow(20);
+        for (int i = 0; i < 20; i++) {
+            window.record(true, 1_000);
+        }
+        for (int i = 1; i <= 20; i++) {
+            window.record(true, i);
+        }
+
+        assertEquals(19, window.percentile(0.95));
+    }
+
+    @Test
+    void rejectsEmptyWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new OutcomeWindow(0));
+    }
+}